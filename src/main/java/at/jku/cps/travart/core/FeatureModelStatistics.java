@@ -20,8 +20,8 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import at.jku.cps.travart.core.common.IStatistics;
+import at.jku.cps.travart.core.helpers.CompactFeatureModel;
 import at.jku.cps.travart.core.helpers.TraVarTUtils;
-import de.vill.model.Feature;
 import de.vill.model.FeatureModel;
 import de.vill.model.Group;
 
@@ -52,57 +52,21 @@ public final class FeatureModelStatistics implements IStatistics<FeatureModel> {
 
 	@Override
 	public void logModelStatistics(final Logger logger, final FeatureModel fm) {
+		// all tree statistics are computed on one compact view of the model
+		final CompactFeatureModel model = CompactFeatureModel.of(fm);
 		logger.log(Level.INFO, "Root Name: {0}", fm.getRootFeature().getFeatureName());
 		logger.log(Level.INFO, "#Features: {0}", getVariabilityElementsCount(fm));
-		logger.log(Level.INFO, "#Abstract Features: {0}", countAbstractFeatures(fm));
-		logger.log(Level.INFO, "#Mandatory Features: {0}", countMandatoryFeatures(fm));
-		logger.log(Level.INFO, "#Optional Features: {0}", countOptionalFeatures(fm));
-		logger.log(Level.INFO, "#Or groups: {0}", countOrGroups(fm));
-		logger.log(Level.INFO, "#Xor groups: {0}", countXorGroups(fm));
+		logger.log(Level.INFO, "#Abstract Features: {0}", model.countAbstractFeatures());
+		logger.log(Level.INFO, "#Mandatory Features: {0}", countMandatoryFeatures(model));
+		logger.log(Level.INFO, "#Optional Features: {0}", model.countFeaturesInGroups(Group.GroupType.OPTIONAL));
+		logger.log(Level.INFO, "#Or groups: {0}", model.countGroups(Group.GroupType.OR));
+		logger.log(Level.INFO, "#Xor groups: {0}", model.countGroups(Group.GroupType.ALTERNATIVE));
 		logger.log(Level.INFO, "#Constraints: {0}", getConstraintsCount(fm));
-		logger.log(Level.INFO, "Tree height: {0}", computeFMHeight(TraVarTUtils.getRoot(fm)));
+		logger.log(Level.INFO, "Tree height: {0}", model.getHeight());
 	}
 
-	private static long countAbstractFeatures(final FeatureModel fm) {
-		return TraVarTUtils.getFeatures(fm).stream().filter(TraVarTUtils::isAbstract).count();
-	}
-
-	private static long countMandatoryFeatures(final FeatureModel fm) {
-		return TraVarTUtils.getFeatures(fm).stream().filter(TraVarTUtils::isMandatory).count();
-	}
-
-	private static long countOptionalFeatures(final FeatureModel fm) {
-		return TraVarTUtils.getFeatures(fm).stream()
-				.filter(f -> TraVarTUtils.checkGroupType(f, Group.GroupType.OPTIONAL)).count();
-	}
-
-	private static long countOrGroups(final FeatureModel fm) {
-		return countGroupType(fm, Group.GroupType.OR);
-	}
-
-	private static long countXorGroups(final FeatureModel fm) {
-		return countGroupType(fm, Group.GroupType.ALTERNATIVE);
-	}
-
-	private static long countGroupType(final FeatureModel fm, final Group.GroupType grouptype) {
-		long count = 0;
-		for (Feature feature : TraVarTUtils.getFeatures(fm)) {
-			count += TraVarTUtils.countGroup(feature, grouptype);
-		}
-		return count;
-	}
-
-	private static long computeFMHeight(final Feature feature) {
-		if (!TraVarTUtils.hasChildren(feature)) {
-			return 0;
-		}
-		long maxDepth = Integer.MIN_VALUE;
-		for (Feature child : TraVarTUtils.getChildren(feature)) {
-			long depth = computeFMHeight(child);
-			if (maxDepth < depth) {
-				maxDepth = depth;
-			}
-		}
-		return 1 + maxDepth;
+	private static long countMandatoryFeatures(final CompactFeatureModel model) {
+		// the root feature counts as mandatory
+		return Math.min(model.size(), 1) + model.countFeaturesInGroups(Group.GroupType.MANDATORY);
 	}
 }
@@ -18,6 +18,7 @@
 package at.jku.cps.travart.core.basic;
 
 import at.jku.cps.travart.core.FeatureModelStatistics;
+import at.jku.cps.travart.core.common.Format;
 import at.jku.cps.travart.core.common.IDeserializer;
 import at.jku.cps.travart.core.common.ILanguage;
 import at.jku.cps.travart.core.common.ISerializer;
@@ -46,6 +47,17 @@ public class UVL implements ILanguage<FeatureModel> {
         return new UVLSerializer();
     }
 
+    /**
+     * Returns a serializer for the given UVL format, i.e., textual UVL or binary
+     * UVL snapshots. The deserializer reads both formats.
+     *
+     * @param format the format to serialize to.
+     * @return the serializer for the given format.
+     */
+    public ISerializer<FeatureModel> getSerializer(final Format format) {
+        return new UVLSerializer(format);
+    }
+
     @Override
     public String getName() {
         return "Universal Variability Language";
@@ -16,29 +16,40 @@
 package at.jku.cps.travart.core.cli;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Collections;
 import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.Callable;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import at.jku.cps.travart.core.common.IModelTransformer;
+import at.jku.cps.travart.core.common.IDeserializer;
+import at.jku.cps.travart.core.common.IModelConverter;
+import at.jku.cps.travart.core.common.IModelEventHandler;
 import at.jku.cps.travart.core.common.IModelTransformer.STRATEGY;
 import at.jku.cps.travart.core.common.IPlugin;
-import at.jku.cps.travart.core.common.IDeserializer;
 import at.jku.cps.travart.core.common.ISerializer;
+import at.jku.cps.travart.core.common.IStreamingDeserializer;
+import at.jku.cps.travart.core.common.IStreamingSerializer;
 import at.jku.cps.travart.core.exception.NotSupportedVariabilityTypeException;
 import at.jku.cps.travart.core.exception.TransformationException;
+import at.jku.cps.travart.core.helpers.PluginSnapshot;
 import at.jku.cps.travart.core.helpers.TraVarTPluginManager;
 import at.jku.cps.travart.core.io.FileUtils;
 import at.jku.cps.travart.core.io.UVLDeserializer;
+import at.jku.cps.travart.core.io.UVLImportResolver;
+import at.jku.cps.travart.core.io.UVLRepository;
 import at.jku.cps.travart.core.io.UVLSerializer;
+import at.jku.cps.travart.core.io.UVLSnapshotCache;
+import at.jku.cps.travart.core.transformation.TransformationGraph;
 import de.vill.model.FeatureModel;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
@@ -63,10 +74,10 @@ public class TransformCommand implements Callable<Integer> {
 		return builder.toString();
 	}
 
-	@Parameters(index = "0", description = "The source path to the variability artifact to transform. If the path is a folder, each variability artifact of the given type (-soureType) is transformed.")
+	@Parameters(index = "0", description = "The source path to the variability artifact to transform. If the path is a folder, each variability artifact of the given type (-soureType) is transformed. If the path is a UVL model repository (.tvr), each model of the repository is transformed.")
 	private Path sourcePath;
 
-	@Parameters(index = "1", description = "The output path to which the variability artifact is transformed. If the source is given as a folder, this parameter must be a folder too.")
+	@Parameters(index = "1", description = "The output path to which the variability artifact is transformed. If the source is given as a folder, this parameter must be a folder too. If the path is a UVL model repository (.tvr), the transformed models are stored in the repository.")
 	private Path targetPath;
 
 	@Option(names = { "-st", "-sourceType", "--st",
@@ -77,15 +88,19 @@ public class TransformCommand implements Callable<Integer> {
 			"--targetType" }, required = true, description = "The mandatory target type of the transformed variability artifacts, as listed in the plugin command.")
 	private String targetType;
 
+	@Option(names = { "-cache",
+			"--cache" }, description = "A directory to cache parsed UVL models in, such that later runs on the same files do not parse them again.")
+	private Path cacheDirectory;
+
 //	@Option(names = { "-validate",
 //			"--validate" }, description = "Validate the resulting variability artifact as with the validate command.")
 //	private boolean validate;
 
 	private IDeserializer deserializer;
 	private ISerializer serializer;
-	private final Queue<IModelTransformer> transformers = new LinkedList<>();
-
-	private boolean startUVL = false;
+	private List<IModelConverter<?, ?>> conversions = Collections.emptyList();
+	private Map<String, IPlugin<?>> plugins = Collections.emptyMap();
+	private UVLRepository targetRepository;
 
 	@Override
 	public Integer call() throws Exception {
@@ -103,68 +118,112 @@ public class TransformCommand implements Callable<Integer> {
 			LOGGER.error("Given source path is not a valid one!");
 			return 2;
 		}
-		if (!(Files.isRegularFile(targetPath) || Files.isDirectory(targetPath))) {
+		if (UVLRepository.isRepository(sourcePath) && !CORE_MODEL_UVL.equalsIgnoreCase(sourceType)
+				|| UVLRepository.isRepository(targetPath) && !CORE_MODEL_UVL.equalsIgnoreCase(targetType)) {
+			LOGGER.error("Model repositories can only be used with type UVL!");
+			return 2;
+		}
+		if (UVLRepository.isRepository(targetPath)) {
+			if (Files.isDirectory(targetPath)) {
+				LOGGER.error("Given target path is not a valid one!");
+				return 3;
+			}
+		} else if (!(Files.isRegularFile(targetPath) || Files.isDirectory(targetPath))) {
 			if (Files.exists(targetPath)) {
 				LOGGER.error("Given target path is not a valid one!");
 				return 3;
 			}
 			targetPath.toFile().mkdirs();
 		}
-		// start collecting necessary information for transformations
-		LOGGER.debug("Initialize transformations...");
-		int init = initializeTransformations();
-		if (init != 0) {
-			LOGGER.error("Unable to initialize plugins! Check installed plugins using command \"plugin\".");
-			return 4;
-		}
-		// do the transformations
-		LOGGER.debug("Starting trasnforming variability artifacts...");
-		try {
-			if (Files.isRegularFile(sourcePath)) {
-				return transformSingleFile(sourcePath);
+		// keep the plugin versions stable for the whole job, even if plugins are
+		// reloaded concurrently
+		try (PluginSnapshot snapshot = TraVarTPluginManager.acquirePlugins()) {
+			plugins = snapshot.getPlugins();
+			// start collecting necessary information for transformations
+			LOGGER.debug("Initialize transformations...");
+			int init = initializeTransformations();
+			if (init != 0) {
+				LOGGER.error("Unable to initialize plugins! Check installed plugins using command \"plugin\".");
+				return 4;
+			}
+			// do the transformations
+			LOGGER.debug("Starting trasnforming variability artifacts...");
+			try {
+				if (UVLRepository.isRepository(targetPath)) {
+					targetRepository = new UVLRepository(targetPath);
+				}
+				if (UVLRepository.isRepository(sourcePath)) {
+					return transformRepository();
+				}
+				if (Files.isRegularFile(sourcePath)) {
+					return transformSingleFile(sourcePath);
+				}
+				return transformDirectory();
+			} catch (IOException | NotSupportedVariabilityTypeException ex) {
+				LOGGER.error("Error while handling files...");
+				LOGGER.error(ex.toString());
+				throw new TransformationException(ex);
+			} finally {
+				if (targetRepository != null) {
+					targetRepository.close();
+				}
 			}
-			return transformDirectory();
-		} catch (IOException | NotSupportedVariabilityTypeException ex) {
-			LOGGER.error("Error while handling files...");
-			LOGGER.error(ex.toString());
-			throw new TransformationException(ex);
 		}
 	}
 
+	@SuppressWarnings("unchecked")
 	private int initializeTransformations() {
 		if (CORE_MODEL_UVL.equalsIgnoreCase(sourceType)) {
 			LOGGER.debug("Deteced source type UVL...");
-			deserializer = new UVLDeserializer();
-			startUVL = true;
+			deserializer = createUVLDeserializer();
 		} else {
-			IPlugin plugin = findPlugin(sourceType);
+			IPlugin<?> plugin = findPlugin(sourceType);
 			if (plugin == null) {
 				LOGGER.error("Could not find plugin for given source type!");
 				return 1;
 			}
 			LOGGER.debug(String.format("Deteced source type %s...", plugin.getName()));
 			deserializer = plugin.getDeserializer();
-			transformers.add(plugin.getTransformer());
 		}
 		if (CORE_MODEL_UVL.equalsIgnoreCase(targetType)) {
 			LOGGER.debug("Deteced target type UVL...");
 			serializer = new UVLSerializer();
 		} else {
-			IPlugin plugin = findPlugin(targetType);
+			IPlugin<?> plugin = findPlugin(targetType);
 			if (plugin == null) {
 				LOGGER.error("Could not find plugin for given target type!");
 				return 2;
 			}
 			LOGGER.debug(String.format("Deteced target type %s...", plugin.getName()));
 			serializer = plugin.getSerializer();
-			transformers.add(plugin.getTransformer());
 		}
+		TransformationGraph graph = new TransformationGraph(plugins.values());
+		Optional<List<IModelConverter<?, ?>>> path = graph.findCheapestPath(sourceType, targetType);
+		if (path.isEmpty()) {
+			LOGGER.error("Could not find a transformation path from the source type to the given target type!");
+			return 3;
+		}
+		conversions = path.get();
+		LOGGER.debug(String.format("Transformation path: %s", conversions));
 		return 0;
 	}
 
-	private static IPlugin findPlugin(final String type) {
+	private UVLDeserializer createUVLDeserializer() {
+		if (cacheDirectory == null) {
+			return new UVLDeserializer();
+		}
+		try {
+			return new UVLDeserializer(new UVLImportResolver(), new UVLSnapshotCache(cacheDirectory));
+		} catch (IOException ex) {
+			LOGGER.warn(String.format("Unable to use cache directory %s, parse models without cache...",
+					cacheDirectory));
+			return new UVLDeserializer();
+		}
+	}
+
+	private IPlugin<?> findPlugin(final String type) {
 		LOGGER.debug(String.format("Try to find plugin for type %s...", type));
-		Optional<IPlugin> plugin = TraVarTPluginManager.getAvailablePlugins().values().stream()
+		Optional<IPlugin<?>> plugin = plugins.values().stream()
 				.filter(v -> v.getName().equalsIgnoreCase(type)).findFirst();
 		if (plugin.isPresent()) {
 			return plugin.get();
@@ -192,28 +251,82 @@ public class TransformCommand implements Callable<Integer> {
 		return 0;
 	}
 
+	private Integer transformRepository() throws IOException, NotSupportedVariabilityTypeException {
+		try (UVLRepository repository = new UVLRepository(sourcePath)) {
+			LOGGER.debug(String.format("%d models to transform...", repository.ids().size()));
+			for (String id : repository.ids()) {
+				LOGGER.debug(String.format("Start transforming model %s...", id));
+				transformModel(repository.get(id), id);
+			}
+		}
+		return 0;
+	}
+
 	private Integer transformSingleFile(final Path file) throws IOException, NotSupportedVariabilityTypeException {
 		LOGGER.debug(String.format("Start transforming file %s...", file.getFileName()));
-		Object model = deserializer.deserializeFromFile(file);
-		Object newModel = model;
-		boolean intermediate = false;
-		for (IModelTransformer transformer : transformers) {
-			if (startUVL || intermediate) {
-				FeatureModel fm = (FeatureModel) newModel;
-				newModel = transformer.transform(fm, file.getFileName().toString(), STRATEGY.ROUNDTRIP);
-				intermediate = false;
-			} else {
-				newModel = transformer.transform(model, file.getFileName().toString(), STRATEGY.ROUNDTRIP);
-				intermediate = true;
+		if (isStreamable()) {
+			try {
+				return streamSingleFile(file);
+			} catch (NotSupportedVariabilityTypeException ex) {
+				LOGGER.debug(String.format("Streaming not possible (%s), transform materialized model...",
+						ex.getMessage()));
 			}
 		}
-		Path newPath = targetPath.resolve(file.getFileName() + serializer.getFileExtension());
-		LOGGER.debug(String.format("Write transformed file to %s...", newPath.toAbsolutePath()));
-		serializer.serializeToFile(newModel, newPath);
+		transformModel(deserializer.deserializeFromFile(file), file.getFileName().toString());
 //		if (validate) {
 //			LOGGER.debug("Validate the transformed model...");
 //			// TODO validate newModel with model
 //		}
 		return 0;
 	}
+
+	private void transformModel(final Object source, final String name)
+			throws IOException, NotSupportedVariabilityTypeException {
+		Object model = source;
+		for (IModelConverter<?, ?> converter : conversions) {
+			model = convert(converter, model, name);
+		}
+		if (targetRepository != null) {
+			LOGGER.debug(String.format("Store transformed model %s in %s...", name, targetRepository.getPath()));
+			targetRepository.put(name, (FeatureModel) model);
+			return;
+		}
+		Path newPath = targetPath.resolve(name + serializer.getFileExtension());
+		LOGGER.debug(String.format("Write transformed file to %s...", newPath.toAbsolutePath()));
+		serializer.serializeToFile(model, newPath);
+	}
+
+	/**
+	 * Converts the given model, whose type is the source type of the converter as
+	 * ensured by the transformation path.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <S, T> T convert(final IModelConverter<S, T> converter, final Object model, final String name)
+			throws NotSupportedVariabilityTypeException {
+		return converter.convert((S) model, name, STRATEGY.ROUNDTRIP);
+	}
+
+	private boolean isStreamable() {
+		return targetRepository == null && deserializer instanceof IStreamingDeserializer && serializer instanceof IStreamingSerializer
+				&& conversions.stream().allMatch(IModelConverter::supportsStreaming);
+	}
+
+	/**
+	 * Transforms the given file as a stream of model events, such that no
+	 * intermediate model is materialized.
+	 */
+	private Integer streamSingleFile(final Path file) throws IOException, NotSupportedVariabilityTypeException {
+		Path newPath = targetPath.resolve(file.getFileName() + serializer.getFileExtension());
+		LOGGER.debug(String.format("Stream transformed file to %s...", newPath.toAbsolutePath()));
+		try (Writer writer = Files.newBufferedWriter(newPath)) {
+			IModelEventHandler handler = ((IStreamingSerializer) serializer).createEventWriter(writer);
+			for (int i = conversions.size() - 1; i >= 0; i--) {
+				handler = conversions.get(i).convert(handler, file.getFileName().toString(), STRATEGY.ROUNDTRIP);
+			}
+			((IStreamingDeserializer) deserializer).streamFromFile(file, handler);
+		} catch (UncheckedIOException ex) {
+			throw ex.getCause();
+		}
+		return 0;
+	}
 }
@@ -16,8 +16,16 @@
  *******************************************************************************/
 package at.jku.cps.travart.core.common;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -33,7 +41,6 @@ import at.jku.cps.travart.core.exception.NotSupportedVariabilityTypeException;
  * @author Kevin Feichtinger
  */
 public interface IDeserializer<T> {
-
 	/**
 	 * Reads and deserializes a variability model of type <T> from the given path.
 	 *
@@ -46,12 +53,18 @@ public interface IDeserializer<T> {
 	 */
 	default T deserializeFromFile(Path filePath) throws IOException, NotSupportedVariabilityTypeException {
 		for (Format format : this.supportedFormats()) {
-			if (filePath.toString().endsWith(format.extension()) && format.isText()) {
-				String content = Files.readString(filePath);
-				return deserialize(content, format);
+			if (filePath.toString().endsWith(format.extension())) {
+				if (format.isText()) {
+					try (Reader reader = Files.newBufferedReader(filePath, StandardCharsets.UTF_8)) {
+						return deserialize(reader, format);
+					}
+				}
+				try (InputStream stream = new BufferedInputStream(Files.newInputStream(filePath))) {
+					return deserialize(stream, format);
+				}
 			}
 		}
-		throw new NotSupportedVariabilityTypeException("No supported text format found that matches the given file's extension.");
+		throw new NotSupportedVariabilityTypeException("No supported format found that matches the given file's extension.");
 	}
 
 	/**
@@ -83,6 +96,78 @@ public interface IDeserializer<T> {
 	 */
 	T deserialize(String serial, Format format) throws NotSupportedVariabilityTypeException;
 
+	/**
+	 * Deserializes a variability model of type <T> from the given reader,
+	 * interpreting the characters as having the given format. The reader is not
+	 * closed. Only supported for text-based formats.
+	 * <p>
+	 * </p>
+	 * By default, the reader is read completely and the content is passed to
+	 * {@link #deserialize(String, Format)}. Deserializers able to parse
+	 * incrementally should override this method.
+	 *
+	 * @param reader The reader providing the serialized variability model.
+	 * @param format The format of the serialized variability model.
+	 * @return The deserialized variability model.
+	 * @throws IOException                          if the reading operation throws
+	 *                                              any kind of error.
+	 * @throws NotSupportedVariabilityTypeException if the given variability model
+	 *                                              is not a valid.
+	 */
+	default T deserialize(final Reader reader, final Format format)
+			throws IOException, NotSupportedVariabilityTypeException {
+		if (!format.isText()) {
+			throw new NotSupportedVariabilityTypeException("Only text-based formats can be read from a reader.");
+		}
+		final StringBuilder builder = new StringBuilder();
+		final char[] buffer = new char[8192];
+		int read;
+		while ((read = reader.read(buffer)) != -1) {
+			builder.append(buffer, 0, read);
+		}
+		return deserialize(builder.toString(), format);
+	}
+
+	/**
+	 * Deserializes a variability model of type <T> from the given input stream,
+	 * interpreting the bytes as UTF-8 encoded model of the given format. The
+	 * stream is not closed.
+	 * <p>
+	 * </p>
+	 * Deserializers supporting a format which is not text-based override this
+	 * method to read it.
+	 *
+	 * @param stream The stream providing the serialized variability model.
+	 * @param format The format of the serialized variability model.
+	 * @return The deserialized variability model.
+	 * @throws IOException                          if the reading operation throws
+	 *                                              any kind of error.
+	 * @throws NotSupportedVariabilityTypeException if the given variability model
+	 *                                              is not a valid.
+	 */
+	default T deserialize(final InputStream stream, final Format format)
+			throws IOException, NotSupportedVariabilityTypeException {
+		return deserialize(new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8)), format);
+	}
+
+	/**
+	 * Deserializes a variability model of type <T> from the given channel,
+	 * interpreting the bytes as UTF-8 encoded model of the given format. The
+	 * channel is not closed.
+	 *
+	 * @param channel The channel providing the serialized variability model.
+	 * @param format  The format of the serialized variability model.
+	 * @return The deserialized variability model.
+	 * @throws IOException                          if the reading operation throws
+	 *                                              any kind of error.
+	 * @throws NotSupportedVariabilityTypeException if the given variability model
+	 *                                              is not a valid.
+	 */
+	default T deserialize(final ReadableByteChannel channel, final Format format)
+			throws IOException, NotSupportedVariabilityTypeException {
+		return deserialize(Channels.newInputStream(channel), format);
+	}
+
 	/**
 	 * Creates an iterable of formats supported by this deserializer.
 	 *
@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * The interface for transformers able to update a model from a delta.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.common;
+
+import at.jku.cps.travart.core.exception.NotSupportedVariabilityTypeException;
+import at.jku.cps.travart.core.transformation.ChangeSet;
+import at.jku.cps.travart.core.transformation.IncrementalTransformation;
+import de.vill.model.FeatureModel;
+
+/**
+ * An optional extension of the {@link IModelTransformer}, which updates a
+ * previously transformed model from the changes of its source model instead of
+ * transforming the whole source model again. The given previous target model
+ * may be changed and returned.
+ * <p>
+ * </p>
+ * An implementation may decline an update, e.g., if the changes are too
+ * extensive, by returning {@code null}. Callers should use
+ * {@link IncrementalTransformation}, which falls back to a full transformation
+ * if the transformer is not incremental or declines the update.
+ *
+ * @param <I> The type of the variability model.
+ * @author Kevin Feichtinger
+ */
+public interface IIncrementalTransformer<I> extends IModelTransformer<I> {
+
+	/**
+	 * Updates the core model of a variability model from the changes of the
+	 * variability model.
+	 *
+	 * @param previousModel     the previous version of the variability model.
+	 * @param model             the current version of the variability model.
+	 * @param previousCoreModel the core model transformed from the previous
+	 *                          version.
+	 * @param changes           the changes from the previous to the current
+	 *                          version of the variability model.
+	 * @param modelName         the name of the model.
+	 * @param level             the transformation strategy.
+	 * @return the updated core model, or {@code null} if the update is declined.
+	 * @throws NotSupportedVariabilityTypeException if the changes can not be
+	 *                                              transformed.
+	 */
+	FeatureModel updateCoreModel(I previousModel, I model, FeatureModel previousCoreModel, ChangeSet changes,
+			String modelName, STRATEGY level) throws NotSupportedVariabilityTypeException;
+
+	/**
+	 * Updates the variability model transformed from a core model from the
+	 * changes of the core model.
+	 *
+	 * @param previousCoreModel the previous version of the core model.
+	 * @param coreModel         the current version of the core model.
+	 * @param previousModel     the variability model transformed from the
+	 *                          previous version.
+	 * @param changes           the changes from the previous to the current
+	 *                          version of the core model.
+	 * @param modelName         the name of the model.
+	 * @param level             the transformation strategy.
+	 * @return the updated variability model, or {@code null} if the update is
+	 *         declined.
+	 * @throws NotSupportedVariabilityTypeException if the changes can not be
+	 *                                              transformed.
+	 */
+	I updateModel(FeatureModel previousCoreModel, FeatureModel coreModel, I previousModel, ChangeSet changes,
+			String modelName, STRATEGY level) throws NotSupportedVariabilityTypeException;
+}
@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * The base interface for a direct conversion between two variability artifacts.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.common;
+
+import at.jku.cps.travart.core.common.IModelTransformer.STRATEGY;
+import at.jku.cps.travart.core.exception.NotSupportedVariabilityTypeException;
+
+/**
+ * A converter transforms a variability model of type <S> directly into a
+ * variability model of type <T>, without necessarily passing through the core
+ * model. Converters are edges of the transformation graph, which is used to
+ * find the cheapest sequence of conversions between two variability types.
+ * <p>
+ * </p>
+ * The source and target types are identified by the names of the variability
+ * languages, as returned by {@link ILanguage#getName()}. The core model is
+ * identified by its abbreviation {@code UVL}.
+ *
+ * @param <S> The type of the source variability model.
+ * @param <T> The type of the target variability model.
+ * @author Kevin Feichtinger
+ */
+public interface IModelConverter<S, T> {
+
+	/**
+	 * The default cost of a conversion, i.e., the cost of a single transformation
+	 * step from or to the core model.
+	 */
+	double DEFAULT_COST = 1.0;
+
+	/**
+	 * Returns the name of the variability type this converter reads.
+	 *
+	 * @return the name of the source variability type.
+	 */
+	String getSourceType();
+
+	/**
+	 * Returns the name of the variability type this converter produces.
+	 *
+	 * @return the name of the target variability type.
+	 */
+	String getTargetType();
+
+	/**
+	 * Returns an estimate of the cost of this conversion relative to a single
+	 * transformation from or to the core model ({@link #DEFAULT_COST}). The cost
+	 * must be a finite, non-negative number, otherwise the converter is ignored.
+	 *
+	 * @return the estimated cost of this conversion.
+	 */
+	default double getCost() {
+		return DEFAULT_COST;
+	}
+
+	/**
+	 * Converts the given variability model into the target variability type.
+	 *
+	 * @param model     the variability model to convert.
+	 * @param modelName the name of the variability model.
+	 * @param strategy  the transformation strategy to apply.
+	 * @return the converted variability model.
+	 * @throws NotSupportedVariabilityTypeException if the given variability model
+	 *                                              can not be converted.
+	 */
+	T convert(S model, String modelName, STRATEGY strategy) throws NotSupportedVariabilityTypeException;
+
+	/**
+	 * Returns whether this converter can convert a stream of model events, see
+	 * {@link #convert(IModelEventHandler, String, STRATEGY)}. By default,
+	 * converters only convert materialized models.
+	 *
+	 * @return true if the converter supports streaming, false otherwise.
+	 */
+	default boolean supportsStreaming() {
+		return false;
+	}
+
+	/**
+	 * Creates a handler receiving the events of a model of the source type and
+	 * forwarding the events of the converted model to the given handler.
+	 *
+	 * @param target    the handler receiving the events of the converted model.
+	 * @param modelName the name of the variability model.
+	 * @param strategy  the transformation strategy to apply.
+	 * @return the handler receiving the events of the source model.
+	 * @throws NotSupportedVariabilityTypeException if the converter does not
+	 *                                              support streaming.
+	 */
+	default IModelEventHandler convert(final IModelEventHandler target, final String modelName,
+			final STRATEGY strategy) throws NotSupportedVariabilityTypeException {
+		throw new NotSupportedVariabilityTypeException("Converter does not support streaming");
+	}
+}
@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * The interface for consumers of a stream of feature model events.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.common;
+
+import at.jku.cps.travart.core.exception.NotSupportedVariabilityTypeException;
+import de.vill.model.Attribute;
+import de.vill.model.FeatureType;
+import de.vill.model.Group.GroupType;
+import de.vill.model.LanguageLevel;
+import de.vill.model.constraint.Constraint;
+
+/**
+ * A handler for the events of a streamed feature model, similar to a SAX
+ * content handler. Streaming allows to deserialize, transform and serialize a
+ * model without materializing the whole model in between.
+ * <p>
+ * </p>
+ * The events of a model arrive in the following order:
+ * <ol>
+ * <li>{@link #startModel(String, boolean)},</li>
+ * <li>{@link #languageLevel(LanguageLevel)} for each used language level; models
+ * without explicit language levels may also declare a level later, when it is
+ * first used,</li>
+ * <li>the feature tree in depth-first order, i.e., for each feature
+ * {@link #startFeature(String, FeatureType, String, String)}, its
+ * {@link #attribute(String, Attribute)} events, for each of its groups
+ * {@link #startGroup(GroupType, String, String)}, the child features and
+ * {@link #endGroup()}, and finally {@link #endFeature()},</li>
+ * <li>{@link #constraint(Constraint)} for each constraint of the model,
+ * and</li>
+ * <li>{@link #endModel()}.</li>
+ * </ol>
+ *
+ * @author Kevin Feichtinger
+ */
+public interface IModelEventHandler {
+
+	/**
+	 * Starts a new model.
+	 *
+	 * @param namespace              the namespace of the model, or {@code null}
+	 *                               if the model has no explicit namespace.
+	 * @param explicitLanguageLevels true if the used language levels are
+	 *                               explicitly included by the model.
+	 * @throws NotSupportedVariabilityTypeException if the model can not be
+	 *                                              handled.
+	 */
+	void startModel(String namespace, boolean explicitLanguageLevels) throws NotSupportedVariabilityTypeException;
+
+	/**
+	 * Declares a language level used by the model.
+	 *
+	 * @param level the used language level.
+	 * @throws NotSupportedVariabilityTypeException if the language level is not
+	 *                                              supported.
+	 */
+	void languageLevel(LanguageLevel level) throws NotSupportedVariabilityTypeException;
+
+	/**
+	 * Starts a feature. The first feature is the root feature, all further
+	 * features are children of the current group.
+	 *
+	 * @param name       the name of the feature.
+	 * @param type       the type of the feature, or {@code null} for a boolean
+	 *                   feature.
+	 * @param lowerBound the lower bound of the feature cardinality, or
+	 *                   {@code null}.
+	 * @param upperBound the upper bound of the feature cardinality, or
+	 *                   {@code null}.
+	 * @throws NotSupportedVariabilityTypeException if the feature can not be
+	 *                                              handled.
+	 */
+	void startFeature(String name, FeatureType type, String lowerBound, String upperBound)
+			throws NotSupportedVariabilityTypeException;
+
+	/**
+	 * Adds an attribute to the current feature.
+	 *
+	 * @param key       the key of the attribute.
+	 * @param attribute the attribute.
+	 * @throws NotSupportedVariabilityTypeException if the attribute can not be
+	 *                                              handled.
+	 */
+	void attribute(String key, Attribute<?> attribute) throws NotSupportedVariabilityTypeException;
+
+	/**
+	 * Starts a group of the current feature.
+	 *
+	 * @param type       the type of the group.
+	 * @param lowerBound the lower bound of a group cardinality, or {@code null}.
+	 * @param upperBound the upper bound of a group cardinality, or {@code null}.
+	 * @throws NotSupportedVariabilityTypeException if the group can not be
+	 *                                              handled.
+	 */
+	void startGroup(GroupType type, String lowerBound, String upperBound)
+			throws NotSupportedVariabilityTypeException;
+
+	/**
+	 * Ends the current group.
+	 *
+	 * @throws NotSupportedVariabilityTypeException if the model is inconsistent.
+	 */
+	void endGroup() throws NotSupportedVariabilityTypeException;
+
+	/**
+	 * Ends the current feature.
+	 *
+	 * @throws NotSupportedVariabilityTypeException if the model is inconsistent.
+	 */
+	void endFeature() throws NotSupportedVariabilityTypeException;
+
+	/**
+	 * Adds a cross-tree constraint to the model.
+	 *
+	 * @param constraint the constraint.
+	 * @throws NotSupportedVariabilityTypeException if the constraint can not be
+	 *                                              handled.
+	 */
+	void constraint(Constraint constraint) throws NotSupportedVariabilityTypeException;
+
+	/**
+	 * Ends the model.
+	 *
+	 * @throws NotSupportedVariabilityTypeException if the model is inconsistent.
+	 */
+	void endModel() throws NotSupportedVariabilityTypeException;
+}
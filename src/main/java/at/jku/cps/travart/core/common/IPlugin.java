@@ -17,6 +17,8 @@
  *******************************************************************************/
 package at.jku.cps.travart.core.common;
 
+import java.util.Collections;
+
 import org.pf4j.ExtensionPoint;
 
 /**
@@ -36,6 +38,19 @@ public interface IPlugin<T> extends ExtensionPoint, ILanguage<T> {
 	 */
 	IModelTransformer<T> getTransformer();
 
+	/**
+	 * Returns the direct converters this plugin provides in addition to its
+	 * transformer. Converters may skip the core model, e.g., to convert directly
+	 * into the notation of another plugin, and are considered when searching for
+	 * the cheapest transformation path. By default, a plugin provides no
+	 * converters.
+	 *
+	 * @return the direct converters of the plugin.
+	 */
+	default Iterable<IModelConverter<?, ?>> getConverters() {
+		return Collections.emptyList();
+	}
+
 	/**
 	 * Returns the version of the plugin.
 	 *
@@ -16,7 +16,13 @@
  *******************************************************************************/
 package at.jku.cps.travart.core.common;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
@@ -43,9 +49,13 @@ public interface ISerializer<T> {
 	 */
 	default void serializeToFile(T model, Path filePath) throws IOException, NotSupportedVariabilityTypeException {
         if (this.getFormat().isText()) {
-            Files.writeString(filePath, serialize(model));
+            try (Writer writer = Files.newBufferedWriter(filePath, StandardCharsets.UTF_8)) {
+                serialize(model, writer);
+            }
         } else {
-            throw new NotSupportedVariabilityTypeException("This serializer does not support text-based serialization.");
+            try (OutputStream stream = new BufferedOutputStream(Files.newOutputStream(filePath))) {
+                serialize(model, stream);
+            }
         }
     }
 
@@ -60,6 +70,54 @@ public interface ISerializer<T> {
      */
     String serialize(T model) throws NotSupportedVariabilityTypeException;
 
+	/**
+	 * Serializes the variability model of type <T> into the given writer. The
+	 * writer is flushed, but not closed. Only supported if this serializer's
+	 * format is text-based.
+	 * <p>
+	 * </p>
+	 * By default, the model is serialized with {@link #serialize(Object)} and
+	 * the result is written. Serializers able to render incrementally should
+	 * override this method.
+	 *
+	 * @param model  the model to serialize.
+	 * @param writer the writer to write the serialized model to.
+	 * @throws IOException                          if the writing operation throws
+	 *                                              any kind of error.
+	 * @throws NotSupportedVariabilityTypeException if the given variability model
+	 *                                              cannot be serialized.
+	 */
+	default void serialize(final T model, final Writer writer)
+			throws IOException, NotSupportedVariabilityTypeException {
+		if (!this.getFormat().isText()) {
+			throw new NotSupportedVariabilityTypeException("This serializer does not support text-based serialization.");
+		}
+		writer.write(serialize(model));
+		writer.flush();
+	}
+
+	/**
+	 * Serializes the variability model of type <T> UTF-8 encoded into the given
+	 * output stream. The stream is flushed, but not closed.
+	 * <p>
+	 * </p>
+	 * Serializers using a format which is not text-based override this method
+	 * to write it.
+	 *
+	 * @param model  the model to serialize.
+	 * @param stream the stream to write the serialized model to.
+	 * @throws IOException                          if the writing operation throws
+	 *                                              any kind of error.
+	 * @throws NotSupportedVariabilityTypeException if the given variability model
+	 *                                              cannot be serialized.
+	 */
+	default void serialize(final T model, final OutputStream stream)
+			throws IOException, NotSupportedVariabilityTypeException {
+		final Writer writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+		serialize(model, writer);
+		writer.flush();
+	}
+
 	/**
 	 * The format this serializer uses.
 	 *
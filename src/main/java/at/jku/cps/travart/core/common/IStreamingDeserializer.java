@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * The interface for deserializers emitting feature model events.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.common;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import at.jku.cps.travart.core.exception.NotSupportedVariabilityTypeException;
+
+/**
+ * An optional extension of the {@link IDeserializer}, which reads a model as a
+ * stream of events instead of a materialized model.
+ *
+ * @param <T> The type of model read by the deserializer.
+ * @author Kevin Feichtinger
+ */
+public interface IStreamingDeserializer<T> extends IDeserializer<T> {
+
+	/**
+	 * Reads the model at the given path and emits its events to the given
+	 * handler. If the model can not be streamed, the deserializer must throw the
+	 * exception before emitting any event, such that the caller can fall back to
+	 * {@link #deserializeFromFile(Path)}.
+	 *
+	 * @param filePath the path to read from.
+	 * @param handler  the handler receiving the events of the model.
+	 * @throws IOException                          if the reading operation throws
+	 *                                              any kind of error.
+	 * @throws NotSupportedVariabilityTypeException if the model can not be
+	 *                                              streamed.
+	 */
+	void streamFromFile(Path filePath, IModelEventHandler handler)
+			throws IOException, NotSupportedVariabilityTypeException;
+}
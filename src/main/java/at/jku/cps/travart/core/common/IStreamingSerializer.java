@@ -0,0 +1,38 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * The interface for serializers consuming feature model events.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.common;
+
+import java.io.Writer;
+
+/**
+ * An optional extension of the {@link ISerializer}, which writes a model from a
+ * stream of events instead of a materialized model.
+ *
+ * @param <T> The type of model written by the serializer.
+ * @author Kevin Feichtinger
+ */
+public interface IStreamingSerializer<T> extends ISerializer<T> {
+
+	/**
+	 * Creates a handler writing the received events to the given writer. Errors
+	 * of the writer are rethrown as {@link java.io.UncheckedIOException}. The
+	 * writer is flushed, but not closed, at the end of the model.
+	 *
+	 * @param writer the writer to write the model to.
+	 * @return a handler writing the model.
+	 */
+	IModelEventHandler createEventWriter(Writer writer);
+}
@@ -0,0 +1,59 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * The interface for transformers mapping feature model events on the fly.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.common;
+
+import at.jku.cps.travart.core.common.IModelTransformer.STRATEGY;
+import at.jku.cps.travart.core.exception.NotSupportedVariabilityTypeException;
+
+/**
+ * An optional extension of the {@link IModelTransformer}, which transforms a
+ * stream of model events instead of a materialized model. The transformer
+ * receives the events of its own notation and forwards the mapped events of the
+ * core model, or vice versa.
+ *
+ * @param <I> The type of the variability model.
+ * @author Kevin Feichtinger
+ */
+public interface IStreamingTransformer<I> extends IModelTransformer<I> {
+
+	/**
+	 * Creates a handler receiving the events of a model of this notation and
+	 * forwarding the events of the corresponding core model.
+	 *
+	 * @param coreHandler the handler receiving the events of the core model.
+	 * @param modelName   the name of the model.
+	 * @param level       the transformation strategy.
+	 * @return the handler receiving the events of this notation.
+	 * @throws NotSupportedVariabilityTypeException if the transformation can not
+	 *                                              be streamed.
+	 */
+	IModelEventHandler toCoreModel(IModelEventHandler coreHandler, String modelName, STRATEGY level)
+			throws NotSupportedVariabilityTypeException;
+
+	/**
+	 * Creates a handler receiving the events of a core model and forwarding the
+	 * events of the corresponding model of this notation.
+	 *
+	 * @param handler   the handler receiving the events of this notation.
+	 * @param modelName the name of the model.
+	 * @param level     the transformation strategy.
+	 * @return the handler receiving the events of the core model.
+	 * @throws NotSupportedVariabilityTypeException if the transformation can not
+	 *                                              be streamed.
+	 */
+	IModelEventHandler fromCoreModel(IModelEventHandler handler, String modelName, STRATEGY level)
+			throws NotSupportedVariabilityTypeException;
+}
@@ -0,0 +1,38 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * Exception thrown if a plugin violates the conformance or performance checks.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.exception;
+
+@SuppressWarnings("serial")
+public class ConformanceException extends Exception {
+
+	/**
+	 * Creates a new exception with the given message.
+	 *
+	 * @param message a string.
+	 */
+	public ConformanceException(final String message) {
+		super(message);
+	}
+
+	/**
+	 * Creates a new exception with the given sub exception.
+	 *
+	 * @param e an exception.
+	 */
+	public ConformanceException(final Exception e) {
+		super(e);
+	}
+}
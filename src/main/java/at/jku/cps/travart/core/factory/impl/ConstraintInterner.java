@@ -0,0 +1,268 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * A core model factory creating canonical constraint instances.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.factory.impl;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import at.jku.cps.travart.core.factory.ICoreModelFactory;
+import at.jku.cps.travart.core.helpers.ConstraintVisitor;
+import de.vill.model.Feature;
+import de.vill.model.FeatureModel;
+import de.vill.model.constraint.AndConstraint;
+import de.vill.model.constraint.Constraint;
+import de.vill.model.constraint.EquivalenceConstraint;
+import de.vill.model.constraint.ImplicationConstraint;
+import de.vill.model.constraint.LiteralConstraint;
+import de.vill.model.constraint.NotConstraint;
+import de.vill.model.constraint.OrConstraint;
+import de.vill.model.constraint.ParenthesisConstraint;
+
+/**
+ * A core model factory returning one canonical instance for all structurally
+ * equal constraints it creates, such that equal constraints can be compared by
+ * reference and collected in identity-based sets and maps. The canonical
+ * instances are looked up in a table keyed by the type, the literal and the
+ * canonical operands of a constraint with a precomputed hash, thus creating a
+ * constraint from canonical operands does not traverse them.
+ * <p>
+ * </p>
+ * Only the constraints created by the interner are canonical. Operands created
+ * elsewhere, e.g., the constraints of a model, are copied and left unchanged,
+ * thus the interner never shares the instances of a model. Expression
+ * constraints are not interned and used as they are.
+ * <p>
+ * </p>
+ * Canonical instances are shared by all constraints containing them and must
+ * not be changed. An interner keeps its instances until it is
+ * {@link #clear() cleared} and must only be used by one thread at a time,
+ * thus each task creates its own interner with
+ * {@link CoreModelFactory#interning()}.
+ *
+ * @author Kevin Feichtinger
+ */
+public final class ConstraintInterner implements ICoreModelFactory {
+
+	public static final String ID = "at.jku.cps.travart.core.factory.impl.ConstraintInterner";
+
+	private static final int LITERAL = 0;
+	private static final int NOT = 1;
+	private static final int AND = 2;
+	private static final int OR = 3;
+	private static final int IMPLICATION = 4;
+	private static final int EQUIVALENCE = 5;
+	private static final int PARENTHESIS = 6;
+
+	private final Map<Key, Constraint> table = new HashMap<>();
+	private final Set<Constraint> canonical = Collections.newSetFromMap(new IdentityHashMap<>());
+	private final ConstraintVisitor<Constraint> copying = new ConstraintVisitor<>() {
+		@Override
+		public Constraint visitLiteral(final LiteralConstraint constraint) {
+			return createLiteralConstraint(constraint.getLiteral());
+		}
+
+		@Override
+		public Constraint visitNot(final NotConstraint constraint) {
+			return createNotConstraint(constraint.getContent());
+		}
+
+		@Override
+		public Constraint visitAnd(final AndConstraint constraint) {
+			return createAndConstraint(constraint.getLeft(), constraint.getRight());
+		}
+
+		@Override
+		public Constraint visitOr(final OrConstraint constraint) {
+			return createOrConstraint(constraint.getLeft(), constraint.getRight());
+		}
+
+		@Override
+		public Constraint visitImplication(final ImplicationConstraint constraint) {
+			return createImplicationConstraint(constraint.getLeft(), constraint.getRight());
+		}
+
+		@Override
+		public Constraint visitEquivalence(final EquivalenceConstraint constraint) {
+			return createEquivalenceConstraint(constraint.getLeft(), constraint.getRight());
+		}
+
+		@Override
+		public Constraint visitParenthesis(final ParenthesisConstraint constraint) {
+			return createParenthesisConstraint(constraint.getContent());
+		}
+
+		@Override
+		public Constraint visitOther(final Constraint constraint) {
+			// expressions are not interned
+			return constraint;
+		}
+	};
+
+	ConstraintInterner() {
+	}
+
+	@Override
+	public String getId() {
+		return ID;
+	}
+
+	@Override
+	public FeatureModel create() {
+		return new FeatureModel();
+	}
+
+	@Override
+	public Feature createFeature(final String id) {
+		return new Feature(Objects.requireNonNull(id));
+	}
+
+	@Override
+	public ImplicationConstraint createImplicationConstraint(final Constraint left, final Constraint right) {
+		final Constraint l = operand(left);
+		final Constraint r = operand(right);
+		return (ImplicationConstraint) lookup(new Key(IMPLICATION, null, l, r),
+				() -> new ImplicationConstraint(l, r));
+	}
+
+	@Override
+	public EquivalenceConstraint createEquivalenceConstraint(final Constraint left, final Constraint right) {
+		final Constraint l = operand(left);
+		final Constraint r = operand(right);
+		return (EquivalenceConstraint) lookup(new Key(EQUIVALENCE, null, l, r),
+				() -> new EquivalenceConstraint(l, r));
+	}
+
+	@Override
+	public AndConstraint createAndConstraint(final Constraint left, final Constraint right) {
+		final Constraint l = operand(left);
+		final Constraint r = operand(right);
+		return (AndConstraint) lookup(new Key(AND, null, l, r), () -> new AndConstraint(l, r));
+	}
+
+	@Override
+	public OrConstraint createOrConstraint(final Constraint left, final Constraint right) {
+		final Constraint l = operand(left);
+		final Constraint r = operand(right);
+		return (OrConstraint) lookup(new Key(OR, null, l, r), () -> new OrConstraint(l, r));
+	}
+
+	@Override
+	public NotConstraint createNotConstraint(final Constraint constraint) {
+		final Constraint content = operand(constraint);
+		return (NotConstraint) lookup(new Key(NOT, null, content, null), () -> new NotConstraint(content));
+	}
+
+	@Override
+	public ParenthesisConstraint createParenthesisConstraint(final Constraint constraint) {
+		final Constraint content = operand(constraint);
+		return (ParenthesisConstraint) lookup(new Key(PARENTHESIS, null, content, null),
+				() -> new ParenthesisConstraint(content));
+	}
+
+	@Override
+	public LiteralConstraint createLiteralConstraint(final String id) {
+		return (LiteralConstraint) lookup(new Key(LITERAL, Objects.requireNonNull(id), null, null),
+				() -> new LiteralConstraint(id));
+	}
+
+	/**
+	 * Returns the number of canonical instances.
+	 *
+	 * @return the number of canonical instances.
+	 */
+	public int size() {
+		return table.size();
+	}
+
+	/**
+	 * Forgets all canonical instances. Constraints created afterwards are not
+	 * identical to the ones created before.
+	 */
+	public void clear() {
+		table.clear();
+		canonical.clear();
+	}
+
+	/**
+	 * Returns the given operand if it is canonical, otherwise the canonical
+	 * instance of an equal constraint, which is created from copies of the
+	 * operands. The given operand is never changed or made canonical.
+	 */
+	private Constraint operand(final Constraint constraint) {
+		Objects.requireNonNull(constraint);
+		if (canonical.contains(constraint)) {
+			return constraint;
+		}
+		return copying.visit(constraint);
+	}
+
+	private Constraint lookup(final Key key, final Supplier<Constraint> supplier) {
+		Constraint constraint = table.get(key);
+		if (constraint == null) {
+			constraint = supplier.get();
+			table.put(key, constraint);
+			canonical.add(constraint);
+		}
+		return constraint;
+	}
+
+	/**
+	 * The key of a canonical instance. The operands of a key are canonical, thus
+	 * they are compared by reference.
+	 */
+	private static final class Key {
+		private final int type;
+		private final String literal;
+		private final Constraint left;
+		private final Constraint right;
+		private final int hash;
+
+		private Key(final int type, final String literal, final Constraint left, final Constraint right) {
+			this.type = type;
+			this.literal = literal;
+			this.left = left;
+			this.right = right;
+			int h = type;
+			h = 31 * h + Objects.hashCode(literal);
+			h = 31 * h + System.identityHashCode(left);
+			h = 31 * h + System.identityHashCode(right);
+			hash = h;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			final Key other = (Key) obj;
+			return type == other.type && left == other.left && right == other.right
+					&& Objects.equals(literal, other.literal);
+		}
+	}
+}
@@ -46,6 +46,17 @@ public final class CoreModelFactory implements ICoreModelFactory {
 		return factory;
 	}
 
+	/**
+	 * Returns a new factory creating canonical instances of structurally equal
+	 * constraints, see {@link ConstraintInterner}. The factory returned by
+	 * {@link #getInstance()} does not intern its constraints, as it is shared.
+	 *
+	 * @return a new interning factory.
+	 */
+	public static ConstraintInterner interning() {
+		return new ConstraintInterner();
+	}
+
 	@Override
 	public String getId() {
 		return ID;
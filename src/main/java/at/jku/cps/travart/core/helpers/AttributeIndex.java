@@ -0,0 +1,368 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * Implements the columnar index of feature attributes.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.helpers;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.DoublePredicate;
+import java.util.function.Predicate;
+
+import de.vill.model.Attribute;
+import de.vill.model.Feature;
+
+/**
+ * The attributes of the features of a {@link CompactFeatureModel}, stored in
+ * one column per attribute key and indexed by the ids of the features. The
+ * type of a column is derived from the values of its key:
+ * <ul>
+ * <li>boolean values are stored in a bit set,</li>
+ * <li>numbers are stored in a double array,</li>
+ * <li>strings are dictionary encoded in an int array, and</li>
+ * <li>mixed and other values, e.g., nested attributes, are stored as
+ * objects.</li>
+ * </ul>
+ * The features having a value in a column are stored in a bit set, thus the
+ * selections of this index loop over primitive arrays and evaluate string
+ * predicates once per distinct string. Selections return bit sets of feature
+ * ids, which can be combined with the operations of {@link BitSet}.
+ *
+ * @author Kevin Feichtinger
+ */
+public final class AttributeIndex {
+	/**
+	 * The types of the columns.
+	 */
+	public enum ColumnType {
+		BOOLEAN, NUMBER, STRING, OBJECT
+	}
+
+	private final int size;
+	private final Map<String, Column> columns = new LinkedHashMap<>();
+
+	AttributeIndex(final List<Feature> features) {
+		size = features.size();
+		// derive the column types before filling the columns
+		final Map<String, ColumnType> types = new HashMap<>();
+		for (final Feature feature : features) {
+			for (final Map.Entry<String, ?> entry : feature.getAttributes().entrySet()) {
+				types.merge(entry.getKey(), typeOf(((Attribute<?>) entry.getValue()).getValue()),
+						(type, other) -> type == other ? type : ColumnType.OBJECT);
+			}
+		}
+		for (int id = 0; id < size; id++) {
+			for (final Map.Entry<String, ?> entry : features.get(id).getAttributes().entrySet()) {
+				final String key = entry.getKey();
+				columns.computeIfAbsent(key, k -> new Column(types.get(k), size)).set(id,
+						((Attribute<?>) entry.getValue()).getValue());
+			}
+		}
+	}
+
+	private static ColumnType typeOf(final Object value) {
+		if (value instanceof Boolean) {
+			return ColumnType.BOOLEAN;
+		}
+		if (value instanceof Number) {
+			return ColumnType.NUMBER;
+		}
+		if (value instanceof String) {
+			return ColumnType.STRING;
+		}
+		return ColumnType.OBJECT;
+	}
+
+	/**
+	 * Returns the number of features of the index.
+	 *
+	 * @return the number of features.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the keys of the attributes in the order of their first occurrence.
+	 *
+	 * @return the attribute keys.
+	 */
+	public Set<String> getKeys() {
+		return Collections.unmodifiableSet(columns.keySet());
+	}
+
+	/**
+	 * Returns the type of the column of the given key.
+	 *
+	 * @param key the attribute key.
+	 * @return the type of the column, or {@code null} if no feature has the
+	 *         attribute.
+	 */
+	public ColumnType getType(final String key) {
+		final Column column = columns.get(Objects.requireNonNull(key));
+		return column == null ? null : column.type;
+	}
+
+	/**
+	 * Checks whether the given feature has the attribute of the given key.
+	 *
+	 * @param key     the attribute key.
+	 * @param feature the id of the feature.
+	 * @return {@code true} if the feature has the attribute.
+	 */
+	public boolean contains(final String key, final int feature) {
+		final Column column = columns.get(Objects.requireNonNull(key));
+		return column != null && column.present.get(feature);
+	}
+
+	/**
+	 * Returns the value of the attribute of the given key of a feature, see
+	 * {@link TraVarTUtils#getAttributeValue(Feature, String)}. Numbers are
+	 * returned as doubles.
+	 *
+	 * @param key     the attribute key.
+	 * @param feature the id of the feature.
+	 * @return the value of the attribute, or {@code null} if the feature does not
+	 *         have the attribute.
+	 */
+	public Object getValue(final String key, final int feature) {
+		final Column column = columns.get(Objects.requireNonNull(key));
+		return column == null || !column.present.get(feature) ? null : column.get(feature);
+	}
+
+	/**
+	 * Checks whether the value of the attribute of the given key of a feature is
+	 * {@code true}, i.e., the value is rendered as "true" ignoring the case, as
+	 * checked by {@link TraVarTUtils#isAbstract(Feature)} for the abstract
+	 * attribute.
+	 *
+	 * @param key     the attribute key.
+	 * @param feature the id of the feature.
+	 * @return {@code true} if the attribute of the feature is {@code true}.
+	 */
+	public boolean isTrue(final String key, final int feature) {
+		final Column column = columns.get(Objects.requireNonNull(key));
+		return column != null && column.present.get(feature) && column.isTrue(feature);
+	}
+
+	/**
+	 * Returns the features having the attribute of the given key.
+	 *
+	 * @param key the attribute key.
+	 * @return the ids of the features with the attribute.
+	 */
+	public BitSet select(final String key) {
+		final Column column = columns.get(Objects.requireNonNull(key));
+		return column == null ? new BitSet() : (BitSet) column.present.clone();
+	}
+
+	/**
+	 * Returns the features whose attribute of the given key is {@code true},
+	 * see {@link #isTrue(String, int)}.
+	 *
+	 * @param key the attribute key.
+	 * @return the ids of the features with a true attribute.
+	 */
+	public BitSet selectTrue(final String key) {
+		final Column column = columns.get(Objects.requireNonNull(key));
+		if (column == null) {
+			return new BitSet();
+		}
+		if (column.type == ColumnType.BOOLEAN) {
+			return (BitSet) column.booleans.clone();
+		}
+		if (column.type == ColumnType.STRING) {
+			return selectStrings(key, Boolean::parseBoolean);
+		}
+		final BitSet selection = new BitSet(size);
+		for (int id = column.present.nextSetBit(0); id >= 0; id = column.present.nextSetBit(id + 1)) {
+			if (column.isTrue(id)) {
+				selection.set(id);
+			}
+		}
+		return selection;
+	}
+
+	/**
+	 * Returns the number of features whose attribute of the given key is
+	 * {@code true}, see {@link #isTrue(String, int)}.
+	 *
+	 * @param key the attribute key.
+	 * @return the number of features with a true attribute.
+	 */
+	public int countTrue(final String key) {
+		final Column column = columns.get(Objects.requireNonNull(key));
+		if (column != null && column.type == ColumnType.BOOLEAN) {
+			return column.booleans.cardinality();
+		}
+		return selectTrue(key).cardinality();
+	}
+
+	/**
+	 * Returns the features with a number attribute of the given key matching
+	 * the given predicate. Features with a value of another type are not
+	 * selected.
+	 *
+	 * @param key       the attribute key.
+	 * @param predicate the predicate of the numbers.
+	 * @return the ids of the matching features.
+	 */
+	public BitSet selectNumbers(final String key, final DoublePredicate predicate) {
+		Objects.requireNonNull(predicate);
+		final Column column = columns.get(Objects.requireNonNull(key));
+		final BitSet selection = new BitSet(size);
+		if (column == null || column.type != ColumnType.NUMBER) {
+			return selection;
+		}
+		final double[] numbers = column.numbers;
+		for (int id = column.present.nextSetBit(0); id >= 0; id = column.present.nextSetBit(id + 1)) {
+			if (predicate.test(numbers[id])) {
+				selection.set(id);
+			}
+		}
+		return selection;
+	}
+
+	/**
+	 * Returns the features with a string attribute of the given key matching the
+	 * given predicate. The predicate is evaluated once per distinct string.
+	 * Features with a value of another type are not selected.
+	 *
+	 * @param key       the attribute key.
+	 * @param predicate the predicate of the strings.
+	 * @return the ids of the matching features.
+	 */
+	public BitSet selectStrings(final String key, final Predicate<String> predicate) {
+		Objects.requireNonNull(predicate);
+		final Column column = columns.get(Objects.requireNonNull(key));
+		final BitSet selection = new BitSet(size);
+		if (column == null || column.type != ColumnType.STRING) {
+			return selection;
+		}
+		final BitSet matches = new BitSet(column.dictionary.size());
+		for (int code = 0; code < column.dictionary.size(); code++) {
+			matches.set(code, predicate.test(column.dictionary.get(code)));
+		}
+		final int[] codes = column.codes;
+		for (int id = column.present.nextSetBit(0); id >= 0; id = column.present.nextSetBit(id + 1)) {
+			if (matches.get(codes[id])) {
+				selection.set(id);
+			}
+		}
+		return selection;
+	}
+
+	/**
+	 * Returns the sum of the number attribute of the given key over all
+	 * features.
+	 *
+	 * @param key the attribute key.
+	 * @return the sum of the numbers, {@code 0} if the column does not hold
+	 *         numbers.
+	 */
+	public double sum(final String key) {
+		final Column column = columns.get(Objects.requireNonNull(key));
+		if (column == null || column.type != ColumnType.NUMBER) {
+			return 0;
+		}
+		// absent values are zero
+		double sum = 0;
+		for (final double number : column.numbers) {
+			sum += number;
+		}
+		return sum;
+	}
+
+	/**
+	 * A column of values of one attribute key. Only the arrays of the type of
+	 * the column are allocated.
+	 */
+	private static final class Column {
+		private final ColumnType type;
+		private final BitSet present;
+		private BitSet booleans;
+		private double[] numbers;
+		private int[] codes;
+		private List<String> dictionary;
+		private Map<String, Integer> dictionaryCodes;
+		private Object[] objects;
+
+		private Column(final ColumnType type, final int size) {
+			this.type = type;
+			present = new BitSet(size);
+			switch (type) {
+			case BOOLEAN:
+				booleans = new BitSet(size);
+				break;
+			case NUMBER:
+				numbers = new double[size];
+				break;
+			case STRING:
+				codes = new int[size];
+				dictionary = new ArrayList<>();
+				dictionaryCodes = new HashMap<>();
+				break;
+			default:
+				objects = new Object[size];
+				break;
+			}
+		}
+
+		private void set(final int id, final Object value) {
+			present.set(id);
+			switch (type) {
+			case BOOLEAN:
+				booleans.set(id, (Boolean) value);
+				break;
+			case NUMBER:
+				numbers[id] = ((Number) value).doubleValue();
+				break;
+			case STRING:
+				codes[id] = dictionaryCodes.computeIfAbsent((String) value, string -> {
+					dictionary.add(string);
+					return dictionary.size() - 1;
+				});
+				break;
+			default:
+				objects[id] = value;
+				break;
+			}
+		}
+
+		private Object get(final int id) {
+			switch (type) {
+			case BOOLEAN:
+				return booleans.get(id);
+			case NUMBER:
+				return numbers[id];
+			case STRING:
+				return dictionary.get(codes[id]);
+			default:
+				return objects[id];
+			}
+		}
+
+		private boolean isTrue(final int id) {
+			final Object value = get(id);
+			return value != null && Boolean.parseBoolean(value.toString());
+		}
+	}
+}
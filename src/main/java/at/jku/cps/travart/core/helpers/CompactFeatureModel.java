@@ -0,0 +1,542 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * Implements a compact, int-indexed view of a feature model.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.helpers;
+
+import static at.jku.cps.travart.core.transformation.DefaultModelTransformationProperties.ABSTRACT_ATTRIBUTE;
+import static at.jku.cps.travart.core.transformation.DefaultModelTransformationProperties.HIDDEN_ATTRIBUTE;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import de.vill.model.Feature;
+import de.vill.model.FeatureModel;
+import de.vill.model.Group;
+import de.vill.model.Group.GroupType;
+import de.vill.model.constraint.AndConstraint;
+import de.vill.model.constraint.Constraint;
+import de.vill.model.constraint.EquivalenceConstraint;
+import de.vill.model.constraint.ImplicationConstraint;
+import de.vill.model.constraint.LiteralConstraint;
+import de.vill.model.constraint.NotConstraint;
+import de.vill.model.constraint.OrConstraint;
+import de.vill.model.constraint.ParenthesisConstraint;
+
+/**
+ * A read-only view of a feature model for analyses, storing the feature tree
+ * and the constraints in primitive arrays. The features are numbered densely
+ * in breadth-first order, the root having id 0, thus the children of a group
+ * have consecutive ids. The view stores
+ * <ul>
+ * <li>the parent and the parent group of each feature in int arrays,</li>
+ * <li>the groups of each feature and the children of each group as ranges,
+ * and the types of the groups in a byte array,</li>
+ * <li>the attributes of the features in columns, see {@link AttributeIndex},
+ * and</li>
+ * <li>the constraints of the model as postfix token streams in an int array,
+ * where non-negative tokens are feature ids and negative tokens are
+ * operators.</li>
+ * </ul>
+ * The view is a snapshot, it does not reflect later changes of the model.
+ *
+ * @author Kevin Feichtinger
+ */
+public final class CompactFeatureModel {
+	/**
+	 * The token of a negation.
+	 */
+	public static final int NOT = -1;
+
+	/**
+	 * The token of a conjunction.
+	 */
+	public static final int AND = -2;
+
+	/**
+	 * The token of a disjunction.
+	 */
+	public static final int OR = -3;
+
+	/**
+	 * The token of an implication.
+	 */
+	public static final int IMPLICATION = -4;
+
+	/**
+	 * The token of an equivalence.
+	 */
+	public static final int EQUIVALENCE = -5;
+
+	/**
+	 * The token of a constraint part without propositional representation,
+	 * e.g., an equation or a literal not referring to a feature of the model.
+	 */
+	public static final int OPAQUE = -6;
+
+	private static final GroupType[] GROUP_TYPES = GroupType.values();
+
+	private final String[] names;
+	private final Map<String, Integer> ids;
+	private final int[] parents;
+	private final int[] parentGroups;
+	private final int[] firstGroups;
+	private final byte[] groupTypes;
+	private final int[] firstChildren;
+	private final AttributeIndex attributes;
+	private final int[] firstTokens;
+	private final int[] tokens;
+
+	private CompactFeatureModel(final FeatureModel fm) {
+		// number the features breadth-first
+		final List<Feature> features = new ArrayList<>();
+		int groupCount = 0;
+		if (fm.getRootFeature() != null) {
+			features.add(fm.getRootFeature());
+		}
+		for (int i = 0; i < features.size(); i++) {
+			for (final Group group : features.get(i).getChildren()) {
+				groupCount++;
+				features.addAll(group.getFeatures());
+			}
+		}
+
+		final int size = features.size();
+		names = new String[size];
+		ids = new HashMap<>(size * 2);
+		parents = new int[size];
+		parentGroups = new int[size];
+		firstGroups = new int[size + 1];
+		groupTypes = new byte[groupCount];
+		firstChildren = new int[groupCount + 1];
+		final Map<Feature, Integer> identities = new IdentityHashMap<>(size);
+		if (size > 0) {
+			parents[0] = -1;
+			parentGroups[0] = -1;
+		}
+		int group = 0;
+		int child = 1;
+		for (int id = 0; id < size; id++) {
+			final Feature feature = features.get(id);
+			names[id] = feature.getFeatureName();
+			identities.put(feature, id);
+			firstGroups[id] = group;
+			for (final Group featureGroup : feature.getChildren()) {
+				groupTypes[group] = (byte) featureGroup.GROUPTYPE.ordinal();
+				firstChildren[group] = child;
+				for (int i = 0; i < featureGroup.getFeatures().size(); i++) {
+					parents[child] = id;
+					parentGroups[child] = group;
+					child++;
+				}
+				group++;
+			}
+		}
+		firstGroups[size] = group;
+		attributes = new AttributeIndex(features);
+		firstChildren[groupCount] = child;
+		for (final Map.Entry<String, Feature> entry : fm.getFeatureMap().entrySet()) {
+			final Integer id = identities.get(entry.getValue());
+			if (id != null) {
+				ids.put(entry.getKey(), id);
+			}
+		}
+		for (int id = 0; id < size; id++) {
+			ids.putIfAbsent(names[id], id);
+		}
+
+		final List<Constraint> constraints = fm.getConstraints();
+		firstTokens = new int[constraints.size() + 1];
+		final TokenWriter writer = new TokenWriter(identities, ids);
+		for (int i = 0; i < constraints.size(); i++) {
+			firstTokens[i] = writer.size;
+			writer.visit(constraints.get(i));
+		}
+		firstTokens[constraints.size()] = writer.size;
+		tokens = Arrays.copyOf(writer.tokens, writer.size);
+	}
+
+	/**
+	 * Creates the compact view of the given model.
+	 *
+	 * @param fm the model.
+	 * @return the compact view of the model.
+	 */
+	public static CompactFeatureModel of(final FeatureModel fm) {
+		return new CompactFeatureModel(Objects.requireNonNull(fm));
+	}
+
+	/**
+	 * Returns the number of features in the feature tree.
+	 *
+	 * @return the number of features.
+	 */
+	public int size() {
+		return names.length;
+	}
+
+	/**
+	 * Returns the name of the given feature.
+	 *
+	 * @param feature the id of the feature.
+	 * @return the name of the feature.
+	 */
+	public String getName(final int feature) {
+		return names[feature];
+	}
+
+	/**
+	 * Returns the id of the feature with the given name, as given in the feature
+	 * map of the model.
+	 *
+	 * @param name the name of the feature.
+	 * @return the id of the feature, or {@code -1} if the model does not contain
+	 *         the feature.
+	 */
+	public int getId(final String name) {
+		final Integer id = ids.get(name);
+		return id == null ? -1 : id;
+	}
+
+	/**
+	 * Returns the parent of the given feature.
+	 *
+	 * @param feature the id of the feature.
+	 * @return the id of the parent, or {@code -1} for the root feature.
+	 */
+	public int getParent(final int feature) {
+		return parents[feature];
+	}
+
+	/**
+	 * Returns the group the given feature is a child of.
+	 *
+	 * @param feature the id of the feature.
+	 * @return the id of the group, or {@code -1} for the root feature.
+	 */
+	public int getParentGroup(final int feature) {
+		return parentGroups[feature];
+	}
+
+	/**
+	 * Returns the number of groups in the feature tree.
+	 *
+	 * @return the number of groups.
+	 */
+	public int getGroupCount() {
+		return groupTypes.length;
+	}
+
+	/**
+	 * Returns the first group of the given feature. The groups of a feature are
+	 * numbered consecutively up to {@link #getGroupsEnd(int)}, exclusive.
+	 *
+	 * @param feature the id of the feature.
+	 * @return the id of the first group of the feature.
+	 */
+	public int getGroupsStart(final int feature) {
+		return firstGroups[feature];
+	}
+
+	/**
+	 * Returns the end of the groups of the given feature, see
+	 * {@link #getGroupsStart(int)}.
+	 *
+	 * @param feature the id of the feature.
+	 * @return the id after the last group of the feature.
+	 */
+	public int getGroupsEnd(final int feature) {
+		return firstGroups[feature + 1];
+	}
+
+	/**
+	 * Returns the type of the given group.
+	 *
+	 * @param group the id of the group.
+	 * @return the type of the group.
+	 */
+	public GroupType getGroupType(final int group) {
+		return GROUP_TYPES[groupTypes[group]];
+	}
+
+	/**
+	 * Returns the first child of the given group. The children of a group are
+	 * numbered consecutively up to {@link #getChildrenEnd(int)}, exclusive.
+	 *
+	 * @param group the id of the group.
+	 * @return the id of the first child of the group.
+	 */
+	public int getChildrenStart(final int group) {
+		return firstChildren[group];
+	}
+
+	/**
+	 * Returns the end of the children of the given group, see
+	 * {@link #getChildrenStart(int)}.
+	 *
+	 * @param group the id of the group.
+	 * @return the id after the last child of the group.
+	 */
+	public int getChildrenEnd(final int group) {
+		return firstChildren[group + 1];
+	}
+
+	/**
+	 * Checks whether the given feature has child features.
+	 *
+	 * @param feature the id of the feature.
+	 * @return {@code true} if the feature has children.
+	 */
+	public boolean hasChildren(final int feature) {
+		for (int group = getGroupsStart(feature); group < getGroupsEnd(feature); group++) {
+			if (getChildrenStart(group) < getChildrenEnd(group)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Checks whether the given feature is abstract, see
+	 * {@link TraVarTUtils#isAbstract(Feature)}.
+	 *
+	 * @param feature the id of the feature.
+	 * @return {@code true} if the feature is abstract.
+	 */
+	public boolean isAbstract(final int feature) {
+		return attributes.isTrue(ABSTRACT_ATTRIBUTE, feature);
+	}
+
+	/**
+	 * Checks whether the given feature is hidden, see
+	 * {@link TraVarTUtils#isHidden(Feature)}.
+	 *
+	 * @param feature the id of the feature.
+	 * @return {@code true} if the feature is hidden.
+	 */
+	public boolean isHidden(final int feature) {
+		return attributes.isTrue(HIDDEN_ATTRIBUTE, feature);
+	}
+
+	/**
+	 * Returns the attributes of the features.
+	 *
+	 * @return the attribute index of the view.
+	 */
+	public AttributeIndex getAttributes() {
+		return attributes;
+	}
+
+	/**
+	 * Checks whether the given feature is the root or in a mandatory group, see
+	 * {@link TraVarTUtils#isMandatory(Feature)}.
+	 *
+	 * @param feature the id of the feature.
+	 * @return {@code true} if the feature is mandatory.
+	 */
+	public boolean isMandatory(final int feature) {
+		return parentGroups[feature] < 0 || getGroupType(parentGroups[feature]) == GroupType.MANDATORY;
+	}
+
+	/**
+	 * Returns the number of abstract features.
+	 *
+	 * @return the number of abstract features.
+	 */
+	public int countAbstractFeatures() {
+		return attributes.countTrue(ABSTRACT_ATTRIBUTE);
+	}
+
+	/**
+	 * Returns the number of hidden features.
+	 *
+	 * @return the number of hidden features.
+	 */
+	public int countHiddenFeatures() {
+		return attributes.countTrue(HIDDEN_ATTRIBUTE);
+	}
+
+	/**
+	 * Returns the number of features which are children of a group of the given
+	 * type.
+	 *
+	 * @param groupType the type of the groups.
+	 * @return the number of features in groups of the type.
+	 */
+	public int countFeaturesInGroups(final GroupType groupType) {
+		int count = 0;
+		for (int group = 0; group < groupTypes.length; group++) {
+			if (groupTypes[group] == groupType.ordinal()) {
+				count += firstChildren[group + 1] - firstChildren[group];
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the number of groups of the given type.
+	 *
+	 * @param groupType the type of the groups.
+	 * @return the number of groups of the type.
+	 */
+	public int countGroups(final GroupType groupType) {
+		int count = 0;
+		for (final byte type : groupTypes) {
+			if (type == groupType.ordinal()) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the height of the feature tree, i.e., the number of edges of the
+	 * longest path from the root to a leaf.
+	 *
+	 * @return the height of the tree, {@code 0} for an empty tree.
+	 */
+	public int getHeight() {
+		final int[] depths = new int[names.length];
+		int height = 0;
+		// parents have lower ids than their children
+		for (int feature = 1; feature < depths.length; feature++) {
+			depths[feature] = depths[parents[feature]] + 1;
+			height = Math.max(height, depths[feature]);
+		}
+		return height;
+	}
+
+	/**
+	 * Returns the number of constraints, i.e., all constraints of the model and
+	 * its imported models.
+	 *
+	 * @return the number of constraints.
+	 */
+	public int getConstraintCount() {
+		return firstTokens.length - 1;
+	}
+
+	/**
+	 * Returns the position of the first token of the given constraint. The tokens
+	 * of a constraint are stored in postfix order up to
+	 * {@link #getTokensEnd(int)}, exclusive.
+	 *
+	 * @param constraint the index of the constraint.
+	 * @return the position of the first token.
+	 */
+	public int getTokensStart(final int constraint) {
+		return firstTokens[constraint];
+	}
+
+	/**
+	 * Returns the end of the tokens of the given constraint, see
+	 * {@link #getTokensStart(int)}.
+	 *
+	 * @param constraint the index of the constraint.
+	 * @return the position after the last token.
+	 */
+	public int getTokensEnd(final int constraint) {
+		return firstTokens[constraint + 1];
+	}
+
+	/**
+	 * Returns the token at the given position. Non-negative tokens are feature
+	 * ids, negative ones are operators, e.g., {@link #AND}.
+	 *
+	 * @param position the position of the token.
+	 * @return the token.
+	 */
+	public int getToken(final int position) {
+		return tokens[position];
+	}
+
+	/**
+	 * Writes constraints as postfix token streams. Parentheses are dropped, as
+	 * the postfix order keeps the structure.
+	 */
+	private static final class TokenWriter implements ConstraintVisitor<Void> {
+		private final Map<Feature, Integer> identities;
+		private final Map<String, Integer> ids;
+		private int[] tokens = new int[64];
+		private int size;
+
+		private TokenWriter(final Map<Feature, Integer> identities, final Map<String, Integer> ids) {
+			this.identities = identities;
+			this.ids = ids;
+		}
+
+		@Override
+		public Void visitLiteral(final LiteralConstraint constraint) {
+			// literals of models not linked to their features are resolved by name
+			final Integer id = constraint.getFeature() == null ? ids.get(constraint.getLiteral())
+					: identities.get(constraint.getFeature());
+			return write(id == null ? OPAQUE : id);
+		}
+
+		@Override
+		public Void visitNot(final NotConstraint constraint) {
+			visit(constraint.getContent());
+			return write(NOT);
+		}
+
+		@Override
+		public Void visitParenthesis(final ParenthesisConstraint constraint) {
+			return visit(constraint.getContent());
+		}
+
+		@Override
+		public Void visitAnd(final AndConstraint constraint) {
+			return binary(constraint.getLeft(), constraint.getRight(), AND);
+		}
+
+		@Override
+		public Void visitOr(final OrConstraint constraint) {
+			return binary(constraint.getLeft(), constraint.getRight(), OR);
+		}
+
+		@Override
+		public Void visitImplication(final ImplicationConstraint constraint) {
+			return binary(constraint.getLeft(), constraint.getRight(), IMPLICATION);
+		}
+
+		@Override
+		public Void visitEquivalence(final EquivalenceConstraint constraint) {
+			return binary(constraint.getLeft(), constraint.getRight(), EQUIVALENCE);
+		}
+
+		@Override
+		public Void visitOther(final Constraint constraint) {
+			return write(OPAQUE);
+		}
+
+		private Void binary(final Constraint left, final Constraint right, final int operator) {
+			visit(left);
+			visit(right);
+			return write(operator);
+		}
+
+		private Void write(final int token) {
+			if (size == tokens.length) {
+				tokens = Arrays.copyOf(tokens, size * 2);
+			}
+			tokens[size++] = token;
+			return null;
+		}
+	}
+}
@@ -0,0 +1,182 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * Implements the memoized logical analysis of constraints.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.helpers;
+
+import org.logicng.formulas.FType;
+import org.logicng.formulas.Formula;
+import org.logicng.formulas.FormulaFactory;
+import org.logicng.formulas.Literal;
+import org.logicng.formulas.Or;
+
+import de.vill.model.constraint.Constraint;
+
+/**
+ * The logical analysis of a constraint, i.e., its LogicNG formula, the CNF of
+ * the formula, the number of positive and negative literals and the
+ * classification of the constraint. The analysis of a constraint is computed
+ * once per {@link FormulaContext} and kept as long as the constraint is
+ * reachable and the context is open, see {@link #of(Constraint)}, such that
+ * the predicates of {@link TraVarTUtils} do not rebuild the formula of the
+ * same constraint.
+ * <p>
+ * </p>
+ * Analyses are attached to constraint instances, not to structurally equal
+ * constraints. A constraint changed after its analysis must be passed to
+ * {@link #invalidate(Constraint)}.
+ *
+ * @author Kevin Feichtinger
+ */
+public final class ConstraintAnalysis {
+	private final Formula formula;
+	private final Formula cnf;
+	private final long positiveLiterals;
+	private final long negativeLiterals;
+	private final long positiveCnfLiterals;
+	private final long negativeCnfLiterals;
+	private final boolean complex;
+
+	ConstraintAnalysis(final Constraint constraint, final FormulaFactory factory) {
+		formula = TraVarTUtils.buildFormulaFromConstraint(constraint, factory);
+		cnf = formula.cnf();
+		positiveLiterals = countLiterals(formula, true);
+		negativeLiterals = countLiterals(formula, false);
+		positiveCnfLiterals = countLiterals(cnf, true);
+		negativeCnfLiterals = countLiterals(cnf, false);
+		complex = formula.stream().anyMatch(subformula -> !subformula.isAtomicFormula());
+	}
+
+	/**
+	 * Returns the analysis of the given constraint in the current context of the
+	 * calling thread, see {@link FormulaContext#analyze(Constraint)}.
+	 *
+	 * @param constraint the constraint to analyze.
+	 * @return the analysis of the constraint.
+	 */
+	public static ConstraintAnalysis of(final Constraint constraint) {
+		return FormulaContext.current().analyze(constraint);
+	}
+
+	/**
+	 * Discards the analysis of the given constraint in the current context of
+	 * the calling thread, such that it is computed again on the next call of
+	 * {@link #of(Constraint)}.
+	 *
+	 * @param constraint the changed constraint.
+	 */
+	public static void invalidate(final Constraint constraint) {
+		FormulaContext.current().invalidate(constraint);
+	}
+
+	private static long countLiterals(final Formula formula, final boolean phase) {
+		long count = 0;
+		for (final Literal literal : formula.literals()) {
+			if (literal.phase() == phase) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the formula of the constraint, see
+	 * {@link TraVarTUtils#buildFormulaFromConstraint(Constraint, FormulaFactory)}.
+	 *
+	 * @return the formula of the constraint.
+	 */
+	public Formula getFormula() {
+		return formula;
+	}
+
+	/**
+	 * Returns the conjunctive normal form of the formula of the constraint.
+	 *
+	 * @return the CNF of the constraint.
+	 */
+	public Formula getCnf() {
+		return cnf;
+	}
+
+	/**
+	 * Returns the number of distinct positive literals in the formula.
+	 *
+	 * @return the number of positive literals.
+	 */
+	public long getPositiveLiterals() {
+		return positiveLiterals;
+	}
+
+	/**
+	 * Returns the number of distinct negative literals in the formula.
+	 *
+	 * @return the number of negative literals.
+	 */
+	public long getNegativeLiterals() {
+		return negativeLiterals;
+	}
+
+	/**
+	 * Returns whether the constraint is complex, i.e., its formula has a
+	 * non-atomic operand.
+	 *
+	 * @return {@code true} if the constraint is complex.
+	 */
+	public boolean isComplex() {
+		return complex;
+	}
+
+	/**
+	 * Returns whether the constraint is a requires constraint, i.e., its CNF is
+	 * a single clause with exactly one negative and at least one positive
+	 * literal.
+	 *
+	 * @return {@code true} if the constraint is a requires constraint.
+	 */
+	public boolean isRequires() {
+		return cnf instanceof Or && negativeCnfLiterals == 1 && positiveCnfLiterals > 0;
+	}
+
+	/**
+	 * Returns whether the constraint is a requires-for-all constraint, i.e., its
+	 * CNF is a single clause with exactly one positive and more than one
+	 * negative literal.
+	 *
+	 * @return {@code true} if the constraint is a requires-for-all constraint.
+	 */
+	public boolean isRequiredForAll() {
+		return cnf instanceof Or && positiveCnfLiterals == 1 && negativeCnfLiterals > 1;
+	}
+
+	/**
+	 * Returns whether the constraint is an excludes constraint, i.e., its CNF is
+	 * a single clause of negative literals only.
+	 *
+	 * @return {@code true} if the constraint is an excludes constraint.
+	 */
+	public boolean isExcludes() {
+		return cnf.type() == FType.OR && positiveCnfLiterals == 0 && negativeCnfLiterals > 0;
+	}
+
+	/**
+	 * Returns whether the formula of the constraint is a clause with exactly one
+	 * negative and one positive literal.
+	 *
+	 * @return {@code true} if the constraint requires a single feature for a
+	 *         single other feature.
+	 */
+	public boolean isSingleFeatureRequires() {
+		return formula instanceof Or && negativeLiterals == 1 && positiveLiterals == 1;
+	}
+}
@@ -0,0 +1,342 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * Implements the index of the own constraints of a feature model.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.helpers;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import de.vill.model.FeatureModel;
+import de.vill.model.constraint.AndConstraint;
+import de.vill.model.constraint.Constraint;
+import de.vill.model.constraint.EquivalenceConstraint;
+import de.vill.model.constraint.ImplicationConstraint;
+import de.vill.model.constraint.LiteralConstraint;
+import de.vill.model.constraint.NotConstraint;
+import de.vill.model.constraint.OrConstraint;
+import de.vill.model.constraint.ParenthesisConstraint;
+
+/**
+ * An index of the own constraints of a feature model, mapping the names of
+ * features to the constraints referencing them, the keys of constraints to
+ * the constraints and the constraints to the names of the features they
+ * reference. The key of a constraint represents its structure, see
+ * {@link #key(Constraint)}.
+ * <p>
+ * </p>
+ * The index of a feature model is created by {@link #of(FeatureModel)} and
+ * kept until it is discarded with {@link #invalidate(FeatureModel)}. While it
+ * is kept, the helpers of {@link TraVarTUtils} adding and removing own
+ * constraints keep the index up to date and use it to look up constraints.
+ * Changes of the own constraints made directly are only detected if they
+ * change the number of constraints, thus an index must only be kept while its
+ * creator controls all changes of the feature model, e.g., during an
+ * optimization, and must be discarded afterwards:
+ *
+ * <pre>
+ * ConstraintIndex.of(fm);
+ * try {
+ * 	// change the own constraints with the helpers of TraVarTUtils
+ * } finally {
+ * 	ConstraintIndex.invalidate(fm);
+ * }
+ * </pre>
+ *
+ * @author Kevin Feichtinger
+ */
+public final class ConstraintIndex {
+	private static final WeakIdentityMap<FeatureModel, ConstraintIndex> INDICES = new WeakIdentityMap<>();
+
+	private final Map<String, Set<Constraint>> byFeature = new HashMap<>();
+	private final Map<String, List<Constraint>> byKey = new HashMap<>();
+	private final Map<Constraint, Set<String>> features = new IdentityHashMap<>();
+	private int size;
+
+	private ConstraintIndex(final FeatureModel fm) {
+		for (final Constraint constraint : fm.getOwnConstraints()) {
+			add(constraint);
+		}
+	}
+
+	/**
+	 * Returns the index of the given feature model, creating it on the first
+	 * call for the feature model. An index whose number of constraints differs
+	 * from the number of own constraints of the feature model is created again.
+	 *
+	 * @param fm the feature model to index.
+	 * @return the index of the feature model.
+	 */
+	public static ConstraintIndex of(final FeatureModel fm) {
+		Objects.requireNonNull(fm);
+		final ConstraintIndex index = INDICES.computeIfAbsent(fm, ConstraintIndex::new);
+		if (index.size == fm.getOwnConstraints().size()) {
+			return index;
+		}
+		INDICES.remove(fm);
+		return INDICES.computeIfAbsent(fm, ConstraintIndex::new);
+	}
+
+	/**
+	 * Discards the index of the given feature model, such that it is created
+	 * again on the next call of {@link #of(FeatureModel)}.
+	 *
+	 * @param fm the changed feature model.
+	 */
+	public static void invalidate(final FeatureModel fm) {
+		INDICES.remove(Objects.requireNonNull(fm));
+	}
+
+	/**
+	 * Returns the index of the given feature model if it is created and still in
+	 * sync with the own constraints of the feature model, otherwise
+	 * {@code null}.
+	 */
+	static ConstraintIndex find(final FeatureModel fm) {
+		final ConstraintIndex index = INDICES.get(fm);
+		return index != null && index.size == fm.getOwnConstraints().size() ? index : null;
+	}
+
+	/**
+	 * Returns the key of the given constraint, i.e., its structure in prefix
+	 * notation with the names of the literals. Unlike the UVL representation of
+	 * a constraint, the key does not depend on whether the literals are bound to
+	 * features, thus structurally equal constraints have equal keys.
+	 *
+	 * @param constraint the constraint.
+	 * @return the key of the constraint.
+	 */
+	public static String key(final Constraint constraint) {
+		final KeyWriter writer = new KeyWriter();
+		writer.visit(Objects.requireNonNull(constraint));
+		return writer.key.toString();
+	}
+
+	/**
+	 * Adds the given constraint, which was appended to the own constraints of
+	 * the feature model.
+	 *
+	 * @param constraint the added constraint.
+	 */
+	void add(final Constraint constraint) {
+		final Set<String> names = referencedFeatures(constraint);
+		features.put(constraint, names);
+		for (final String name : names) {
+			byFeature.computeIfAbsent(name, n -> Collections.newSetFromMap(new IdentityHashMap<>()))
+					.add(constraint);
+		}
+		byKey.computeIfAbsent(key(constraint), k -> new ArrayList<>(1)).add(constraint);
+		size++;
+	}
+
+	/**
+	 * Removes the given constraint instance, which was removed from the own
+	 * constraints of the feature model.
+	 *
+	 * @param constraint the removed constraint.
+	 */
+	void remove(final Constraint constraint) {
+		final String key = key(constraint);
+		final List<Constraint> constraints = byKey.get(key);
+		if (constraints == null || indexOf(constraints, constraint) < 0) {
+			return;
+		}
+		constraints.remove(indexOf(constraints, constraint));
+		if (constraints.isEmpty()) {
+			byKey.remove(key);
+		}
+		size--;
+		if (indexOf(constraints, constraint) >= 0) {
+			// the instance is contained more than once
+			return;
+		}
+		for (final String name : features.remove(constraint)) {
+			final Set<Constraint> referencing = byFeature.get(name);
+			referencing.remove(constraint);
+			if (referencing.isEmpty()) {
+				byFeature.remove(name);
+			}
+		}
+	}
+
+	private static int indexOf(final List<Constraint> constraints, final Constraint constraint) {
+		for (int i = 0; i < constraints.size(); i++) {
+			if (constraints.get(i) == constraint) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static Set<String> referencedFeatures(final Constraint constraint) {
+		final Set<String> names = new LinkedHashSet<>();
+		final Deque<Constraint> stack = new ArrayDeque<>();
+		stack.push(constraint);
+		while (!stack.isEmpty()) {
+			final Constraint current = stack.pop();
+			if (current instanceof LiteralConstraint) {
+				names.add(((LiteralConstraint) current).getLiteral());
+			} else {
+				current.getConstraintSubParts().forEach(stack::push);
+			}
+		}
+		return names;
+	}
+
+	/**
+	 * Returns the number of indexed constraints.
+	 *
+	 * @return the number of constraints.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the constraints referencing the feature of the given name.
+	 *
+	 * @param featureName the name of the feature.
+	 * @return the constraints referencing the feature.
+	 */
+	public Set<Constraint> getConstraints(final String featureName) {
+		final Set<Constraint> constraints = byFeature.get(Objects.requireNonNull(featureName));
+		return constraints == null ? Collections.emptySet() : Collections.unmodifiableSet(constraints);
+	}
+
+	/**
+	 * Returns the constraints of the given key in the order of the own
+	 * constraints of the feature model.
+	 *
+	 * @param key the key of the constraints, see {@link #key(Constraint)}.
+	 * @return the constraints with the key.
+	 */
+	public List<Constraint> getConstraintsByKey(final String key) {
+		final List<Constraint> constraints = byKey.get(Objects.requireNonNull(key));
+		return constraints == null ? Collections.emptyList() : Collections.unmodifiableList(constraints);
+	}
+
+	/**
+	 * Returns the first constraint with the same key as the given constraint, or
+	 * {@code null} if the index does not contain such a constraint.
+	 *
+	 * @param constraint the constraint to look up.
+	 * @return the first indexed constraint with the key of the constraint.
+	 */
+	public Constraint find(final Constraint constraint) {
+		final List<Constraint> constraints = byKey.get(key(constraint));
+		return constraints == null ? null : constraints.get(0);
+	}
+
+	/**
+	 * Returns the first constraint equal to the given constraint, or
+	 * {@code null} if the index does not contain an equal constraint.
+	 *
+	 * @param constraint the constraint to look up.
+	 * @return the first indexed constraint equal to the constraint.
+	 */
+	Constraint findEqual(final Constraint constraint) {
+		final List<Constraint> constraints = byKey.get(key(constraint));
+		if (constraints != null) {
+			for (final Constraint candidate : constraints) {
+				if (candidate.equals(constraint)) {
+					return candidate;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the names of the features referenced by the given constraint.
+	 *
+	 * @param constraint the indexed constraint.
+	 * @return the names of the referenced features, or an empty set if the
+	 *         constraint is not indexed.
+	 */
+	public Set<String> getFeatures(final Constraint constraint) {
+		final Set<String> names = features.get(Objects.requireNonNull(constraint));
+		return names == null ? Collections.emptySet() : Collections.unmodifiableSet(names);
+	}
+
+	/**
+	 * Writes the key of a constraint, prefixing the names of the literals by
+	 * their length such that names containing operators do not collide.
+	 */
+	private static final class KeyWriter implements ConstraintVisitor<Void> {
+		private final StringBuilder key = new StringBuilder();
+
+		@Override
+		public Void visitLiteral(final LiteralConstraint constraint) {
+			final String literal = constraint.getLiteral();
+			key.append(literal.length()).append(':').append(literal);
+			return null;
+		}
+
+		@Override
+		public Void visitNot(final NotConstraint constraint) {
+			key.append('!');
+			return visit(constraint.getContent());
+		}
+
+		@Override
+		public Void visitAnd(final AndConstraint constraint) {
+			return writeBinary("&", constraint.getLeft(), constraint.getRight());
+		}
+
+		@Override
+		public Void visitOr(final OrConstraint constraint) {
+			return writeBinary("|", constraint.getLeft(), constraint.getRight());
+		}
+
+		@Override
+		public Void visitImplication(final ImplicationConstraint constraint) {
+			return writeBinary("=>", constraint.getLeft(), constraint.getRight());
+		}
+
+		@Override
+		public Void visitEquivalence(final EquivalenceConstraint constraint) {
+			return writeBinary("<=>", constraint.getLeft(), constraint.getRight());
+		}
+
+		@Override
+		public Void visitParenthesis(final ParenthesisConstraint constraint) {
+			key.append("()");
+			return visit(constraint.getContent());
+		}
+
+		@Override
+		public Void visitOther(final Constraint constraint) {
+			key.append('{').append(constraint).append('}');
+			return null;
+		}
+
+		private Void writeBinary(final String operator, final Constraint left, final Constraint right) {
+			key.append(operator).append('(');
+			visit(left);
+			key.append(',');
+			visit(right);
+			key.append(')');
+			return null;
+		}
+	}
+}
@@ -0,0 +1,188 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * Defines a typed visitor of UVL constraint trees.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.helpers;
+
+import java.util.Objects;
+
+import de.vill.model.constraint.AndConstraint;
+import de.vill.model.constraint.Constraint;
+import de.vill.model.constraint.EquivalenceConstraint;
+import de.vill.model.constraint.ExpressionConstraint;
+import de.vill.model.constraint.ImplicationConstraint;
+import de.vill.model.constraint.LiteralConstraint;
+import de.vill.model.constraint.NotConstraint;
+import de.vill.model.constraint.OrConstraint;
+import de.vill.model.constraint.ParenthesisConstraint;
+
+/**
+ * A visitor of UVL constraints. As the constraint classes of the UVL library
+ * do not accept visitors, {@link #visit(Constraint)} is the single point
+ * dispatching a constraint to the method of its type. Visitors recurse by
+ * calling {@link #visit(Constraint)} on the parts of a constraint.
+ * <p>
+ * </p>
+ * All methods default to {@link #visitOther(Constraint)}, the binary
+ * constraints via {@link #visitBinary(Constraint, Constraint, Constraint)},
+ * thus visitors only override the methods of the types they distinguish. By
+ * default, {@link #visitOther(Constraint)} rejects the constraint.
+ *
+ * @param <R> the type of the result of the visitor.
+ *
+ * @author Kevin Feichtinger
+ */
+public interface ConstraintVisitor<R> {
+
+	/**
+	 * Dispatches the given constraint to the method of its type.
+	 *
+	 * @param constraint the constraint to visit.
+	 * @return the result of the visitor.
+	 */
+	default R visit(final Constraint constraint) {
+		Objects.requireNonNull(constraint);
+		if (constraint instanceof LiteralConstraint) {
+			return visitLiteral((LiteralConstraint) constraint);
+		}
+		if (constraint instanceof NotConstraint) {
+			return visitNot((NotConstraint) constraint);
+		}
+		if (constraint instanceof AndConstraint) {
+			return visitAnd((AndConstraint) constraint);
+		}
+		if (constraint instanceof OrConstraint) {
+			return visitOr((OrConstraint) constraint);
+		}
+		if (constraint instanceof ImplicationConstraint) {
+			return visitImplication((ImplicationConstraint) constraint);
+		}
+		if (constraint instanceof EquivalenceConstraint) {
+			return visitEquivalence((EquivalenceConstraint) constraint);
+		}
+		if (constraint instanceof ParenthesisConstraint) {
+			return visitParenthesis((ParenthesisConstraint) constraint);
+		}
+		if (constraint instanceof ExpressionConstraint) {
+			return visitExpression((ExpressionConstraint) constraint);
+		}
+		return visitOther(constraint);
+	}
+
+	/**
+	 * Visits a literal, i.e., a reference to a feature.
+	 *
+	 * @param constraint the literal.
+	 * @return the result of the visitor.
+	 */
+	default R visitLiteral(final LiteralConstraint constraint) {
+		return visitOther(constraint);
+	}
+
+	/**
+	 * Visits a negation.
+	 *
+	 * @param constraint the negation.
+	 * @return the result of the visitor.
+	 */
+	default R visitNot(final NotConstraint constraint) {
+		return visitOther(constraint);
+	}
+
+	/**
+	 * Visits a conjunction.
+	 *
+	 * @param constraint the conjunction.
+	 * @return the result of the visitor.
+	 */
+	default R visitAnd(final AndConstraint constraint) {
+		return visitBinary(constraint, constraint.getLeft(), constraint.getRight());
+	}
+
+	/**
+	 * Visits a disjunction.
+	 *
+	 * @param constraint the disjunction.
+	 * @return the result of the visitor.
+	 */
+	default R visitOr(final OrConstraint constraint) {
+		return visitBinary(constraint, constraint.getLeft(), constraint.getRight());
+	}
+
+	/**
+	 * Visits an implication.
+	 *
+	 * @param constraint the implication.
+	 * @return the result of the visitor.
+	 */
+	default R visitImplication(final ImplicationConstraint constraint) {
+		return visitBinary(constraint, constraint.getLeft(), constraint.getRight());
+	}
+
+	/**
+	 * Visits an equivalence.
+	 *
+	 * @param constraint the equivalence.
+	 * @return the result of the visitor.
+	 */
+	default R visitEquivalence(final EquivalenceConstraint constraint) {
+		return visitBinary(constraint, constraint.getLeft(), constraint.getRight());
+	}
+
+	/**
+	 * Visits a binary constraint, i.e., a conjunction, disjunction, implication
+	 * or equivalence, if the visitor does not distinguish its type.
+	 *
+	 * @param constraint the binary constraint.
+	 * @param left       the left part of the constraint.
+	 * @param right      the right part of the constraint.
+	 * @return the result of the visitor.
+	 */
+	default R visitBinary(final Constraint constraint, final Constraint left, final Constraint right) {
+		return visitOther(constraint);
+	}
+
+	/**
+	 * Visits a parenthesized constraint.
+	 *
+	 * @param constraint the parenthesized constraint.
+	 * @return the result of the visitor.
+	 */
+	default R visitParenthesis(final ParenthesisConstraint constraint) {
+		return visitOther(constraint);
+	}
+
+	/**
+	 * Visits an equation of expressions.
+	 *
+	 * @param constraint the equation.
+	 * @return the result of the visitor.
+	 */
+	default R visitExpression(final ExpressionConstraint constraint) {
+		return visitOther(constraint);
+	}
+
+	/**
+	 * Visits a constraint the visitor does not distinguish.
+	 *
+	 * @param constraint the constraint.
+	 * @return the result of the visitor.
+	 * @throws IllegalArgumentException if the visitor does not support the
+	 *                                  constraint, the default.
+	 */
+	default R visitOther(final Constraint constraint) {
+		throw new IllegalArgumentException(
+				String.format("Constraint type %s is not supported", constraint.getClass().getSimpleName()));
+	}
+}
@@ -0,0 +1,309 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * Implements the bulk construction of feature models.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.helpers;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import at.jku.cps.travart.core.exception.NotSupportedVariabilityTypeException;
+import de.vill.model.Attribute;
+import de.vill.model.Feature;
+import de.vill.model.FeatureModel;
+import de.vill.model.Group;
+import de.vill.model.Group.GroupType;
+import de.vill.model.constraint.Constraint;
+import de.vill.model.constraint.LiteralConstraint;
+
+/**
+ * Collects the features, parent links, group types, attributes and
+ * constraints of a feature model and builds the model in one pass. Unlike
+ * building the tree with {@link TraVarTUtils#setGroup}, adding a feature does
+ * not search or change the tree, thus features can be added in any order,
+ * e.g., before their parents. The tree is linked and validated by
+ * {@link #build()} in time linear in the number of features.
+ * <p>
+ * </p>
+ * The child features of a feature are put in one group per group type, in
+ * the order in which the group types and the features are added.
+ *
+ * @author Kevin Feichtinger
+ */
+public final class FeatureModelBuilder {
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private final List<String> names;
+	private final List<String> parents;
+	private final List<GroupType> groupTypes;
+	private final List<Constraint> constraints;
+	private final List<String> attributeFeatures = new ArrayList<>();
+	private final List<Attribute<?>> attributes = new ArrayList<>();
+	private String namespace;
+
+	/**
+	 * Creates a builder for a small feature model.
+	 */
+	public FeatureModelBuilder() {
+		this(DEFAULT_CAPACITY, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates a builder for a feature model of the expected size.
+	 *
+	 * @param expectedFeatures    the expected number of features.
+	 * @param expectedConstraints the expected number of constraints.
+	 */
+	public FeatureModelBuilder(final int expectedFeatures, final int expectedConstraints) {
+		names = new ArrayList<>(expectedFeatures);
+		parents = new ArrayList<>(expectedFeatures);
+		groupTypes = new ArrayList<>(expectedFeatures);
+		constraints = new ArrayList<>(expectedConstraints);
+	}
+
+	/**
+	 * Sets the namespace of the feature model.
+	 *
+	 * @param namespace the namespace.
+	 * @return this builder.
+	 */
+	public FeatureModelBuilder namespace(final String namespace) {
+		this.namespace = namespace;
+		return this;
+	}
+
+	/**
+	 * Adds the root feature of the feature model.
+	 *
+	 * @param name the name of the root feature.
+	 * @return this builder.
+	 */
+	public FeatureModelBuilder root(final String name) {
+		return add(name, null, null);
+	}
+
+	/**
+	 * Adds a feature in the group of the given type of its parent feature. The
+	 * parent feature may be added later.
+	 *
+	 * @param name      the name of the feature.
+	 * @param parent    the name of the parent feature.
+	 * @param groupType the type of the group of the feature.
+	 * @return this builder.
+	 */
+	public FeatureModelBuilder feature(final String name, final String parent, final GroupType groupType) {
+		return add(name, Objects.requireNonNull(parent), Objects.requireNonNull(groupType));
+	}
+
+	private FeatureModelBuilder add(final String name, final String parent, final GroupType groupType) {
+		names.add(Objects.requireNonNull(name));
+		parents.add(parent);
+		groupTypes.add(groupType);
+		return this;
+	}
+
+	/**
+	 * Adds an attribute to a feature. The feature may be added later.
+	 *
+	 * @param feature the name of the feature.
+	 * @param key     the key of the attribute.
+	 * @param value   the value of the attribute.
+	 * @param <T>     the type of the value.
+	 * @return this builder.
+	 */
+	public <T> FeatureModelBuilder attribute(final String feature, final String key, final T value) {
+		attributeFeatures.add(Objects.requireNonNull(feature));
+		attributes.add(new Attribute<>(Objects.requireNonNull(key), Objects.requireNonNull(value)));
+		return this;
+	}
+
+	/**
+	 * Adds an own constraint to the feature model.
+	 *
+	 * @param constraint the constraint.
+	 * @return this builder.
+	 */
+	public FeatureModelBuilder constraint(final Constraint constraint) {
+		constraints.add(Objects.requireNonNull(constraint));
+		return this;
+	}
+
+	/**
+	 * Adds own constraints to the feature model.
+	 *
+	 * @param constraints the constraints.
+	 * @return this builder.
+	 */
+	public FeatureModelBuilder constraints(final Collection<? extends Constraint> constraints) {
+		constraints.forEach(this::constraint);
+		return this;
+	}
+
+	/**
+	 * Returns the number of added features.
+	 *
+	 * @return the number of features.
+	 */
+	public int size() {
+		return names.size();
+	}
+
+	/**
+	 * Builds the feature model of the added features and constraints. The
+	 * builder can be used further, each call builds a new model.
+	 *
+	 * @return the built feature model.
+	 * @throws NotSupportedVariabilityTypeException if the model has not exactly
+	 *                                              one root, a feature name is
+	 *                                              added twice, a parent or an
+	 *                                              attributed feature is
+	 *                                              missing, a feature is not
+	 *                                              reachable from the root, a
+	 *                                              group type is a cardinality
+	 *                                              or a constraint references
+	 *                                              a missing feature.
+	 */
+	public FeatureModel build() throws NotSupportedVariabilityTypeException {
+		final int size = names.size();
+		final Map<String, Integer> ids = new HashMap<>(Math.max(DEFAULT_CAPACITY, (int) (size / 0.75f) + 1));
+		int root = -1;
+		for (int i = 0; i < size; i++) {
+			if (ids.put(names.get(i), i) != null) {
+				throw new NotSupportedVariabilityTypeException(
+						String.format("Feature %s is added twice", names.get(i)));
+			}
+			if (parents.get(i) == null) {
+				if (root >= 0) {
+					throw new NotSupportedVariabilityTypeException(
+							String.format("Features %s and %s are both roots", names.get(root), names.get(i)));
+				}
+				root = i;
+			} else if (groupTypes.get(i) == GroupType.GROUP_CARDINALITY) {
+				throw new NotSupportedVariabilityTypeException(
+						String.format("Feature %s is placed in a group cardinality", names.get(i)));
+			}
+		}
+		if (root < 0) {
+			throw new NotSupportedVariabilityTypeException("The model has no root feature");
+		}
+		// the children of each feature in the order they were added
+		final int[] parentIds = new int[size];
+		final int[] firstChild = new int[size + 1];
+		for (int i = 0; i < size; i++) {
+			if (i == root) {
+				continue;
+			}
+			final Integer parent = ids.get(parents.get(i));
+			if (parent == null) {
+				throw new NotSupportedVariabilityTypeException(
+						String.format("Parent %s of feature %s is missing", parents.get(i), names.get(i)));
+			}
+			parentIds[i] = parent;
+			firstChild[parent + 1]++;
+		}
+		for (int i = 0; i < size; i++) {
+			firstChild[i + 1] += firstChild[i];
+		}
+		final int[] children = new int[size];
+		final int[] next = firstChild.clone();
+		for (int i = 0; i < size; i++) {
+			if (i != root) {
+				children[next[parentIds[i]]++] = i;
+			}
+		}
+		// link the tree from the root, features in cycles are not reached
+		final Feature[] features = new Feature[size];
+		features[root] = new Feature(names.get(root));
+		final int[] queue = new int[size];
+		queue[0] = root;
+		int reached = 1;
+		for (int head = 0; head < reached; head++) {
+			final int parent = queue[head];
+			final Feature parentFeature = features[parent];
+			for (int c = firstChild[parent]; c < firstChild[parent + 1]; c++) {
+				final int child = children[c];
+				final Feature feature = new Feature(names.get(child));
+				findGroup(parentFeature, groupTypes.get(child)).getFeatures().add(feature);
+				features[child] = feature;
+				queue[reached++] = child;
+			}
+		}
+		if (reached < size) {
+			for (int i = 0; i < size; i++) {
+				if (features[i] == null) {
+					throw new NotSupportedVariabilityTypeException(
+							String.format("Feature %s is not reachable from the root", names.get(i)));
+				}
+			}
+		}
+		for (int i = 0; i < attributes.size(); i++) {
+			final Integer id = ids.get(attributeFeatures.get(i));
+			if (id == null) {
+				throw new NotSupportedVariabilityTypeException(
+						String.format("Attributed feature %s is missing", attributeFeatures.get(i)));
+			}
+			final Attribute<?> attribute = attributes.get(i);
+			features[id].getAttributes().put(attribute.getName(), attribute);
+		}
+		for (final Constraint constraint : constraints) {
+			checkReferences(constraint, ids);
+		}
+		final FeatureModel fm = new FeatureModel();
+		if (namespace != null) {
+			fm.setNamespace(namespace);
+		}
+		fm.setRootFeature(features[root]);
+		for (final Feature feature : features) {
+			fm.getFeatureMap().put(feature.getFeatureName(), feature);
+		}
+		fm.getOwnConstraints().addAll(constraints);
+		return fm;
+	}
+
+	private static Group findGroup(final Feature parent, final GroupType groupType) {
+		// a feature has at most one group per type
+		for (final Group group : parent.getChildren()) {
+			if (group.GROUPTYPE == groupType) {
+				return group;
+			}
+		}
+		final Group group = new Group(groupType);
+		parent.addChildren(group);
+		return group;
+	}
+
+	private static void checkReferences(final Constraint constraint, final Map<String, Integer> ids)
+			throws NotSupportedVariabilityTypeException {
+		final Deque<Constraint> stack = new ArrayDeque<>();
+		stack.push(constraint);
+		while (!stack.isEmpty()) {
+			final Constraint current = stack.pop();
+			if (current instanceof LiteralConstraint) {
+				final String literal = ((LiteralConstraint) current).getLiteral();
+				if (!ids.containsKey(literal)) {
+					throw new NotSupportedVariabilityTypeException(
+							String.format("Constraint %s references missing feature %s", constraint, literal));
+				}
+			} else {
+				current.getConstraintSubParts().forEach(stack::push);
+			}
+		}
+	}
+}
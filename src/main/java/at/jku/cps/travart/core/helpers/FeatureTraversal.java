@@ -0,0 +1,256 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * Implements the iterative traversal of feature trees.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.helpers;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+import de.vill.model.Feature;
+import de.vill.model.Group;
+
+/**
+ * Traversals of the features of a feature tree in pre-order, post-order and
+ * level-order. The traversals keep the path to the current feature on an
+ * explicit stack instead of the call stack, thus they handle trees of any
+ * depth, and they do not create collections per feature. The child features
+ * of a feature are visited in the order of its groups and of the features
+ * within the groups.
+ * <p>
+ * </p>
+ * The traversals read the groups of a feature when its child features are
+ * visited. The groups of a feature returned by a post-order traversal or left
+ * by a {@link FeatureTreeVisitor} may be changed, the groups of the features
+ * on the path to it must not.
+ *
+ * @author Kevin Feichtinger
+ */
+public final class FeatureTraversal {
+
+	private FeatureTraversal() {
+	}
+
+	/**
+	 * Returns the features of the tree of the given root in pre-order, i.e.,
+	 * each feature before its child features.
+	 *
+	 * @param root the root of the tree.
+	 * @return the features of the tree in pre-order.
+	 */
+	public static Iterable<Feature> preOrder(final Feature root) {
+		Objects.requireNonNull(root);
+		return () -> new PreOrderIterator(root);
+	}
+
+	/**
+	 * Returns the features of the tree of the given root in post-order, i.e.,
+	 * each feature after its child features.
+	 *
+	 * @param root the root of the tree.
+	 * @return the features of the tree in post-order.
+	 */
+	public static Iterable<Feature> postOrder(final Feature root) {
+		Objects.requireNonNull(root);
+		return () -> new PostOrderIterator(root);
+	}
+
+	/**
+	 * Returns the features of the tree of the given root in level-order, i.e.,
+	 * the features of each depth before the features of the next depth.
+	 *
+	 * @param root the root of the tree.
+	 * @return the features of the tree in level-order.
+	 */
+	public static Iterable<Feature> levelOrder(final Feature root) {
+		Objects.requireNonNull(root);
+		return () -> new LevelOrderIterator(root);
+	}
+
+	/**
+	 * Walks the tree of the given root with the given visitor, entering each
+	 * feature before and leaving it after its child features.
+	 *
+	 * @param root    the root of the tree.
+	 * @param visitor the visitor of the features.
+	 */
+	public static void walk(final Feature root, final FeatureTreeVisitor visitor) {
+		Objects.requireNonNull(root);
+		Objects.requireNonNull(visitor);
+		final Path path = new Path();
+		if (!visitor.enter(root)) {
+			visitor.leave(root);
+			return;
+		}
+		path.push(root);
+		while (!path.isEmpty()) {
+			final Feature child = path.nextChild();
+			if (child == null) {
+				visitor.leave(path.pop());
+			} else if (visitor.enter(child)) {
+				path.push(child);
+			} else {
+				visitor.leave(child);
+			}
+		}
+	}
+
+	/**
+	 * The path from the root to the current feature, with the position of the
+	 * next child feature of each feature on the path.
+	 */
+	private static final class Path {
+		private Feature[] features = new Feature[16];
+		private int[] groups = new int[16];
+		private int[] children = new int[16];
+		private int depth;
+
+		boolean isEmpty() {
+			return depth == 0;
+		}
+
+		void push(final Feature feature) {
+			if (depth == features.length) {
+				features = Arrays.copyOf(features, depth * 2);
+				groups = Arrays.copyOf(groups, depth * 2);
+				children = Arrays.copyOf(children, depth * 2);
+			}
+			features[depth] = feature;
+			groups[depth] = 0;
+			children[depth] = 0;
+			depth++;
+		}
+
+		Feature pop() {
+			final Feature feature = features[--depth];
+			features[depth] = null;
+			return feature;
+		}
+
+		/**
+		 * Returns the next child feature of the last feature on the path, or
+		 * {@code null} if all of its child features are visited.
+		 */
+		Feature nextChild() {
+			final int top = depth - 1;
+			final List<Group> featureGroups = features[top].getChildren();
+			while (groups[top] < featureGroups.size()) {
+				final List<Feature> groupFeatures = featureGroups.get(groups[top]).getFeatures();
+				if (children[top] < groupFeatures.size()) {
+					return groupFeatures.get(children[top]++);
+				}
+				groups[top]++;
+				children[top] = 0;
+			}
+			return null;
+		}
+	}
+
+	private static final class PreOrderIterator implements Iterator<Feature> {
+		private final Path path = new Path();
+		private Feature next;
+
+		PreOrderIterator(final Feature root) {
+			next = root;
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (next == null && !path.isEmpty()) {
+				next = path.nextChild();
+				if (next == null) {
+					path.pop();
+				}
+			}
+			return next != null;
+		}
+
+		@Override
+		public Feature next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			final Feature feature = next;
+			next = null;
+			path.push(feature);
+			return feature;
+		}
+	}
+
+	private static final class PostOrderIterator implements Iterator<Feature> {
+		private final Path path = new Path();
+		private Feature next;
+
+		PostOrderIterator(final Feature root) {
+			path.push(root);
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (next == null && !path.isEmpty()) {
+				final Feature child = path.nextChild();
+				if (child == null) {
+					next = path.pop();
+				} else {
+					path.push(child);
+				}
+			}
+			return next != null;
+		}
+
+		@Override
+		public Feature next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			final Feature feature = next;
+			next = null;
+			return feature;
+		}
+	}
+
+	private static final class LevelOrderIterator implements Iterator<Feature> {
+		private final ArrayDeque<Feature> queue = new ArrayDeque<>();
+		private Feature last;
+
+		LevelOrderIterator(final Feature root) {
+			queue.add(root);
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (last != null) {
+				// the children are read when the next feature is requested
+				for (final Group group : last.getChildren()) {
+					queue.addAll(group.getFeatures());
+				}
+				last = null;
+			}
+			return !queue.isEmpty();
+		}
+
+		@Override
+		public Feature next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			last = queue.poll();
+			return last;
+		}
+	}
+}
@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * Defines the visitor of feature trees.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.helpers;
+
+import de.vill.model.Feature;
+
+/**
+ * A visitor of the features of a feature tree, see
+ * {@link FeatureTraversal#walk(Feature, FeatureTreeVisitor)}. Each feature is
+ * entered before and left after its child features, such that
+ * {@link #enter(Feature)} sees the features in pre-order and
+ * {@link #leave(Feature)} in post-order.
+ *
+ * @author Kevin Feichtinger
+ */
+public interface FeatureTreeVisitor {
+
+	/**
+	 * Enters the given feature before its child features are visited.
+	 *
+	 * @param feature the entered feature.
+	 * @return {@code true} if the child features shall be visited, {@code false}
+	 *         to skip the subtree of the feature.
+	 */
+	default boolean enter(final Feature feature) {
+		return true;
+	}
+
+	/**
+	 * Leaves the given feature after its child features are visited. The
+	 * visitor may change the groups of the feature, but not the groups of its
+	 * ancestors.
+	 *
+	 * @param feature the left feature.
+	 */
+	default void leave(final Feature feature) {
+	}
+}
@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * Implements scoped LogicNG formula factories.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.helpers;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Objects;
+
+import org.logicng.formulas.FormulaFactory;
+
+import de.vill.model.constraint.Constraint;
+
+/**
+ * A scope owning a LogicNG {@link FormulaFactory} and the
+ * {@link ConstraintAnalysis analyses} of the constraints translated with it.
+ * LogicNG factories are not thread-safe and keep every formula they create,
+ * thus a context belongs to the thread that opened it and releases the
+ * formulas and analyses when it is closed:
+ *
+ * <pre>
+ * try (FormulaContext context = FormulaContext.open()) {
+ * 	// all analyses of this thread use the factory of the context
+ * }
+ * </pre>
+ *
+ * Contexts can be nested, {@link #current()} returns the innermost open
+ * context of the calling thread. Threads without an open context use a
+ * default context of their own. Once it holds {@value #DEFAULT_CAPACITY}
+ * analyses, it is replaced by a fresh default context, such that its memory
+ * stays bounded. The factory of the replaced context is not cleared, thus the
+ * formulas created before stay valid, but are not shared with the formulas of
+ * the fresh context. Jobs combining the formulas of many constraints should
+ * therefore open a context of their own.
+ *
+ * @author Kevin Feichtinger
+ */
+public final class FormulaContext implements AutoCloseable {
+	/**
+	 * The number of analyses after which the default context of a thread is
+	 * replaced.
+	 */
+	public static final int DEFAULT_CAPACITY = 10_000;
+
+	private static final ThreadLocal<Deque<FormulaContext>> OPEN = ThreadLocal.withInitial(ArrayDeque::new);
+	private static final ThreadLocal<FormulaContext> DEFAULT = ThreadLocal
+			.withInitial(() -> new FormulaContext(DEFAULT_CAPACITY));
+
+	private final FormulaFactory factory = new FormulaFactory();
+	private final WeakIdentityMap<Constraint, ConstraintAnalysis> analyses = new WeakIdentityMap<>();
+	private final Thread owner = Thread.currentThread();
+	private final int capacity;
+
+	private FormulaContext(final int capacity) {
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Opens a new context for the calling thread, which is the current context
+	 * of the thread until it is closed.
+	 *
+	 * @return the opened context.
+	 */
+	public static FormulaContext open() {
+		final FormulaContext context = new FormulaContext(Integer.MAX_VALUE);
+		OPEN.get().push(context);
+		return context;
+	}
+
+	/**
+	 * Returns the innermost open context of the calling thread, or the default
+	 * context of the thread if it has not opened one.
+	 *
+	 * @return the current context.
+	 */
+	public static FormulaContext current() {
+		final FormulaContext context = OPEN.get().peek();
+		return context == null ? DEFAULT.get() : context;
+	}
+
+	/**
+	 * Returns the formula factory of the context. The factory must only be used
+	 * by the thread owning the context.
+	 *
+	 * @return the formula factory.
+	 */
+	public FormulaFactory getFactory() {
+		checkOwner();
+		return factory;
+	}
+
+	/**
+	 * Returns the analysis of the given constraint, computing it on the first
+	 * call for the constraint in this context.
+	 *
+	 * @param constraint the constraint to analyze.
+	 * @return the analysis of the constraint.
+	 */
+	public ConstraintAnalysis analyze(final Constraint constraint) {
+		Objects.requireNonNull(constraint);
+		checkOwner();
+		if (analyses.size() >= capacity) {
+			// only default contexts are bounded, a full one is replaced instead of
+			// clearing the factory whose formulas may still be in use
+			if (DEFAULT.get() == this) {
+				DEFAULT.set(new FormulaContext(capacity));
+			}
+			return DEFAULT.get().analyze(constraint);
+		}
+		return analyses.computeIfAbsent(constraint, key -> new ConstraintAnalysis(key, factory));
+	}
+
+	/**
+	 * Discards the analysis of the given constraint in this context.
+	 *
+	 * @param constraint the changed constraint.
+	 */
+	public void invalidate(final Constraint constraint) {
+		analyses.remove(Objects.requireNonNull(constraint));
+	}
+
+	/**
+	 * Closes the context and releases its formulas and analyses. Closing the
+	 * default context of a thread only releases them.
+	 *
+	 * @throws IllegalStateException if the calling thread does not own the
+	 *                               context.
+	 */
+	@Override
+	public void close() {
+		checkOwner();
+		OPEN.get().remove(this);
+		release();
+	}
+
+	private void release() {
+		analyses.clear();
+		factory.clear();
+	}
+
+	private void checkOwner() {
+		if (owner != Thread.currentThread()) {
+			throw new IllegalStateException("A formula context must only be used by the thread owning it");
+		}
+	}
+}
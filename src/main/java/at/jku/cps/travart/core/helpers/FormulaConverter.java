@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * Implements the translation of LogicNG formulas to UVL constraints.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.helpers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import org.logicng.formulas.BinaryOperator;
+import org.logicng.formulas.Formula;
+import org.logicng.formulas.Literal;
+import org.logicng.formulas.Not;
+
+import at.jku.cps.travart.core.factory.ICoreModelFactory;
+import at.jku.cps.travart.core.factory.impl.CoreModelFactory;
+import de.vill.model.constraint.Constraint;
+
+/**
+ * Translates LogicNG formulas to UVL constraints by the structure of the
+ * formula, without rendering and parsing the formula. By default, the n-ary
+ * conjunctions and disjunctions of LogicNG are translated to balanced trees of
+ * binary constraints, such that the depth of the constraint grows
+ * logarithmically with the number of operands. Callers depending on the shape
+ * the UVL parser creates, e.g., on the last operand being the right operand of
+ * the root, can translate them to left-nested trees instead. Operands binding
+ * weaker than their operator
+ * are put in parentheses, such that the constraint renders as valid UVL.
+ * Literals keep the names of the variables, which are quoted when rendered if
+ * necessary.
+ *
+ * @author Kevin Feichtinger
+ */
+public final class FormulaConverter {
+	// binding strength of the UVL operators, stronger operators bind tighter
+	private static final int EQUIVALENCE = 1;
+	private static final int IMPLICATION = 2;
+	private static final int OR = 3;
+	private static final int AND = 4;
+	private static final int UNARY = 5;
+
+	private final ICoreModelFactory factory;
+	private final boolean balanced;
+
+	/**
+	 * Creates a converter creating balanced constraints with the given factory.
+	 *
+	 * @param factory the factory to create the constraints with.
+	 */
+	public FormulaConverter(final ICoreModelFactory factory) {
+		this(factory, true);
+	}
+
+	/**
+	 * Creates a converter creating the constraints with the given factory.
+	 *
+	 * @param factory  the factory to create the constraints with.
+	 * @param balanced true to translate n-ary operators to balanced trees, false
+	 *                 to translate them to left-nested trees like the UVL
+	 *                 parser.
+	 */
+	public FormulaConverter(final ICoreModelFactory factory, final boolean balanced) {
+		this.factory = Objects.requireNonNull(factory);
+		this.balanced = balanced;
+	}
+
+	/**
+	 * Translates the given formula with the {@link CoreModelFactory}.
+	 *
+	 * @param formula the formula to translate.
+	 * @return the constraint of the formula.
+	 * @throws IllegalArgumentException if the formula contains constants or
+	 *                                  pseudo-Boolean constraints, which can not
+	 *                                  be expressed as UVL constraint.
+	 */
+	public static Constraint toConstraint(final Formula formula) {
+		return new FormulaConverter(CoreModelFactory.getInstance()).convert(formula);
+	}
+
+	/**
+	 * Translates the given formula.
+	 *
+	 * @param formula the formula to translate.
+	 * @return the constraint of the formula.
+	 * @throws IllegalArgumentException if the formula contains constants or
+	 *                                  pseudo-Boolean constraints, which can not
+	 *                                  be expressed as UVL constraint.
+	 */
+	public Constraint convert(final Formula formula) {
+		Objects.requireNonNull(formula);
+		switch (formula.type()) {
+		case LITERAL:
+			final Literal literal = (Literal) formula;
+			final Constraint variable = factory.createLiteralConstraint(literal.name());
+			return literal.phase() ? variable : factory.createNotConstraint(variable);
+		case NOT:
+			return factory.createNotConstraint(operand(((Not) formula).operand(), UNARY));
+		case AND:
+			return nary(formula, AND);
+		case OR:
+			return nary(formula, OR);
+		case IMPL:
+			final BinaryOperator implication = (BinaryOperator) formula;
+			return factory.createImplicationConstraint(operand(implication.left(), IMPLICATION + 1),
+					operand(implication.right(), IMPLICATION + 1));
+		case EQUIV:
+			final BinaryOperator equivalence = (BinaryOperator) formula;
+			return factory.createEquivalenceConstraint(operand(equivalence.left(), EQUIVALENCE + 1),
+					operand(equivalence.right(), EQUIVALENCE + 1));
+		default:
+			throw new IllegalArgumentException(
+					String.format("Formula %s can not be expressed as UVL constraint", formula));
+		}
+	}
+
+	private Constraint nary(final Formula formula, final int strength) {
+		final List<Constraint> operands = new ArrayList<>(formula.numberOfOperands());
+		for (final Formula operand : formula) {
+			operands.add(operand(operand, strength));
+		}
+		if (balanced) {
+			return balanced(operands, 0, operands.size(), strength);
+		}
+		Constraint constraint = operands.get(0);
+		for (int i = 1; i < operands.size(); i++) {
+			constraint = binary(constraint, operands.get(i), strength);
+		}
+		return constraint;
+	}
+
+	private Constraint balanced(final List<Constraint> operands, final int from, final int to, final int strength) {
+		if (to - from == 1) {
+			return operands.get(from);
+		}
+		final int middle = from + to >>> 1;
+		final Constraint left = balanced(operands, from, middle, strength);
+		final Constraint right = balanced(operands, middle, to, strength);
+		return binary(left, right, strength);
+	}
+
+	private Constraint binary(final Constraint left, final Constraint right, final int strength) {
+		return strength == AND ? factory.createAndConstraint(left, right) : factory.createOrConstraint(left, right);
+	}
+
+	/**
+	 * Translates an operand, putting it in parentheses if it binds weaker than
+	 * the given strength.
+	 */
+	private Constraint operand(final Formula formula, final int strength) {
+		final Constraint constraint = convert(formula);
+		return strength(formula) < strength ? factory.createParenthesisConstraint(constraint) : constraint;
+	}
+
+	private static int strength(final Formula formula) {
+		switch (formula.type()) {
+		case EQUIV:
+			return EQUIVALENCE;
+		case IMPL:
+			return IMPLICATION;
+		case OR:
+			return OR;
+		case AND:
+			return AND;
+		default:
+			return UNARY;
+		}
+	}
+}
@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * Implements the registration of a loaded TraVarT plugin.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.helpers;
+
+import java.util.Objects;
+
+import org.pf4j.PluginManager;
+
+import at.jku.cps.travart.core.common.IPlugin;
+
+/**
+ * A registration binds a plugin instance to the plugin manager and PF4J plugin
+ * which loaded it. Jobs lease a registration while they use the plugin. A
+ * registration retired by a reload or unload stays usable for the leases
+ * already taken and returns its reference on the PF4J plugin to the
+ * {@link TraVarTPluginManager} once the last lease is returned.
+ *
+ * @author Kevin Feichtinger
+ */
+final class PluginRegistration {
+	private final IPlugin<?> plugin;
+	private final PluginManager pluginManager;
+	private final String wrapperId;
+
+	private int leases;
+	private boolean retired;
+	private boolean released;
+
+	PluginRegistration(final IPlugin<?> plugin, final PluginManager pluginManager, final String wrapperId) {
+		this.plugin = Objects.requireNonNull(plugin);
+		this.pluginManager = pluginManager;
+		this.wrapperId = wrapperId;
+	}
+
+	IPlugin<?> getPlugin() {
+		return plugin;
+	}
+
+	PluginManager getPluginManager() {
+		return pluginManager;
+	}
+
+	String getWrapperId() {
+		return wrapperId;
+	}
+
+	/**
+	 * Takes a lease on this registration.
+	 *
+	 * @return true if the lease was taken, false if the registration was already
+	 *         retired.
+	 */
+	synchronized boolean acquire() {
+		if (retired) {
+			return false;
+		}
+		leases++;
+		return true;
+	}
+
+	/**
+	 * Returns a lease taken with {@link #acquire()}. Releases the PF4J plugin if
+	 * this was the last lease of a retired registration.
+	 */
+	void release() {
+		boolean release;
+		synchronized (this) {
+			leases--;
+			release = retired && leases == 0 && !released;
+			released |= release;
+		}
+		if (release) {
+			TraVarTPluginManager.releaseWrapper(this);
+		}
+	}
+
+	/**
+	 * Retires this registration, such that no new leases can be taken. The PF4J
+	 * plugin is released immediately if no leases are held, otherwise when the
+	 * last lease is returned. The PF4J plugin is unloaded once no registration
+	 * references it anymore.
+	 */
+	void retire() {
+		boolean release;
+		synchronized (this) {
+			retired = true;
+			release = leases == 0 && !released;
+			released |= release;
+		}
+		if (release) {
+			TraVarTPluginManager.releaseWrapper(this);
+		}
+	}
+}
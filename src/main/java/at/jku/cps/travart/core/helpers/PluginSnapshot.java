@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * Implements a consistent view on the available TraVarT plugins for a job.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.helpers;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+import at.jku.cps.travart.core.common.IPlugin;
+
+/**
+ * A snapshot of the available plugins at the time it was acquired from the
+ * {@link TraVarTPluginManager}. As long as the snapshot is open, the plugin
+ * versions it contains stay loaded, even if they are reloaded or unloaded in
+ * the meantime. A job should therefore acquire a snapshot when it starts and
+ * close it when it finishes.
+ *
+ * @author Kevin Feichtinger
+ */
+public final class PluginSnapshot implements AutoCloseable {
+	private final Map<String, IPlugin<?>> plugins;
+	private final Collection<PluginRegistration> registrations;
+	private boolean closed;
+
+	PluginSnapshot(final Map<String, IPlugin<?>> plugins, final Collection<PluginRegistration> registrations) {
+		this.plugins = Collections.unmodifiableMap(plugins);
+		this.registrations = registrations;
+	}
+
+	/**
+	 * Returns the plugins of this snapshot by their ID.
+	 *
+	 * @return the plugins of this snapshot.
+	 */
+	public Map<String, IPlugin<?>> getPlugins() {
+		return plugins;
+	}
+
+	/**
+	 * Releases the plugins of this snapshot. Plugins that have been reloaded or
+	 * unloaded in the meantime are unloaded once no other snapshot uses them.
+	 */
+	@Override
+	public synchronized void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		for (final PluginRegistration registration : registrations) {
+			registration.release();
+		}
+	}
+}
@@ -16,27 +16,49 @@
  *******************************************************************************/
 package at.jku.cps.travart.core.helpers;
 
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.pf4j.DefaultPluginManager;
 import org.pf4j.ManifestPluginDescriptorFinder;
 import org.pf4j.PluginDescriptorFinder;
 import org.pf4j.PluginManager;
+import org.pf4j.PluginWrapper;
 
 import at.jku.cps.travart.core.common.IPlugin;
+import at.jku.cps.travart.core.exception.PluginNotFoundException;
 
 /**
  * This is the helper class to load, start, use, and close the available plugins
  * in the system.
+ * <p>
+ * </p>
+ * Single plugins can be reloaded or unloaded while the system is running. Jobs
+ * using plugins should acquire a {@link PluginSnapshot}, such that they finish
+ * on the plugin versions they started with, while new jobs already use the
+ * reloaded versions. A PF4J plugin may provide several TraVarT plugins, thus
+ * it is reference counted by the registered plugins and the replaced plugins
+ * still used by a snapshot, and unloaded once the last of them is released.
  *
  * @author Prankur Agarwal
  * @author Kevin Feichtinger
  */
 public final class TraVarTPluginManager {
-	private static final Map<String, IPlugin> availablePlugins = new HashMap<>();
+	private static final ConcurrentMap<String, PluginRegistration> availablePlugins = new ConcurrentHashMap<>();
+
+	private static final List<PluginManager> reloadManagers = new CopyOnWriteArrayList<>();
+
+	// guarded by the class, counts the registrations referencing a PF4J plugin
+	private static final Map<PluginManager, Map<String, Integer>> wrapperReferences = new IdentityHashMap<>();
 
 	private static PluginManager pluginManager;
 
@@ -44,17 +66,21 @@ public final class TraVarTPluginManager {
 
 	}
 
-	/**
-	 * A static function to start the available plugins in the system.
-	 */
-	public static void startPlugins() {
-		// create the plugin manager
-		pluginManager = new DefaultPluginManager() {
+	private static PluginManager createPluginManager() {
+		return new DefaultPluginManager() {
 			@Override
 			protected PluginDescriptorFinder createPluginDescriptorFinder() {
 				return new ManifestPluginDescriptorFinder();
 			}
 		};
+	}
+
+	/**
+	 * A static function to start the available plugins in the system.
+	 */
+	public static void startPlugins() {
+		// create the plugin manager
+		pluginManager = createPluginManager();
 		// load the plugins
 		pluginManager.loadPlugins();
 
@@ -70,18 +96,99 @@ public final class TraVarTPluginManager {
 	 */
 	public static void findAvailablePlugins() {
 		// retrieves the extensions for IPlugin extension point
-		final List<IPlugin> plugins = pluginManager.getExtensions(IPlugin.class);
-		for (final IPlugin plugin : plugins) {
-			availablePlugins.put(plugin.getId(), plugin);
+		for (final IPlugin<?> plugin : pluginManager.getExtensions(IPlugin.class)) {
+			register(new PluginRegistration(plugin, pluginManager, wrapperIdOf(pluginManager, plugin)));
 		}
 
 	}
 
 	/**
-	 * A static function to get the available plugins in the system.
+	 * A static function to get the available plugins in the system. The returned
+	 * map is a copy of the currently registered plugins. Jobs which must not be
+	 * affected by a concurrent reload should use {@link #acquirePlugins()}
+	 * instead.
 	 */
-	public static Map<String, IPlugin> getAvailablePlugins() {
-		return Collections.unmodifiableMap(availablePlugins);
+	public static Map<String, IPlugin<?>> getAvailablePlugins() {
+		final Map<String, IPlugin<?>> plugins = new HashMap<>();
+		for (final Map.Entry<String, PluginRegistration> entry : availablePlugins.entrySet()) {
+			plugins.put(entry.getKey(), entry.getValue().getPlugin());
+		}
+		return Collections.unmodifiableMap(plugins);
+	}
+
+	/**
+	 * A static function to acquire a consistent snapshot of the available plugins.
+	 * The plugins of the snapshot stay loaded until the snapshot is closed.
+	 *
+	 * @return a snapshot of the available plugins.
+	 */
+	public static PluginSnapshot acquirePlugins() {
+		final Map<String, IPlugin<?>> plugins = new HashMap<>();
+		final List<PluginRegistration> leased = new ArrayList<>();
+		for (final String id : availablePlugins.keySet()) {
+			PluginRegistration registration = availablePlugins.get(id);
+			// a retired registration was replaced concurrently, retry with the new one
+			while (registration != null && !registration.acquire()) {
+				registration = availablePlugins.get(id);
+			}
+			if (registration != null) {
+				leased.add(registration);
+				plugins.put(id, registration.getPlugin());
+			}
+		}
+		return new PluginSnapshot(plugins, leased);
+	}
+
+	/**
+	 * A static function to reload the plugin with the given ID from the given
+	 * path. The new version is loaded and started in a separate plugin manager and
+	 * replaces the registered version for new jobs. Jobs still holding a snapshot
+	 * with the old version finish on it, afterwards the old version is unloaded.
+	 *
+	 * @param id         the ID of the plugin to reload.
+	 * @param pluginPath the path to the new version of the plugin.
+	 * @return the new version of the plugin.
+	 * @throws PluginNotFoundException if the given path does not contain a plugin
+	 *                                 with the given ID.
+	 */
+	public static IPlugin<?> reloadPlugin(final String id, final Path pluginPath) throws PluginNotFoundException {
+		Objects.requireNonNull(id);
+		Objects.requireNonNull(pluginPath);
+		final PluginManager manager = createPluginManager();
+		final String wrapperId = manager.loadPlugin(pluginPath);
+		if (wrapperId == null) {
+			throw new PluginNotFoundException(String.format("No plugin could be loaded from %s", pluginPath));
+		}
+		manager.startPlugin(wrapperId);
+		for (final IPlugin<?> plugin : manager.getExtensions(IPlugin.class, wrapperId)) {
+			if (id.equals(plugin.getId())) {
+				reloadManagers.add(manager);
+				register(new PluginRegistration(plugin, manager, wrapperId));
+				return plugin;
+			}
+		}
+		manager.unloadPlugin(wrapperId);
+		throw new PluginNotFoundException(String.format("Plugin %s not found in %s", id, pluginPath));
+	}
+
+	/**
+	 * A static function to unload the plugin with the given ID. Jobs still holding
+	 * a snapshot with the plugin finish on it, afterwards the plugin is unloaded.
+	 *
+	 * @param id the ID of the plugin to unload.
+	 * @throws PluginNotFoundException if no plugin with the given ID is
+	 *                                 registered.
+	 */
+	public static void unloadPlugin(final String id) throws PluginNotFoundException {
+		Objects.requireNonNull(id);
+		final PluginRegistration registration;
+		synchronized (TraVarTPluginManager.class) {
+			registration = availablePlugins.remove(id);
+		}
+		if (registration == null) {
+			throw new PluginNotFoundException(String.format("Plugin %s is not registered", id));
+		}
+		registration.retire();
 	}
 
 	/**
@@ -89,5 +196,61 @@ public final class TraVarTPluginManager {
 	 */
 	public static void stopPlugins() {
 		pluginManager.stopPlugins();
+		for (final PluginManager manager : reloadManagers) {
+			manager.stopPlugins();
+		}
+	}
+
+	private static void register(final PluginRegistration registration) {
+		final PluginRegistration previous;
+		synchronized (TraVarTPluginManager.class) {
+			if (registration.getWrapperId() != null) {
+				wrapperReferences.computeIfAbsent(registration.getPluginManager(), m -> new HashMap<>())
+						.merge(registration.getWrapperId(), 1, Integer::sum);
+			}
+			previous = availablePlugins.put(registration.getPlugin().getId(), registration);
+		}
+		if (previous != null && previous != registration) {
+			previous.retire();
+		}
+	}
+
+	/**
+	 * Releases the reference of the given retired registration on its PF4J
+	 * plugin, unloading the PF4J plugin if this was the last reference. A reload
+	 * manager without loaded plugins is discarded.
+	 *
+	 * @param registration the retired registration without leases.
+	 */
+	static void releaseWrapper(final PluginRegistration registration) {
+		final PluginManager manager = registration.getPluginManager();
+		final String wrapperId = registration.getWrapperId();
+		if (wrapperId == null) {
+			return;
+		}
+		synchronized (TraVarTPluginManager.class) {
+			final Map<String, Integer> references = wrapperReferences.get(manager);
+			if (references == null || references.merge(wrapperId, -1, Integer::sum) > 0) {
+				return;
+			}
+			references.remove(wrapperId);
+			if (references.isEmpty()) {
+				wrapperReferences.remove(manager);
+			}
+			// unloaded while holding the lock, such that a concurrent registration
+			// does not reference an unloading plugin
+			if (manager.getPlugin(wrapperId) != null) {
+				manager.unloadPlugin(wrapperId);
+			}
+			// a reload manager loads a single PF4J plugin and is not stopped anymore
+			if (manager != pluginManager && manager.getPlugins().isEmpty()) {
+				reloadManagers.remove(manager);
+			}
+		}
+	}
+
+	private static String wrapperIdOf(final PluginManager manager, final IPlugin<?> plugin) {
+		final PluginWrapper wrapper = manager.whichPlugin(plugin.getClass());
+		return wrapper != null ? wrapper.getPluginId() : null;
 	}
 }
@@ -20,8 +20,6 @@ import static at.jku.cps.travart.core.transformation.DefaultModelTransformationP
 import static at.jku.cps.travart.core.transformation.DefaultModelTransformationProperties.HIDDEN_ATTRIBUTE;
 
 import java.io.IOException;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
@@ -39,15 +37,12 @@ import java.util.logging.Logger;
 import java.util.logging.SimpleFormatter;
 import java.util.stream.Collectors;
 
-import org.logicng.formulas.FType;
 import org.logicng.formulas.Formula;
 import org.logicng.formulas.FormulaFactory;
 import org.logicng.formulas.Literal;
-import org.logicng.formulas.Or;
 
 import at.jku.cps.travart.core.common.IConfigurable;
 import at.jku.cps.travart.core.transformation.DefaultModelTransformationProperties;
-import de.vill.main.UVLModelFactory;
 import de.vill.model.Attribute;
 import de.vill.model.Feature;
 import de.vill.model.FeatureModel;
@@ -63,8 +58,56 @@ import de.vill.model.constraint.OrConstraint;
 import de.vill.model.constraint.ParenthesisConstraint;
 
 public class TraVarTUtils {
-	private static final UVLModelFactory factory = new UVLModelFactory();
-	private static final FormulaFactory formulaFactory = new FormulaFactory();
+	private static final ConstraintVisitor<Constraint> LEFT_CONSTRAINT = new ConstraintVisitor<>() {
+		@Override
+		public Constraint visitBinary(final Constraint constraint, final Constraint left, final Constraint right) {
+			return left;
+		}
+
+		@Override
+		public Constraint visitOther(final Constraint constraint) {
+			return null;
+		}
+	};
+
+	private static final ConstraintVisitor<Constraint> RIGHT_CONSTRAINT = new ConstraintVisitor<>() {
+		@Override
+		public Constraint visitBinary(final Constraint constraint, final Constraint left, final Constraint right) {
+			return right;
+		}
+
+		@Override
+		public Constraint visitOther(final Constraint constraint) {
+			return null;
+		}
+	};
+
+	private static final ConstraintVisitor<Integer> LITERAL_COUNT = new ConstraintVisitor<>() {
+		@Override
+		public Integer visitLiteral(final LiteralConstraint constraint) {
+			return 1;
+		}
+
+		@Override
+		public Integer visitOther(final Constraint constraint) {
+			int count = 0;
+			for (final Constraint part : constraint.getConstraintSubParts()) {
+				count += visit(part);
+			}
+			return count;
+		}
+	};
+
+	private static final ConstraintVisitor<Long> MAX_DEPTH = new ConstraintVisitor<>() {
+		@Override
+		public Long visitOther(final Constraint constraint) {
+			long depth = 1;
+			for (final Constraint part : constraint.getConstraintSubParts()) {
+				depth = Math.max(depth, visit(part) + 1);
+			}
+			return depth;
+		}
+	};
 
 	private TraVarTUtils() {
 	}
@@ -103,7 +146,8 @@ public class TraVarTUtils {
 	}
 
 	/**
-	 * Recursively builds a featureMap starting from the passed root.
+	 * Builds a featureMap of the tree of the passed root in pre-order, see
+	 * {@link FeatureTraversal#preOrder(Feature)}.
 	 *
 	 * @param feature the root of the tree
 	 * @return A map of all features in the tree with their names as keys
@@ -111,16 +155,8 @@ public class TraVarTUtils {
 	public static Map<String, Feature> getFeatureMapFromRoot(final Feature feature) {
 		Objects.requireNonNull(feature);
 		final Map<String, Feature> featureMap = new HashMap<>();
-		// add self
-		featureMap.put(feature.getFeatureName(), feature);
-		if (feature.getChildren().isEmpty()) {
-			return featureMap;
-		}
-		final List<Feature> childFeatures = feature.getChildren().stream().flatMap(g -> g.getFeatures().stream())
-				.collect(Collectors.toList());
-		// add all children
-		for (final Feature childFeature : childFeatures) {
-			featureMap.putAll(getFeatureMapFromRoot(childFeature));
+		for (final Feature descendant : FeatureTraversal.preOrder(feature)) {
+			featureMap.put(descendant.getFeatureName(), descendant);
 		}
 		return featureMap;
 	}
@@ -209,7 +245,11 @@ public class TraVarTUtils {
 	 * @param constraint the constraint to add.
 	 */
 	public static void addOwnConstraint(final FeatureModel fm, final Constraint constraint) {
+		final ConstraintIndex index = ConstraintIndex.find(fm);
 		getOwnConstraints(fm).add(Objects.requireNonNull(constraint));
+		if (index != null) {
+			index.add(constraint);
+		}
 	}
 
 	/**
@@ -219,7 +259,20 @@ public class TraVarTUtils {
 	 * @param constraint the constraint to remove.
 	 */
 	public static void removeOwnConstraint(final FeatureModel fm, final Constraint constraint) {
-		getOwnConstraints(fm).remove(Objects.requireNonNull(constraint));
+		Objects.requireNonNull(constraint);
+		final List<Constraint> constraints = getOwnConstraints(fm);
+		final ConstraintIndex index = ConstraintIndex.find(fm);
+		if (index == null) {
+			constraints.remove(constraint);
+			return;
+		}
+		// the list removes the first equal constraint, which is the first one of
+		// its key in the index
+		final Constraint removed = index.findEqual(constraint);
+		if (removed != null) {
+			constraints.remove(removed);
+			index.remove(removed);
+		}
 	}
 
 	/**
@@ -233,7 +286,12 @@ public class TraVarTUtils {
 	 *         constraints, otherwise false
 	 */
 	public static boolean hasOwnConstraint(final FeatureModel fm, final Constraint constraint) {
-		return getOwnConstraints(fm).contains(Objects.requireNonNull(constraint));
+		Objects.requireNonNull(constraint);
+		final ConstraintIndex index = ConstraintIndex.find(fm);
+		if (index != null) {
+			return index.findEqual(constraint) != null;
+		}
+		return getOwnConstraints(fm).contains(constraint);
 	}
 
 	/**
@@ -377,6 +435,18 @@ public class TraVarTUtils {
 		return getGlobalConstraints(fm).contains(Objects.requireNonNull(constraint));
 	}
 
+	/**
+	 * Translates a constraint to a LogicNG formula with the factory of the current
+	 * {@link FormulaContext} of the calling thread, see
+	 * {@link #buildFormulaFromConstraint(Constraint, FormulaFactory)}.
+	 *
+	 * @param constraint the constraint to translate
+	 * @return the logic formula parsed for the logicng library
+	 */
+	public static Formula buildFormulaFromConstraint(final Constraint constraint) {
+		return buildFormulaFromConstraint(constraint, FormulaContext.current().getFactory());
+	}
+
 	/**
 	 * This function recursively translates a propositional logic formula from the
 	 * data model used in the de.neominik.uvl library to the data model used in the
@@ -390,41 +460,53 @@ public class TraVarTUtils {
 	public static Formula buildFormulaFromConstraint(final Constraint constraint, final FormulaFactory factory) {
 		Objects.requireNonNull(constraint);
 		Objects.requireNonNull(factory);
-		Formula term = null;
-		if (constraint instanceof ImplicationConstraint) {
-			term = factory.implication(
-					buildFormulaFromConstraint(((ImplicationConstraint) constraint).getLeft(), factory),
-					buildFormulaFromConstraint(((ImplicationConstraint) constraint).getRight(), factory));
-		} else if (constraint instanceof EquivalenceConstraint) {
-			term = factory.equivalence(
-					buildFormulaFromConstraint(((EquivalenceConstraint) constraint).getLeft(), factory),
-					buildFormulaFromConstraint(((EquivalenceConstraint) constraint).getRight(), factory));
-		} else if (constraint instanceof AndConstraint) {
-			term = factory.and(buildFormulaFromConstraint(((AndConstraint) constraint).getLeft(), factory),
-					buildFormulaFromConstraint(((AndConstraint) constraint).getRight(), factory));
-		} else if (constraint instanceof OrConstraint) {
-			term = factory.or(buildFormulaFromConstraint(((OrConstraint) constraint).getLeft(), factory),
-					buildFormulaFromConstraint(((OrConstraint) constraint).getRight(), factory));
-		} else if (constraint instanceof NotConstraint) {
-			term = factory.not(buildFormulaFromConstraint(((NotConstraint) constraint).getContent(), factory));
-		} else if (constraint instanceof ParenthesisConstraint) {
-			term = buildFormulaFromConstraint(((ParenthesisConstraint) constraint).getContent(), factory);
-		} else {
-			term = factory.literal(((LiteralConstraint) constraint).getLiteral(), true);
-		}
-		return term;
+		return new ConstraintVisitor<Formula>() {
+			@Override
+			public Formula visitLiteral(final LiteralConstraint literal) {
+				return factory.literal(literal.getLiteral(), true);
+			}
+
+			@Override
+			public Formula visitNot(final NotConstraint not) {
+				return factory.not(visit(not.getContent()));
+			}
+
+			@Override
+			public Formula visitAnd(final AndConstraint and) {
+				return factory.and(visit(and.getLeft()), visit(and.getRight()));
+			}
+
+			@Override
+			public Formula visitOr(final OrConstraint or) {
+				return factory.or(visit(or.getLeft()), visit(or.getRight()));
+			}
+
+			@Override
+			public Formula visitImplication(final ImplicationConstraint implication) {
+				return factory.implication(visit(implication.getLeft()), visit(implication.getRight()));
+			}
+
+			@Override
+			public Formula visitEquivalence(final EquivalenceConstraint equivalence) {
+				return factory.equivalence(visit(equivalence.getLeft()), visit(equivalence.getRight()));
+			}
+
+			@Override
+			public Formula visitParenthesis(final ParenthesisConstraint parenthesis) {
+				return visit(parenthesis.getContent());
+			}
+		}.visit(constraint);
 	}
 
 	/**
-	 * Translates a Formula back to a constraint format.
+	 * Translates a Formula back to a constraint format, see
+	 * {@link FormulaConverter}.
 	 *
 	 * @param formula the formula in logicNG format
 	 * @return the same formula represented by UVLs Constraint hierarchy.
 	 */
 	public static Constraint buildConstraintFromFormula(final Formula formula) {
-		Objects.requireNonNull(formula);
-		// replace negation sign for uvl parser to recognize it.
-		return factory.parseConstraint(formula.toString().replace("~", "!"));
+		return FormulaConverter.toConstraint(formula);
 	}
 
 	/**
@@ -434,15 +516,7 @@ public class TraVarTUtils {
 	 * @return the number of literals
 	 */
 	public static int countLiterals(final Constraint constraint) {
-		Objects.requireNonNull(constraint);
-		if (constraint instanceof LiteralConstraint) {
-			return 1;
-		}
-		int i = 0;
-		for (final Constraint subconst : constraint.getConstraintSubParts()) {
-			i += countLiterals(subconst);
-		}
-		return i;
+		return LITERAL_COUNT.visit(constraint);
 	}
 
 	/**
@@ -730,7 +804,12 @@ public class TraVarTUtils {
 	 *         {@code false}.
 	 */
 	public static boolean hasChildren(final Feature feature) {
-		return !getChildren(feature).isEmpty();
+		for (final Group group : Objects.requireNonNull(feature).getChildren()) {
+			if (!group.getFeatures().isEmpty()) {
+				return true;
+			}
+		}
+		return false;
 	}
 
 	/**
@@ -772,8 +851,7 @@ public class TraVarTUtils {
 	 * @return true if the constraint is complex, false otherwise
 	 */
 	public static boolean isComplexConstraint(final Constraint constraint) {
-		final Formula f = TraVarTUtils.buildFormulaFromConstraint(Objects.requireNonNull(constraint), formulaFactory);
-		return Objects.requireNonNull(f).stream().anyMatch(subf -> !subf.isAtomicFormula());
+		return ConstraintAnalysis.of(constraint).isComplex();
 	}
 
 	/**
@@ -784,11 +862,7 @@ public class TraVarTUtils {
 	 * @return Boolean if constraint is requires-constraint
 	 */
 	public static boolean isRequires(final Constraint constraint) {
-		final Formula formula = TraVarTUtils.buildFormulaFromConstraint(Objects.requireNonNull(constraint),
-				formulaFactory);
-		final Formula cnfFormula = formula.cnf();
-		return cnfFormula instanceof Or && TraVarTUtils.countNegativeFormulaLiterals(cnfFormula) == 1
-				&& TraVarTUtils.countPositiveFormulaLiterals(cnfFormula) > 0;
+		return ConstraintAnalysis.of(constraint).isRequires();
 	}
 
 	/**
@@ -799,11 +873,7 @@ public class TraVarTUtils {
 	 * @return boolean if constraint is a RequiresForAll-constraint
 	 */
 	public static boolean isRequiredForAllConstraint(final Constraint constraint) {
-		final Constraint constr = Objects.requireNonNull(constraint);
-		final Formula formula = TraVarTUtils.buildFormulaFromConstraint(constr, formulaFactory);
-		final Formula cnfFormula = formula.cnf();
-		return cnfFormula instanceof Or && TraVarTUtils.countPositiveFormulaLiterals(cnfFormula) == 1
-				&& TraVarTUtils.countNegativeFormulaLiterals(cnfFormula) > 1;
+		return ConstraintAnalysis.of(constraint).isRequiredForAll();
 	}
 
 	/**
@@ -897,14 +967,7 @@ public class TraVarTUtils {
 	 * @return true if constraint is an exludes constraint, false otherwise
 	 */
 	public static boolean isExcludes(final Constraint constraint) {
-		Objects.requireNonNull(constraint);
-		Formula formula = buildFormulaFromConstraint(constraint, formulaFactory);
-		formula = formula.cnf();
-		final List<Literal> positiveLiterals = formula.literals().stream().filter(Literal::phase)
-				.collect(Collectors.toList());
-		final List<Literal> negativeLiterals = formula.literals().stream().filter(lit -> !lit.phase())
-				.collect(Collectors.toList());
-		return formula.type().equals(FType.OR) && positiveLiterals.isEmpty() && !negativeLiterals.isEmpty();
+		return ConstraintAnalysis.of(constraint).isExcludes();
 	}
 
 	/**
@@ -937,15 +1000,7 @@ public class TraVarTUtils {
 	 * @return the highest depth of the constraint as long
 	 */
 	public static long getMaxDepth(final Constraint constraint) {
-		Objects.requireNonNull(constraint);
-		long count = 1;
-		for (final Constraint child : constraint.getConstraintSubParts()) {
-			final long childCount = getMaxDepth(child) + 1;
-			if (childCount > count) {
-				count = childCount;
-			}
-		}
-		return count;
+		return MAX_DEPTH.visit(constraint);
 	}
 
 	/**
@@ -954,20 +1009,13 @@ public class TraVarTUtils {
 	 *
 	 * @param constraint the constraint from which to get the right part of
 	 * @return the right sub-constraint
-	 * @throws ReflectiveOperationException
+	 * @throws ReflectiveOperationException never, the sub-constraint is no longer
+	 *                                      looked up by reflection. The clause is
+	 *                                      deprecated and only kept for source
+	 *                                      compatibility of callers catching it.
 	 */
 	public static Constraint getRightConstraint(final Constraint constraint) throws ReflectiveOperationException {
-		Objects.requireNonNull(constraint);
-		final List<Method> methods = Arrays.asList(constraint.getClass().getMethods());
-		final Optional<Method> getRightMethod = methods.stream().filter(m -> m.getName().equals("getRight")).findAny();
-		if (getRightMethod.isPresent()) {
-			try {
-				return (Constraint) getRightMethod.get().invoke(constraint);
-			} catch (final IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-				throw new ReflectiveOperationException("Passed constraint does not have a getRight-method.", e);
-			}
-		}
-		return null;
+		return RIGHT_CONSTRAINT.visit(constraint);
 	}
 
 	/**
@@ -976,20 +1024,13 @@ public class TraVarTUtils {
 	 *
 	 * @param constraint the constraint from which to get the left part of
 	 * @return the left sub-constraint
-	 * @throws ReflectiveOperationException
+	 * @throws ReflectiveOperationException never, the sub-constraint is no longer
+	 *                                      looked up by reflection. The clause is
+	 *                                      deprecated and only kept for source
+	 *                                      compatibility of callers catching it.
 	 */
 	public static Constraint getLeftConstraint(final Constraint constraint) throws ReflectiveOperationException {
-		Objects.requireNonNull(constraint);
-		final List<Method> methods = Arrays.asList(constraint.getClass().getMethods());
-		final Optional<Method> getLeftMethod = methods.stream().filter(m -> m.getName().equals("getLeft")).findAny();
-		if (getLeftMethod.isPresent()) {
-			try {
-				return (Constraint) getLeftMethod.get().invoke(constraint);
-			} catch (final IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-				throw new ReflectiveOperationException("Passed constraint does not have a getLeft-method.", e);
-			}
-		}
-		return null;
+		return LEFT_CONSTRAINT.visit(constraint);
 	}
 
 	/**
@@ -1048,10 +1089,7 @@ public class TraVarTUtils {
 	 *         another.
 	 */
 	public static boolean isSingleFeatureRequires(final Constraint constraint) {
-		Objects.requireNonNull(constraint);
-		final Formula formula = TraVarTUtils.buildFormulaFromConstraint(constraint, formulaFactory);
-		return formula instanceof Or && countNegativeFormulaLiterals(formula) == 1
-				&& countPositiveFormulaLiterals(formula) == 1;
+		return ConstraintAnalysis.of(constraint).isSingleFeatureRequires();
 	}
 
 	/**
@@ -1093,9 +1131,7 @@ public class TraVarTUtils {
 	 * @return the amount of found negative literals as long
 	 */
 	public static long countNegativeLiterals(final Constraint constraint) {
-		Objects.requireNonNull(constraint);
-		final Formula formula = buildFormulaFromConstraint(constraint, formulaFactory);
-		return countNegativeFormulaLiterals(formula);
+		return ConstraintAnalysis.of(constraint).getNegativeLiterals();
 	}
 
 	/**
@@ -1116,9 +1152,7 @@ public class TraVarTUtils {
 	 * @return the amount of found positive literals as long
 	 */
 	public static long countPositiveLiterals(final Constraint constraint) {
-		Objects.requireNonNull(constraint);
-		final Formula formula = buildFormulaFromConstraint(constraint, formulaFactory);
-		return countPositiveFormulaLiterals(formula);
+		return ConstraintAnalysis.of(constraint).getPositiveLiterals();
 	}
 
 	/**
@@ -1152,18 +1186,22 @@ public class TraVarTUtils {
 	 * @return all Literals within the constraint as a {@link Set Set}
 	 */
 	public static Set<Constraint> getLiterals(final Constraint constraint) {
-		Objects.requireNonNull(constraint);
 		final Set<Constraint> literals = new HashSet<>();
-		if (constraint instanceof LiteralConstraint) {
-			literals.add(constraint);
-			return literals;
-		}
-		if (constraint instanceof ParenthesisConstraint) {
-			literals.addAll(getLiterals(((ParenthesisConstraint) constraint).getContent()));
-		}
-		for (final Constraint subConst : constraint.getConstraintSubParts()) {
-			literals.addAll(getLiterals(subConst));
-		}
+		new ConstraintVisitor<Void>() {
+			@Override
+			public Void visitLiteral(final LiteralConstraint literal) {
+				literals.add(literal);
+				return null;
+			}
+
+			@Override
+			public Void visitOther(final Constraint other) {
+				for (final Constraint part : other.getConstraintSubParts()) {
+					visit(part);
+				}
+				return null;
+			}
+		}.visit(constraint);
 		return literals;
 	}
 
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * Implements a concurrent map with weakly referenced identity keys.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.helpers;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * A thread-safe map comparing its keys by identity and referencing them
+ * weakly, such that values attached to objects do not keep the objects alive.
+ * Entries of collected keys are removed on the next modification of the map.
+ * Unlike a {@link java.util.WeakHashMap}, keys with a structural
+ * {@code equals} are not merged and changing a key does not lose its entry.
+ *
+ * @param <K> the type of the keys.
+ * @param <V> the type of the values.
+ *
+ * @author Kevin Feichtinger
+ */
+final class WeakIdentityMap<K, V> {
+	private final ConcurrentMap<IdentityKey<K>, V> entries = new ConcurrentHashMap<>();
+	private final ReferenceQueue<K> queue = new ReferenceQueue<>();
+
+	/**
+	 * Returns the value of the given key.
+	 *
+	 * @param key the key.
+	 * @return the value of the key, or {@code null} if the map does not contain
+	 *         the key.
+	 */
+	V get(final K key) {
+		return entries.get(new IdentityKey<>(key, null));
+	}
+
+	/**
+	 * Returns the value of the given key, computing and storing it if the map
+	 * does not contain the key.
+	 *
+	 * @param key      the key.
+	 * @param function the function computing the value of the key.
+	 * @return the value of the key.
+	 */
+	V computeIfAbsent(final K key, final Function<? super K, ? extends V> function) {
+		final V value = entries.get(new IdentityKey<>(key, null));
+		if (value != null) {
+			return value;
+		}
+		expunge();
+		return entries.computeIfAbsent(new IdentityKey<>(key, queue), k -> function.apply(key));
+	}
+
+	/**
+	 * Removes the value of the given key.
+	 *
+	 * @param key the key.
+	 * @return the removed value, or {@code null} if the map did not contain the
+	 *         key.
+	 */
+	V remove(final K key) {
+		expunge();
+		return entries.remove(new IdentityKey<>(key, null));
+	}
+
+	/**
+	 * Removes all entries.
+	 */
+	void clear() {
+		entries.clear();
+		expunge();
+	}
+
+	/**
+	 * Returns the number of entries, including those of collected keys not
+	 * removed yet.
+	 *
+	 * @return the number of entries.
+	 */
+	int size() {
+		return entries.size();
+	}
+
+	private void expunge() {
+		for (Reference<? extends K> reference = queue.poll(); reference != null; reference = queue.poll()) {
+			entries.remove(reference);
+		}
+	}
+
+	/**
+	 * A weak reference comparing the referenced objects by identity. Collected
+	 * references are only equal to themselves.
+	 */
+	private static final class IdentityKey<K> extends WeakReference<K> {
+		private final int hash;
+
+		private IdentityKey(final K key, final ReferenceQueue<K> queue) {
+			super(key, queue);
+			hash = System.identityHashCode(key);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof IdentityKey)) {
+				return false;
+			}
+			final Object key = get();
+			return key != null && key == ((IdentityKey<?>) obj).get();
+		}
+	}
+}
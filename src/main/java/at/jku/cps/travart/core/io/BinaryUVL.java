@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * Defines the constants of the binary UVL snapshot format.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.io;
+
+/**
+ * The binary UVL snapshot format stores a core model compactly for fast
+ * reloading. A snapshot consists of
+ * <ol>
+ * <li>the magic bytes {@code UVLB} and the format version,</li>
+ * <li>a string table holding each feature name, attribute key, string value
+ * and namespace once,</li>
+ * <li>the model header with namespace and language levels,</li>
+ * <li>the feature tree in pre-order, with all numbers varint-encoded and all
+ * strings given as index into the string table, and</li>
+ * <li>the constraints, each as a postfix-encoded operator stream.</li>
+ * </ol>
+ * Models with imports or aggregate functions are not supported. Snapshots
+ * stored in a {@link UVLRepository} keep the feature names in a dictionary
+ * shared by all models of the repository instead of the string table.
+ *
+ * @author Kevin Feichtinger
+ */
+final class BinaryUVL {
+	static final byte[] MAGIC = { 'U', 'V', 'L', 'B' };
+	static final int VERSION = 1;
+
+	static final int FLAG_NAMESPACE = 1;
+	static final int FLAG_EXPLICIT_LEVELS = 2;
+	static final int FLAG_ROOT = 4;
+
+	// attribute values
+	static final int VALUE_FALSE = 0;
+	static final int VALUE_TRUE = 1;
+	static final int VALUE_LONG = 2;
+	static final int VALUE_INTEGER = 3;
+	static final int VALUE_DOUBLE = 4;
+	static final int VALUE_STRING = 5;
+	static final int VALUE_CONSTRAINT = 6;
+	static final int VALUE_LIST = 7;
+	static final int VALUE_MAP = 8;
+	static final int VALUE_ATTRIBUTE = 9;
+
+	// postfix operators of constraints and expressions
+	static final int END = 0;
+	static final int LITERAL = 1;
+	static final int NOT = 2;
+	static final int AND = 3;
+	static final int OR = 4;
+	static final int IMPLICATION = 5;
+	static final int EQUIVALENCE = 6;
+	static final int PARENTHESIS = 7;
+	static final int EQUAL = 8;
+	static final int NOT_EQUAL = 9;
+	static final int LOWER = 10;
+	static final int LOWER_EQUAL = 11;
+	static final int GREATER = 12;
+	static final int GREATER_EQUAL = 13;
+	static final int NUMBER = 14;
+	static final int STRING = 15;
+	static final int LITERAL_EXPRESSION = 16;
+	static final int TRUE_EXPRESSION = 17;
+	static final int FALSE_EXPRESSION = 18;
+	static final int ADD = 19;
+	static final int SUB = 20;
+	static final int MUL = 21;
+	static final int DIV = 22;
+	static final int PARENTHESIS_EXPRESSION = 23;
+
+	private BinaryUVL() {
+
+	}
+}
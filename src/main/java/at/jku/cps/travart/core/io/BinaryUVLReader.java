@@ -0,0 +1,395 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * Implements the reading of binary UVL snapshots.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.io;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import at.jku.cps.travart.core.exception.NotSupportedVariabilityTypeException;
+import at.jku.cps.travart.core.stream.FeatureModelEventBuilder;
+import de.vill.model.Attribute;
+import de.vill.model.FeatureModel;
+import de.vill.model.FeatureType;
+import de.vill.model.Group.GroupType;
+import de.vill.model.LanguageLevel;
+import de.vill.model.constraint.AndConstraint;
+import de.vill.model.constraint.Constraint;
+import de.vill.model.constraint.EqualEquationConstraint;
+import de.vill.model.constraint.EquivalenceConstraint;
+import de.vill.model.constraint.GreaterEqualsEquationConstraint;
+import de.vill.model.constraint.GreaterEquationConstraint;
+import de.vill.model.constraint.ImplicationConstraint;
+import de.vill.model.constraint.LiteralConstraint;
+import de.vill.model.constraint.LowerEqualsEquationConstraint;
+import de.vill.model.constraint.LowerEquationConstraint;
+import de.vill.model.constraint.NotConstraint;
+import de.vill.model.constraint.NotEqualsEquationConstraint;
+import de.vill.model.constraint.OrConstraint;
+import de.vill.model.constraint.ParenthesisConstraint;
+import de.vill.model.expression.AddExpression;
+import de.vill.model.expression.DivExpression;
+import de.vill.model.expression.Expression;
+import de.vill.model.expression.LiteralExpression;
+import de.vill.model.expression.MulExpression;
+import de.vill.model.expression.NumberExpression;
+import de.vill.model.expression.ParenthesisExpression;
+import de.vill.model.expression.StringExpression;
+import de.vill.model.expression.SubExpression;
+
+/**
+ * Reads a core model from a binary UVL snapshot, see {@link BinaryUVL}. As the
+ * UVL parser does, the reader links the literals of the constraints to the
+ * features of the tree, see {@link LiteralReferences}.
+ *
+ * @author Kevin Feichtinger
+ */
+final class BinaryUVLReader {
+	private static final FeatureType[] FEATURE_TYPES = FeatureType.values();
+	private static final GroupType[] GROUP_TYPES = GroupType.values();
+	private static final int MAX_PREALLOCATION = 1024;
+
+	private final DataInputStream in;
+	private final FeatureModelEventBuilder builder = new FeatureModelEventBuilder();
+	private final LiteralReferences references = new LiteralReferences();
+	private final StringDictionary dictionary;
+	private String[] strings;
+
+	private BinaryUVLReader(final InputStream stream, final StringDictionary dictionary) {
+		in = new DataInputStream(stream);
+		this.dictionary = dictionary;
+	}
+
+	/**
+	 * Reads a model from the given stream. The stream is not closed.
+	 *
+	 * @param stream the stream to read from.
+	 * @return the read model.
+	 * @throws IOException                          if reading fails.
+	 * @throws NotSupportedVariabilityTypeException if the stream is not a valid
+	 *                                              binary UVL snapshot, e.g., if
+	 *                                              it is damaged or truncated.
+	 */
+	static FeatureModel read(final InputStream stream) throws IOException, NotSupportedVariabilityTypeException {
+		return new BinaryUVLReader(stream, null).readModel();
+	}
+
+	/**
+	 * Reads a model from the given stream, which was written with the given
+	 * dictionary, see
+	 * {@link BinaryUVLWriter#write(FeatureModel, java.io.OutputStream, StringDictionary)}.
+	 * The stream is not closed.
+	 *
+	 * @param stream     the stream to read from.
+	 * @param dictionary the dictionary holding the feature names of the model.
+	 * @return the read model.
+	 * @throws IOException                          if reading fails.
+	 * @throws NotSupportedVariabilityTypeException if the stream is not a valid
+	 *                                              binary UVL snapshot, e.g., if
+	 *                                              it is damaged or truncated.
+	 */
+	static FeatureModel read(final InputStream stream, final StringDictionary dictionary)
+			throws IOException, NotSupportedVariabilityTypeException {
+		return new BinaryUVLReader(stream, dictionary).readModel();
+	}
+
+	private FeatureModel readModel() throws IOException, NotSupportedVariabilityTypeException {
+		try {
+			return readSnapshot();
+		} catch (final EOFException e) {
+			throw new NotSupportedVariabilityTypeException("Truncated binary UVL snapshot");
+		} catch (final IllegalArgumentException e) {
+			// unknown language levels
+			throw new NotSupportedVariabilityTypeException(e);
+		}
+	}
+
+	private FeatureModel readSnapshot() throws IOException, NotSupportedVariabilityTypeException {
+		final byte[] magic = new byte[BinaryUVL.MAGIC.length];
+		in.readFully(magic);
+		if (!Arrays.equals(magic, BinaryUVL.MAGIC)) {
+			throw new NotSupportedVariabilityTypeException("Not a binary UVL snapshot");
+		}
+		final int version = readVarint();
+		if (version != BinaryUVL.VERSION) {
+			throw new NotSupportedVariabilityTypeException(
+					String.format("Unsupported binary UVL version %d", version));
+		}
+		// damaged counts and lengths must not allocate more than the snapshot holds
+		final int count = readVarint();
+		final List<String> table = new ArrayList<>(Math.min(count, MAX_PREALLOCATION));
+		for (int i = 0; i < count; i++) {
+			final int length = readVarint();
+			final byte[] bytes = in.readNBytes(length);
+			if (bytes.length < length) {
+				throw new EOFException();
+			}
+			table.add(new String(bytes, StandardCharsets.UTF_8));
+		}
+		strings = table.toArray(new String[0]);
+
+		final int flags = readVarint();
+		builder.startModel((flags & BinaryUVL.FLAG_NAMESPACE) != 0 ? readString() : null,
+				(flags & BinaryUVL.FLAG_EXPLICIT_LEVELS) != 0);
+		final int levels = readVarint();
+		for (int i = 0; i < levels; i++) {
+			builder.languageLevel(LanguageLevel.valueOf(readString()));
+		}
+		if ((flags & BinaryUVL.FLAG_ROOT) != 0) {
+			readFeature();
+		}
+		final int constraints = readVarint();
+		for (int i = 0; i < constraints; i++) {
+			builder.constraint(readConstraint());
+		}
+		builder.endModel();
+
+		final FeatureModel model = builder.getFeatureModel();
+		references.link(model);
+		return model;
+	}
+
+	private void readFeature() throws IOException, NotSupportedVariabilityTypeException {
+		final String name = dictionary == null ? readString() : dictionary.get(readVarint());
+		final int type = readVarint();
+		builder.startFeature(name, type == 0 ? null : element(FEATURE_TYPES, type - 1), readOptionalString(),
+				readOptionalString());
+		final int attributes = readVarint();
+		for (int i = 0; i < attributes; i++) {
+			builder.attribute(readString(), readAttribute());
+		}
+		final int groups = readVarint();
+		for (int i = 0; i < groups; i++) {
+			builder.startGroup(element(GROUP_TYPES, readVarint()), readOptionalString(), readOptionalString());
+			final int children = readVarint();
+			for (int j = 0; j < children; j++) {
+				readFeature();
+			}
+			builder.endGroup();
+		}
+		builder.endFeature();
+	}
+
+	private Attribute<?> readAttribute() throws IOException, NotSupportedVariabilityTypeException {
+		return new Attribute<>(readString(), readValue());
+	}
+
+	private Object readValue() throws IOException, NotSupportedVariabilityTypeException {
+		final int tag = readVarint();
+		switch (tag) {
+		case BinaryUVL.VALUE_FALSE:
+			return Boolean.FALSE;
+		case BinaryUVL.VALUE_TRUE:
+			return Boolean.TRUE;
+		case BinaryUVL.VALUE_LONG:
+			return readSignedVarint();
+		case BinaryUVL.VALUE_INTEGER:
+			return (int) readSignedVarint();
+		case BinaryUVL.VALUE_DOUBLE:
+			return in.readDouble();
+		case BinaryUVL.VALUE_STRING:
+			return readString();
+		case BinaryUVL.VALUE_CONSTRAINT:
+			return readConstraint();
+		case BinaryUVL.VALUE_LIST:
+			final int size = readVarint();
+			final List<Object> list = new ArrayList<>(Math.min(size, MAX_PREALLOCATION));
+			for (int i = 0; i < size; i++) {
+				list.add(readValue());
+			}
+			return list;
+		case BinaryUVL.VALUE_MAP:
+			final int entries = readVarint();
+			final Map<String, Object> map = new HashMap<>();
+			for (int i = 0; i < entries; i++) {
+				map.put(readString(), readValue());
+			}
+			return map;
+		case BinaryUVL.VALUE_ATTRIBUTE:
+			return readAttribute();
+		default:
+			throw new NotSupportedVariabilityTypeException(String.format("Unknown attribute value tag %d", tag));
+		}
+	}
+
+	private Constraint readConstraint() throws IOException, NotSupportedVariabilityTypeException {
+		final Deque<Constraint> constraints = new ArrayDeque<>();
+		final Deque<Expression> expressions = new ArrayDeque<>();
+		int operator;
+		while ((operator = readVarint()) != BinaryUVL.END) {
+			switch (operator) {
+			case BinaryUVL.LITERAL:
+				constraints.push(references.add(new LiteralConstraint(readString())));
+				break;
+			case BinaryUVL.NOT:
+				constraints.push(new NotConstraint(pop(constraints)));
+				break;
+			case BinaryUVL.PARENTHESIS:
+				constraints.push(new ParenthesisConstraint(pop(constraints)));
+				break;
+			case BinaryUVL.AND:
+			case BinaryUVL.OR:
+			case BinaryUVL.IMPLICATION:
+			case BinaryUVL.EQUIVALENCE:
+				final Constraint right = pop(constraints);
+				constraints.push(binaryConstraint(operator, pop(constraints), right));
+				break;
+			case BinaryUVL.EQUAL:
+			case BinaryUVL.NOT_EQUAL:
+			case BinaryUVL.LOWER:
+			case BinaryUVL.LOWER_EQUAL:
+			case BinaryUVL.GREATER:
+			case BinaryUVL.GREATER_EQUAL:
+				final Expression rightTerm = pop(expressions);
+				constraints.push(equationConstraint(operator, pop(expressions), rightTerm));
+				break;
+			case BinaryUVL.NUMBER:
+				expressions.push(new NumberExpression(in.readDouble()));
+				break;
+			case BinaryUVL.STRING:
+				expressions.push(new StringExpression(readString()));
+				break;
+			case BinaryUVL.LITERAL_EXPRESSION:
+				expressions.push(references.add(new LiteralExpression(readString())));
+				break;
+			case BinaryUVL.TRUE_EXPRESSION:
+				expressions.push(new LiteralExpression(Boolean.TRUE));
+				break;
+			case BinaryUVL.FALSE_EXPRESSION:
+				expressions.push(new LiteralExpression(Boolean.FALSE));
+				break;
+			case BinaryUVL.PARENTHESIS_EXPRESSION:
+				expressions.push(new ParenthesisExpression(pop(expressions)));
+				break;
+			case BinaryUVL.ADD:
+			case BinaryUVL.SUB:
+			case BinaryUVL.MUL:
+			case BinaryUVL.DIV:
+				final Expression rightExpression = pop(expressions);
+				expressions.push(binaryExpression(operator, pop(expressions), rightExpression));
+				break;
+			default:
+				throw new NotSupportedVariabilityTypeException(String.format("Unknown constraint operator %d", operator));
+			}
+		}
+		if (constraints.size() != 1 || !expressions.isEmpty()) {
+			throw new NotSupportedVariabilityTypeException("Malformed constraint in binary UVL snapshot");
+		}
+		return constraints.pop();
+	}
+
+	private static Constraint binaryConstraint(final int operator, final Constraint left, final Constraint right) {
+		switch (operator) {
+		case BinaryUVL.AND:
+			return new AndConstraint(left, right);
+		case BinaryUVL.OR:
+			return new OrConstraint(left, right);
+		case BinaryUVL.IMPLICATION:
+			return new ImplicationConstraint(left, right);
+		default:
+			return new EquivalenceConstraint(left, right);
+		}
+	}
+
+	private static Constraint equationConstraint(final int operator, final Expression left, final Expression right) {
+		switch (operator) {
+		case BinaryUVL.EQUAL:
+			return new EqualEquationConstraint(left, right);
+		case BinaryUVL.NOT_EQUAL:
+			return new NotEqualsEquationConstraint(left, right);
+		case BinaryUVL.LOWER:
+			return new LowerEquationConstraint(left, right);
+		case BinaryUVL.LOWER_EQUAL:
+			return new LowerEqualsEquationConstraint(left, right);
+		case BinaryUVL.GREATER:
+			return new GreaterEquationConstraint(left, right);
+		default:
+			return new GreaterEqualsEquationConstraint(left, right);
+		}
+	}
+
+	private static Expression binaryExpression(final int operator, final Expression left, final Expression right) {
+		switch (operator) {
+		case BinaryUVL.ADD:
+			return new AddExpression(left, right);
+		case BinaryUVL.SUB:
+			return new SubExpression(left, right);
+		case BinaryUVL.MUL:
+			return new MulExpression(left, right);
+		default:
+			return new DivExpression(left, right);
+		}
+	}
+
+	private static <E> E pop(final Deque<E> stack) throws NotSupportedVariabilityTypeException {
+		if (stack.isEmpty()) {
+			throw new NotSupportedVariabilityTypeException("Malformed constraint in binary UVL snapshot");
+		}
+		return stack.pop();
+	}
+
+	private static <E> E element(final E[] values, final int index) throws NotSupportedVariabilityTypeException {
+		if (index < 0 || index >= values.length) {
+			throw new NotSupportedVariabilityTypeException(String.format("Unknown type index %d", index));
+		}
+		return values[index];
+	}
+
+	private String readString() throws IOException, NotSupportedVariabilityTypeException {
+		return element(strings, readVarint());
+	}
+
+	private String readOptionalString() throws IOException, NotSupportedVariabilityTypeException {
+		return readVarint() == 0 ? null : readString();
+	}
+
+	private int readVarint() throws IOException, NotSupportedVariabilityTypeException {
+		final long value = readRawVarint();
+		if (value > Integer.MAX_VALUE) {
+			throw new NotSupportedVariabilityTypeException("Varint out of range in binary UVL snapshot");
+		}
+		return (int) value;
+	}
+
+	private long readSignedVarint() throws IOException, NotSupportedVariabilityTypeException {
+		final long value = readRawVarint();
+		return value >>> 1 ^ -(value & 1);
+	}
+
+	private long readRawVarint() throws IOException, NotSupportedVariabilityTypeException {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			final int b = in.read();
+			if (b < 0) {
+				throw new EOFException();
+			}
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new NotSupportedVariabilityTypeException("Malformed varint in binary UVL snapshot");
+	}
+}
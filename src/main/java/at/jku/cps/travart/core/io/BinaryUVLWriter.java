@@ -0,0 +1,367 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * Implements the writing of binary UVL snapshots.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import at.jku.cps.travart.core.exception.NotSupportedVariabilityTypeException;
+import at.jku.cps.travart.core.stream.FeatureModelEventEmitter;
+import de.vill.model.Attribute;
+import de.vill.model.Feature;
+import de.vill.model.FeatureModel;
+import de.vill.model.Group;
+import de.vill.model.LanguageLevel;
+import de.vill.model.constraint.AndConstraint;
+import de.vill.model.constraint.Constraint;
+import de.vill.model.constraint.EqualEquationConstraint;
+import de.vill.model.constraint.EquivalenceConstraint;
+import de.vill.model.constraint.ExpressionConstraint;
+import de.vill.model.constraint.GreaterEqualsEquationConstraint;
+import de.vill.model.constraint.GreaterEquationConstraint;
+import de.vill.model.constraint.ImplicationConstraint;
+import de.vill.model.constraint.LiteralConstraint;
+import de.vill.model.constraint.LowerEqualsEquationConstraint;
+import de.vill.model.constraint.LowerEquationConstraint;
+import de.vill.model.constraint.NotConstraint;
+import de.vill.model.constraint.NotEqualsEquationConstraint;
+import de.vill.model.constraint.OrConstraint;
+import de.vill.model.constraint.ParenthesisConstraint;
+import de.vill.model.expression.AddExpression;
+import de.vill.model.expression.DivExpression;
+import de.vill.model.expression.Expression;
+import de.vill.model.expression.LiteralExpression;
+import de.vill.model.expression.MulExpression;
+import de.vill.model.expression.NumberExpression;
+import de.vill.model.expression.ParenthesisExpression;
+import de.vill.model.expression.StringExpression;
+import de.vill.model.expression.SubExpression;
+
+/**
+ * Writes a core model as binary UVL snapshot, see {@link BinaryUVL}.
+ *
+ * @author Kevin Feichtinger
+ */
+final class BinaryUVLWriter {
+	private final Map<String, Integer> strings = new LinkedHashMap<>();
+	private final ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream();
+	private final DataOutputStream body = new DataOutputStream(bodyBytes);
+	private final StringDictionary dictionary;
+
+	private BinaryUVLWriter(final StringDictionary dictionary) {
+		this.dictionary = dictionary;
+	}
+
+	/**
+	 * Writes the given model to the given stream. The stream is flushed, but not
+	 * closed.
+	 *
+	 * @param model  the model to write.
+	 * @param stream the stream to write to.
+	 * @throws IOException                          if writing fails.
+	 * @throws NotSupportedVariabilityTypeException if the model contains elements
+	 *                                              not supported by the format.
+	 */
+	static void write(final FeatureModel model, final OutputStream stream)
+			throws IOException, NotSupportedVariabilityTypeException {
+		new BinaryUVLWriter(null).writeModel(model, stream);
+	}
+
+	/**
+	 * Writes the given model to the given stream, storing the feature names in
+	 * the given dictionary instead of the string table of the snapshot. The
+	 * snapshot can only be read with the same dictionary, see
+	 * {@link BinaryUVLReader#read(InputStream, StringDictionary)}. The stream is
+	 * flushed, but not closed.
+	 *
+	 * @param model      the model to write.
+	 * @param stream     the stream to write to.
+	 * @param dictionary the dictionary to add the feature names to.
+	 * @throws IOException                          if writing fails.
+	 * @throws NotSupportedVariabilityTypeException if the model contains elements
+	 *                                              not supported by the format.
+	 */
+	static void write(final FeatureModel model, final OutputStream stream, final StringDictionary dictionary)
+			throws IOException, NotSupportedVariabilityTypeException {
+		new BinaryUVLWriter(dictionary).writeModel(model, stream);
+	}
+
+	private void writeModel(final FeatureModel model, final OutputStream stream)
+			throws IOException, NotSupportedVariabilityTypeException {
+		if (!model.getImports().isEmpty()) {
+			throw new NotSupportedVariabilityTypeException("Models with imports can not be stored in binary format");
+		}
+		final String namespace = FeatureModelEventEmitter.explicitNamespace(model);
+		int flags = 0;
+		if (namespace != null) {
+			flags |= BinaryUVL.FLAG_NAMESPACE;
+		}
+		if (model.isExplicitLanguageLevels()) {
+			flags |= BinaryUVL.FLAG_EXPLICIT_LEVELS;
+		}
+		if (model.getRootFeature() != null) {
+			flags |= BinaryUVL.FLAG_ROOT;
+		}
+		writeVarint(flags);
+		if (namespace != null) {
+			writeString(namespace);
+		}
+		writeVarint(model.getUsedLanguageLevels().size());
+		for (final LanguageLevel level : model.getUsedLanguageLevels()) {
+			writeString(level.name());
+		}
+		if (model.getRootFeature() != null) {
+			writeFeature(model.getRootFeature());
+		}
+		writeVarint(model.getOwnConstraints().size());
+		for (final Constraint constraint : model.getOwnConstraints()) {
+			writeConstraint(constraint);
+			writeVarint(BinaryUVL.END);
+		}
+		body.flush();
+
+		final DataOutputStream out = new DataOutputStream(stream);
+		out.write(BinaryUVL.MAGIC);
+		writeVarint(out, BinaryUVL.VERSION);
+		writeVarint(out, strings.size());
+		for (final String string : strings.keySet()) {
+			final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+			writeVarint(out, bytes.length);
+			out.write(bytes);
+		}
+		bodyBytes.writeTo(out);
+		out.flush();
+	}
+
+	private void writeFeature(final Feature feature) throws IOException, NotSupportedVariabilityTypeException {
+		if (dictionary == null) {
+			writeString(feature.getFeatureName());
+		} else {
+			writeVarint(dictionary.add(feature.getFeatureName()));
+		}
+		writeVarint(feature.getFeatureType() == null ? 0 : feature.getFeatureType().ordinal() + 1);
+		writeOptionalString(feature.getLowerBound());
+		writeOptionalString(feature.getUpperBound());
+		writeVarint(feature.getAttributes().size());
+		for (final Map.Entry<String, ?> entry : feature.getAttributes().entrySet()) {
+			writeString(entry.getKey());
+			writeAttribute((Attribute<?>) entry.getValue());
+		}
+		writeVarint(feature.getChildren().size());
+		for (final Group group : feature.getChildren()) {
+			writeVarint(group.GROUPTYPE.ordinal());
+			writeOptionalString(group.getLowerBound());
+			writeOptionalString(group.getUpperBound());
+			writeVarint(group.getFeatures().size());
+			for (final Feature child : group.getFeatures()) {
+				writeFeature(child);
+			}
+		}
+	}
+
+	private void writeAttribute(final Attribute<?> attribute)
+			throws IOException, NotSupportedVariabilityTypeException {
+		writeString(attribute.getName());
+		writeValue(attribute.getValue());
+	}
+
+	private void writeValue(final Object value) throws IOException, NotSupportedVariabilityTypeException {
+		if (value instanceof Boolean) {
+			writeVarint((Boolean) value ? BinaryUVL.VALUE_TRUE : BinaryUVL.VALUE_FALSE);
+		} else if (value instanceof Long) {
+			writeVarint(BinaryUVL.VALUE_LONG);
+			writeSignedVarint((Long) value);
+		} else if (value instanceof Integer) {
+			writeVarint(BinaryUVL.VALUE_INTEGER);
+			writeSignedVarint((Integer) value);
+		} else if (value instanceof Double) {
+			writeVarint(BinaryUVL.VALUE_DOUBLE);
+			body.writeDouble((Double) value);
+		} else if (value instanceof String) {
+			writeVarint(BinaryUVL.VALUE_STRING);
+			writeString((String) value);
+		} else if (value instanceof Constraint) {
+			writeVarint(BinaryUVL.VALUE_CONSTRAINT);
+			writeConstraint((Constraint) value);
+			writeVarint(BinaryUVL.END);
+		} else if (value instanceof List) {
+			writeVarint(BinaryUVL.VALUE_LIST);
+			final List<?> list = (List<?>) value;
+			writeVarint(list.size());
+			for (final Object item : list) {
+				writeValue(item);
+			}
+		} else if (value instanceof Map) {
+			writeVarint(BinaryUVL.VALUE_MAP);
+			final Map<?, ?> map = (Map<?, ?>) value;
+			writeVarint(map.size());
+			for (final Map.Entry<?, ?> entry : map.entrySet()) {
+				writeString(String.valueOf(entry.getKey()));
+				writeValue(entry.getValue());
+			}
+		} else if (value instanceof Attribute) {
+			writeVarint(BinaryUVL.VALUE_ATTRIBUTE);
+			writeAttribute((Attribute<?>) value);
+		} else {
+			throw new NotSupportedVariabilityTypeException(
+					String.format("Attribute value %s can not be stored in binary format", value));
+		}
+	}
+
+	private void writeConstraint(final Constraint constraint)
+			throws IOException, NotSupportedVariabilityTypeException {
+		if (constraint instanceof LiteralConstraint) {
+			writeVarint(BinaryUVL.LITERAL);
+			writeString(((LiteralConstraint) constraint).getLiteral());
+		} else if (constraint instanceof NotConstraint) {
+			writeConstraint(((NotConstraint) constraint).getContent());
+			writeVarint(BinaryUVL.NOT);
+		} else if (constraint instanceof ParenthesisConstraint) {
+			writeConstraint(((ParenthesisConstraint) constraint).getContent());
+			writeVarint(BinaryUVL.PARENTHESIS);
+		} else if (constraint instanceof AndConstraint) {
+			writeConstraint(((AndConstraint) constraint).getLeft());
+			writeConstraint(((AndConstraint) constraint).getRight());
+			writeVarint(BinaryUVL.AND);
+		} else if (constraint instanceof OrConstraint) {
+			writeConstraint(((OrConstraint) constraint).getLeft());
+			writeConstraint(((OrConstraint) constraint).getRight());
+			writeVarint(BinaryUVL.OR);
+		} else if (constraint instanceof ImplicationConstraint) {
+			writeConstraint(((ImplicationConstraint) constraint).getLeft());
+			writeConstraint(((ImplicationConstraint) constraint).getRight());
+			writeVarint(BinaryUVL.IMPLICATION);
+		} else if (constraint instanceof EquivalenceConstraint) {
+			writeConstraint(((EquivalenceConstraint) constraint).getLeft());
+			writeConstraint(((EquivalenceConstraint) constraint).getRight());
+			writeVarint(BinaryUVL.EQUIVALENCE);
+		} else if (constraint instanceof ExpressionConstraint) {
+			final ExpressionConstraint expression = (ExpressionConstraint) constraint;
+			writeExpression(expression.getLeft());
+			writeExpression(expression.getRight());
+			writeVarint(equationOperator(expression));
+		} else {
+			throw new NotSupportedVariabilityTypeException(
+					String.format("Constraint %s can not be stored in binary format", constraint));
+		}
+	}
+
+	private static int equationOperator(final ExpressionConstraint constraint)
+			throws NotSupportedVariabilityTypeException {
+		if (constraint instanceof EqualEquationConstraint) {
+			return BinaryUVL.EQUAL;
+		}
+		if (constraint instanceof NotEqualsEquationConstraint) {
+			return BinaryUVL.NOT_EQUAL;
+		}
+		if (constraint instanceof LowerEquationConstraint) {
+			return BinaryUVL.LOWER;
+		}
+		if (constraint instanceof LowerEqualsEquationConstraint) {
+			return BinaryUVL.LOWER_EQUAL;
+		}
+		if (constraint instanceof GreaterEquationConstraint) {
+			return BinaryUVL.GREATER;
+		}
+		if (constraint instanceof GreaterEqualsEquationConstraint) {
+			return BinaryUVL.GREATER_EQUAL;
+		}
+		throw new NotSupportedVariabilityTypeException(
+				String.format("Constraint %s can not be stored in binary format", constraint));
+	}
+
+	private void writeExpression(final Expression expression)
+			throws IOException, NotSupportedVariabilityTypeException {
+		if (expression instanceof NumberExpression) {
+			writeVarint(BinaryUVL.NUMBER);
+			body.writeDouble(((NumberExpression) expression).getNumber());
+		} else if (expression instanceof StringExpression) {
+			writeVarint(BinaryUVL.STRING);
+			writeString(((StringExpression) expression).getString());
+		} else if (expression instanceof LiteralExpression) {
+			final LiteralExpression literal = (LiteralExpression) expression;
+			if (literal.getContent() == null) {
+				// boolean literals have no content and print their value
+				writeVarint(Boolean.parseBoolean(literal.toString(false, "")) ? BinaryUVL.TRUE_EXPRESSION
+						: BinaryUVL.FALSE_EXPRESSION);
+			} else {
+				writeVarint(BinaryUVL.LITERAL_EXPRESSION);
+				writeString(literal.getContent());
+			}
+		} else if (expression instanceof ParenthesisExpression) {
+			writeExpression(expression.getExpressionSubParts().get(0));
+			writeVarint(BinaryUVL.PARENTHESIS_EXPRESSION);
+		} else if (expression instanceof AddExpression || expression instanceof SubExpression
+				|| expression instanceof MulExpression || expression instanceof DivExpression) {
+			final List<Expression> parts = expression.getExpressionSubParts();
+			writeExpression(parts.get(0));
+			writeExpression(parts.get(1));
+			if (expression instanceof AddExpression) {
+				writeVarint(BinaryUVL.ADD);
+			} else if (expression instanceof SubExpression) {
+				writeVarint(BinaryUVL.SUB);
+			} else if (expression instanceof MulExpression) {
+				writeVarint(BinaryUVL.MUL);
+			} else {
+				writeVarint(BinaryUVL.DIV);
+			}
+		} else {
+			throw new NotSupportedVariabilityTypeException(
+					String.format("Expression %s can not be stored in binary format", expression));
+		}
+	}
+
+	private void writeString(final String string) throws IOException {
+		Integer index = strings.get(string);
+		if (index == null) {
+			index = strings.size();
+			strings.put(string, index);
+		}
+		writeVarint(index);
+	}
+
+	private void writeOptionalString(final String string) throws IOException {
+		if (string == null) {
+			writeVarint(0);
+		} else {
+			writeVarint(1);
+			writeString(string);
+		}
+	}
+
+	private void writeVarint(final long value) throws IOException {
+		writeVarint(body, value);
+	}
+
+	private void writeSignedVarint(final long value) throws IOException {
+		writeVarint(body, value << 1 ^ value >> 63);
+	}
+
+	private static void writeVarint(final DataOutputStream out, final long value) throws IOException {
+		long remaining = value;
+		while ((remaining & ~0x7FL) != 0) {
+			out.writeByte((int) (remaining & 0x7F | 0x80));
+			remaining >>>= 7;
+		}
+		out.writeByte((int) remaining);
+	}
+}
@@ -16,6 +16,8 @@
 package at.jku.cps.travart.core.io;
 
 import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Set;
@@ -36,4 +38,21 @@ public final class FileUtils {
 		return Files.walk(path, level).filter(Files::isRegularFile)
 				.filter(f -> f.getFileName().toString().endsWith(extension)).collect(Collectors.toSet());
 	}
+
+	/**
+	 * Opens a reader for the given UTF-8 encoded file. Files of at least the given
+	 * size are memory-mapped, smaller files are read with a buffered reader.
+	 *
+	 * @param path             the file to read.
+	 * @param mappingThreshold the file size in bytes from which the file is
+	 *                         memory-mapped.
+	 * @return a reader for the file.
+	 * @throws IOException if the file can not be opened.
+	 */
+	public static Reader newReader(final Path path, final long mappingThreshold) throws IOException {
+		if (Files.size(path) >= mappingThreshold) {
+			return new MappedFileReader(path);
+		}
+		return Files.newBufferedReader(path, StandardCharsets.UTF_8);
+	}
 }
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * Implements a line-based writer indenting its lines like the UVL library.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.io;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Objects;
+
+import de.vill.config.Configuration;
+
+/**
+ * A writer of indented lines, using the tabulator and newline symbols of the
+ * UVL library {@link Configuration}. Lines are written directly to the
+ * underlying writer, such that a document is never built in memory. Errors of
+ * the underlying writer are rethrown as {@link UncheckedIOException}.
+ *
+ * @author Kevin Feichtinger
+ */
+public class IndentingWriter {
+	private final Writer writer;
+	private int depth;
+
+	/**
+	 * Creates an indenting writer writing to the given writer.
+	 *
+	 * @param writer the writer to write to.
+	 */
+	public IndentingWriter(final Writer writer) {
+		this(writer, 0);
+	}
+
+	/**
+	 * Creates an indenting writer writing to the given writer, starting at the
+	 * given indentation level. Used to render parts of a document separately.
+	 *
+	 * @param writer the writer to write to.
+	 * @param depth  the initial indentation level.
+	 */
+	public IndentingWriter(final Writer writer, final int depth) {
+		if (depth < 0) {
+			throw new IllegalArgumentException("The indentation level must not be negative");
+		}
+		this.writer = Objects.requireNonNull(writer);
+		this.depth = depth;
+	}
+
+	/**
+	 * Increases the indentation of the following lines by one level.
+	 */
+	public void indent() {
+		depth++;
+	}
+
+	/**
+	 * Decreases the indentation of the following lines by one level.
+	 */
+	public void unindent() {
+		if (depth == 0) {
+			throw new IllegalStateException("Indentation is already at the top level");
+		}
+		depth--;
+	}
+
+	/**
+	 * Returns the current indentation level.
+	 *
+	 * @return the current indentation level.
+	 */
+	public int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * Writes the given text as indented line. Like the indentation of the UVL
+	 * library, each line of a multi-line text is indented and trailing empty lines
+	 * are dropped.
+	 *
+	 * @param text the text to write.
+	 */
+	public void writeLine(final String text) {
+		for (final String line : text.split(Configuration.getNewlineSymbol())) {
+			for (int i = 0; i < depth; i++) {
+				write(Configuration.getTabulatorSymbol());
+			}
+			write(line);
+			newLine();
+		}
+	}
+
+	/**
+	 * Writes the given text without indentation.
+	 *
+	 * @param text the text to write.
+	 */
+	public void write(final String text) {
+		try {
+			writer.write(text);
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Writes a newline symbol.
+	 */
+	public void newLine() {
+		write(Configuration.getNewlineSymbol());
+	}
+
+	/**
+	 * Flushes the underlying writer.
+	 */
+	public void flush() {
+		try {
+			writer.flush();
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * Implements the linking of constraint literals to the features of a model.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.io;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import at.jku.cps.travart.core.exception.NotSupportedVariabilityTypeException;
+import de.vill.model.Feature;
+import de.vill.model.FeatureModel;
+import de.vill.model.constraint.LiteralConstraint;
+import de.vill.model.expression.LiteralExpression;
+
+/**
+ * Collects the literals created while reading a model and links them to the
+ * features of the model once the feature tree is complete, as the UVL parser
+ * does.
+ *
+ * @author Kevin Feichtinger
+ */
+final class LiteralReferences {
+	private final List<LiteralConstraint> constraints = new ArrayList<>();
+	private final List<LiteralExpression> expressions = new ArrayList<>();
+
+	LiteralConstraint add(final LiteralConstraint constraint) {
+		constraints.add(constraint);
+		return constraint;
+	}
+
+	LiteralExpression add(final LiteralExpression expression) {
+		expressions.add(expression);
+		return expression;
+	}
+
+	/**
+	 * Links the collected literals to the features of the given model and
+	 * registers them with the model.
+	 *
+	 * @param model the model the literals belong to.
+	 * @throws NotSupportedVariabilityTypeException if a literal references a
+	 *                                              feature or attribute which
+	 *                                              does not exist.
+	 */
+	void link(final FeatureModel model) throws NotSupportedVariabilityTypeException {
+		link(model, constraints, expressions);
+		model.getLiteralConstraints().addAll(constraints);
+		model.getLiteralExpressions().addAll(expressions);
+	}
+
+	/**
+	 * Links the given literals to the features of the given model.
+	 *
+	 * @param model       the model the literals belong to.
+	 * @param constraints the literal constraints to link.
+	 * @param expressions the literal expressions to link.
+	 * @throws NotSupportedVariabilityTypeException if a literal references a
+	 *                                              feature or attribute which
+	 *                                              does not exist.
+	 */
+	static void link(final FeatureModel model, final Iterable<LiteralConstraint> constraints,
+			final Iterable<LiteralExpression> expressions) throws NotSupportedVariabilityTypeException {
+		for (final LiteralConstraint constraint : constraints) {
+			final Feature feature = model.getFeatureMap().get(constraint.getLiteral().replace("'", ""));
+			if (feature == null) {
+				throw new NotSupportedVariabilityTypeException(
+						String.format("Constraint references unknown feature %s", constraint.getLiteral()));
+			}
+			constraint.setFeature(feature);
+		}
+		for (final LiteralExpression expression : expressions) {
+			final Feature feature = model.getFeatureMap().get(expression.getFeatureName());
+			if (feature == null || expression.getAttributeName() != null
+					&& feature.getAttributes().get(expression.getAttributeName()) == null) {
+				throw new NotSupportedVariabilityTypeException(
+						String.format("Constraint references unknown attribute %s", expression.getContent()));
+			}
+			expression.setFeature(feature);
+		}
+	}
+}
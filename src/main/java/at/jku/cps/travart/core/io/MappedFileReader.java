@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * Implements a reader decoding a memory-mapped file.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.io;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A reader of UTF-8 encoded files, which maps the file into memory with
+ * {@link FileChannel#map(FileChannel.MapMode, long, long)} and decodes the
+ * characters directly from the mapped buffer. Large files are mapped in
+ * windows of a fixed size, such that files larger than 2 GB can be read and
+ * the address space used stays bounded. Characters spanning the border of two
+ * windows are decoded from the next window, which starts at the first
+ * unconsumed byte. If only one character is requested and the next code point
+ * is a surrogate pair, the high surrogate is returned and the low surrogate is
+ * kept for the next call.
+ *
+ * @author Kevin Feichtinger
+ */
+public class MappedFileReader extends Reader {
+	/**
+	 * The default size of a mapped window.
+	 */
+	public static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+	private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+	private final FileChannel channel;
+	private final long size;
+	private final int windowSize;
+	private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+			.onMalformedInput(CodingErrorAction.REPORT).onUnmappableCharacter(CodingErrorAction.REPORT);
+	private final CharBuffer pending = CharBuffer.allocate(2).limit(0);
+	private MappedByteBuffer window;
+	private long windowStart;
+	private boolean endOfInput;
+
+	/**
+	 * Creates a reader for the given file with the default window size.
+	 *
+	 * @param filePath the file to read.
+	 * @throws IOException if the file can not be opened.
+	 */
+	public MappedFileReader(final Path filePath) throws IOException {
+		this(filePath, DEFAULT_WINDOW_SIZE);
+	}
+
+	/**
+	 * Creates a reader for the given file.
+	 *
+	 * @param filePath   the file to read.
+	 * @param windowSize the number of bytes mapped at once, at least 4.
+	 * @throws IOException if the file can not be opened.
+	 */
+	public MappedFileReader(final Path filePath, final int windowSize) throws IOException {
+		if (windowSize < 4) {
+			throw new IllegalArgumentException("A window must hold at least one character");
+		}
+		this.channel = FileChannel.open(filePath, StandardOpenOption.READ);
+		this.size = channel.size();
+		this.windowSize = windowSize;
+	}
+
+	@Override
+	public int read(final char[] cbuf, final int off, final int len) throws IOException {
+		if (!channel.isOpen()) {
+			throw new IOException("Reader closed");
+		}
+		if (len == 0) {
+			return 0;
+		}
+		if (pending.hasRemaining()) {
+			cbuf[off] = pending.get();
+			return 1;
+		}
+		if (endOfInput) {
+			return -1;
+		}
+		final CharBuffer out = CharBuffer.wrap(cbuf, off, len);
+		while (out.position() == off) {
+			if (window == null || !window.hasRemaining()) {
+				final long next = window == null ? 0 : windowStart + window.position();
+				if (next >= size) {
+					finish(out);
+					break;
+				}
+				map(next);
+			}
+			final boolean last = windowStart + window.limit() >= size;
+			final CoderResult result = decoder.decode(window, out, last);
+			if (result.isError()) {
+				result.throwException();
+			}
+			if (result.isOverflow() && out.position() == off) {
+				// a surrogate pair does not fit into the requested single character
+				decodePair(last);
+				out.put(pending.get());
+			} else if (result.isUnderflow() && window.hasRemaining()) {
+				// a character spans the end of the window
+				map(windowStart + window.position());
+			}
+		}
+		final int read = out.position() - off;
+		return read == 0 && endOfInput ? -1 : read;
+	}
+
+	private void decodePair(final boolean last) throws CharacterCodingException {
+		pending.clear();
+		final CoderResult result = decoder.decode(window, pending, last);
+		if (result.isError()) {
+			result.throwException();
+		}
+		pending.flip();
+	}
+
+	private void finish(final CharBuffer out) throws IOException {
+		final CoderResult result = decoder.decode(EMPTY, out, true);
+		if (result.isError()) {
+			result.throwException();
+		}
+		decoder.flush(out);
+		endOfInput = true;
+	}
+
+	private void map(final long position) throws IOException {
+		windowStart = position;
+		window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(windowSize, size - position));
+	}
+
+	@Override
+	public void close() throws IOException {
+		window = null;
+		channel.close();
+	}
+}
@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * Implements the parallel rendering of large UVL models.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.io;
+
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+import at.jku.cps.travart.core.exception.NotSupportedVariabilityTypeException;
+import at.jku.cps.travart.core.stream.FeatureModelEventEmitter;
+import de.vill.model.Attribute;
+import de.vill.model.Feature;
+import de.vill.model.FeatureModel;
+import de.vill.model.Group;
+import de.vill.model.LanguageLevel;
+import de.vill.model.constraint.Constraint;
+
+/**
+ * Renders a UVL model like the {@link UVLEventWriter}, but renders large
+ * subtrees of the feature tree and chunks of the constraints concurrently.
+ * Subtrees with at least the given number of features are split into their
+ * child subtrees, which are rendered into separate buffers at their
+ * indentation and concatenated in order. The output is thus identical to the
+ * sequential output.
+ *
+ * @author Kevin Feichtinger
+ */
+final class ParallelUVLWriter {
+
+	private ParallelUVLWriter() {
+
+	}
+
+	/**
+	 * Writes the given model without imports to the given writer.
+	 *
+	 * @param model     the model to write.
+	 * @param writer    the writer to write to.
+	 * @param threshold the number of features from which subtrees are split, also
+	 *                  the number of constraints per chunk.
+	 * @throws NotSupportedVariabilityTypeException if the model can not be
+	 *                                              rendered.
+	 */
+	static void write(final FeatureModel model, final Writer writer, final int threshold)
+			throws NotSupportedVariabilityTypeException {
+		final ForkJoinPool pool = ForkJoinPool.commonPool();
+		final List<ForkJoinTask<String>> chunks = new ArrayList<>();
+		final List<Constraint> constraints = model.getOwnConstraints();
+		for (int i = 0; i < constraints.size(); i += threshold) {
+			final List<Constraint> chunk = constraints.subList(i, Math.min(i + threshold, constraints.size()));
+			chunks.add(pool.submit(() -> render(chunk)));
+		}
+
+		final UVLEventWriter events = new UVLEventWriter(writer);
+		events.startModel(FeatureModelEventEmitter.explicitNamespace(model), model.isExplicitLanguageLevels());
+		for (final LanguageLevel level : model.getUsedLanguageLevels()) {
+			events.languageLevel(level);
+		}
+		try {
+			if (model.getRootFeature() != null) {
+				final Map<Feature, Integer> sizes = new IdentityHashMap<>();
+				size(model.getRootFeature(), sizes);
+				events.featureTree(pool.invoke(new SubtreeTask(model.getRootFeature(), 0, sizes, threshold)));
+			}
+			for (final ForkJoinTask<String> chunk : chunks) {
+				events.constraints(chunk.join());
+			}
+		} catch (final CompletionException e) {
+			// exceptions joined from other threads may be wrapped once more
+			for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+				if (cause instanceof NotSupportedVariabilityTypeException) {
+					throw (NotSupportedVariabilityTypeException) cause;
+				}
+			}
+			throw e;
+		}
+		events.endModel();
+	}
+
+	private static String render(final List<Constraint> constraints) {
+		final StringWriter buffer = new StringWriter();
+		final IndentingWriter writer = new IndentingWriter(buffer);
+		for (final Constraint constraint : constraints) {
+			UVLEventWriter.writeConstraint(writer, constraint);
+		}
+		return buffer.toString();
+	}
+
+	private static int size(final Feature feature, final Map<Feature, Integer> sizes) {
+		int size = 1;
+		for (final Group group : feature.getChildren()) {
+			for (final Feature child : group.getFeatures()) {
+				size += size(child, sizes);
+			}
+		}
+		sizes.put(feature, size);
+		return size;
+	}
+
+	/**
+	 * Renders the subtree of a feature. Small subtrees are rendered directly,
+	 * larger ones render the line of the feature and the group lines themselves
+	 * and fork a task per child subtree.
+	 */
+	private static final class SubtreeTask extends RecursiveTask<String> {
+		private static final long serialVersionUID = 1L;
+
+		private final transient Feature feature;
+		private final int depth;
+		private final transient Map<Feature, Integer> sizes;
+		private final int threshold;
+
+		private SubtreeTask(final Feature feature, final int depth, final Map<Feature, Integer> sizes,
+				final int threshold) {
+			this.feature = feature;
+			this.depth = depth;
+			this.sizes = sizes;
+			this.threshold = threshold;
+		}
+
+		@Override
+		protected String compute() {
+			final StringWriter buffer = new StringWriter();
+			final UVLEventWriter writer = new UVLEventWriter(buffer, depth);
+			try {
+				if (sizes.get(feature) < threshold) {
+					FeatureModelEventEmitter.emit(feature, writer);
+					return buffer.toString();
+				}
+				final List<List<SubtreeTask>> groups = new ArrayList<>();
+				for (final Group group : feature.getChildren()) {
+					final List<SubtreeTask> children = new ArrayList<>();
+					for (final Feature child : group.getFeatures()) {
+						final SubtreeTask task = new SubtreeTask(child, depth + 2, sizes, threshold);
+						task.fork();
+						children.add(task);
+					}
+					groups.add(children);
+				}
+				writer.startFeature(feature.getFeatureName(), feature.getFeatureType(), feature.getLowerBound(),
+						feature.getUpperBound());
+				for (final Map.Entry<String, ?> entry : feature.getAttributes().entrySet()) {
+					writer.attribute(entry.getKey(), (Attribute<?>) entry.getValue());
+				}
+				for (int i = 0; i < groups.size(); i++) {
+					final Group group = feature.getChildren().get(i);
+					writer.startGroup(group.GROUPTYPE, group.getLowerBound(), group.getUpperBound());
+					for (final SubtreeTask child : groups.get(i)) {
+						buffer.write(child.join());
+					}
+					writer.endGroup();
+				}
+				writer.endFeature();
+				return buffer.toString();
+			} catch (final NotSupportedVariabilityTypeException e) {
+				throw new CompletionException(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * Implements a dictionary of strings shared by several binary UVL snapshots.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.io;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import at.jku.cps.travart.core.exception.NotSupportedVariabilityTypeException;
+
+/**
+ * A dictionary of strings shared by several binary UVL snapshots, such that
+ * feature names common to many models are stored once. Strings are only
+ * added, thus the index of a string never changes and snapshots written with
+ * an earlier state of the dictionary can be read with any later state.
+ *
+ * @author Kevin Feichtinger
+ */
+final class StringDictionary {
+	private final List<String> strings = new ArrayList<>();
+	private final Map<String, Integer> indices = new HashMap<>();
+
+	/**
+	 * Returns the index of the given string, adding the string if it is not
+	 * contained yet.
+	 *
+	 * @param string the string to look up.
+	 * @return the index of the string.
+	 */
+	synchronized int add(final String string) {
+		Integer index = indices.get(string);
+		if (index == null) {
+			index = strings.size();
+			strings.add(string);
+			indices.put(string, index);
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the string with the given index.
+	 *
+	 * @param index the index of the string.
+	 * @return the string.
+	 * @throws NotSupportedVariabilityTypeException if the dictionary does not
+	 *                                              contain the index.
+	 */
+	synchronized String get(final int index) throws NotSupportedVariabilityTypeException {
+		if (index < 0 || index >= strings.size()) {
+			throw new NotSupportedVariabilityTypeException(String.format("Unknown dictionary index %d", index));
+		}
+		return strings.get(index);
+	}
+
+	/**
+	 * Returns the number of strings in the dictionary.
+	 *
+	 * @return the number of strings.
+	 */
+	synchronized int size() {
+		return strings.size();
+	}
+}
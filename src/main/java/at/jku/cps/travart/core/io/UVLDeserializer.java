@@ -15,18 +15,34 @@
  *******************************************************************************/
 package at.jku.cps.travart.core.io;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
+import java.util.Objects;
 
 import at.jku.cps.travart.core.common.Format;
-import at.jku.cps.travart.core.common.IDeserializer;
+import at.jku.cps.travart.core.common.IModelEventHandler;
+import at.jku.cps.travart.core.common.IStreamingDeserializer;
 import at.jku.cps.travart.core.exception.NotSupportedVariabilityTypeException;
-import de.vill.exception.ParseError;
-import de.vill.main.UVLModelFactory;
+import at.jku.cps.travart.core.stream.FeatureModelEventEmitter;
 import de.vill.model.FeatureModel;
 
 /**
  * Reads a Universal Variability Language (UVL) model from the file system. UVL
  * is used as the core model and is developed by the MODEVAR initiative.
+ * Textual models are read with the {@link UVLReader} from files, strings,
+ * readers, streams and channels alike. Models it does not support are parsed
+ * with the UVL parser, resolving imports with a {@link UVLImportResolver}. The
+ * input of readers, streams and channels is recorded while reading, such that
+ * they fall back to the parser for the same models as files and strings.
+ * Deserializers sharing a resolver share the parsed submodels. Optionally,
+ * parsed models are cached in a {@link UVLSnapshotCache}.
  *
  * @author Kevin Feichtinger
  * @see <a href="https://doi.org/10.1145/3461001.3471145">UVL SPLC Paper
@@ -35,19 +51,211 @@ import de.vill.model.FeatureModel;
  *      Repository</a>
  * @see <a href="https://modevar.github.io/">MODEVAR initiative</a>
  */
-public class UVLDeserializer implements IDeserializer<FeatureModel> {
+public class UVLDeserializer implements IStreamingDeserializer<FeatureModel> {
+	/**
+	 * The default file size in bytes from which files are memory-mapped.
+	 */
+	public static final long DEFAULT_MAPPING_THRESHOLD = 64L * 1024 * 1024;
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final UVLImportResolver importResolver;
+	private final UVLSnapshotCache snapshotCache;
+
+	/**
+	 * Creates a deserializer with its own import resolver.
+	 */
+	public UVLDeserializer() {
+		this(new UVLImportResolver());
+	}
+
+	/**
+	 * Creates a deserializer resolving imports with the given resolver.
+	 *
+	 * @param importResolver the resolver for imported submodels.
+	 */
+	public UVLDeserializer(final UVLImportResolver importResolver) {
+		this(importResolver, null);
+	}
+
+	/**
+	 * Creates a deserializer resolving imports with the given resolver, which
+	 * looks up UVL files in the given snapshot cache before parsing them.
+	 *
+	 * @param importResolver the resolver for imported submodels.
+	 * @param snapshotCache  the cache of parsed models, or {@code null} to parse
+	 *                       every file.
+	 */
+	public UVLDeserializer(final UVLImportResolver importResolver, final UVLSnapshotCache snapshotCache) {
+		this.importResolver = Objects.requireNonNull(importResolver);
+		this.snapshotCache = snapshotCache;
+	}
+
+	/**
+	 * Reads UVL files with the {@link UVLReader}, memory-mapping files of at
+	 * least the {@link #getMappingThreshold() mapping threshold}. Binary
+	 * snapshots are read as streams.
+	 */
+	@Override
+	public FeatureModel deserializeFromFile(final Path filePath)
+			throws IOException, NotSupportedVariabilityTypeException {
+		if (!filePath.toString().endsWith(UVLSerializer.UVL_FORMAT.extension())) {
+			return IStreamingDeserializer.super.deserializeFromFile(filePath);
+		}
+		if (snapshotCache != null) {
+			return deserializeCached(filePath);
+		}
+		try (Reader reader = FileUtils.newReader(filePath, getMappingThreshold())) {
+			return new UVLReader(reader).read();
+		} catch (final NotSupportedVariabilityTypeException e) {
+			// models the reader does not support are left to the UVL parser
+		}
+		return importResolver.resolve(filePath);
+	}
+
+	/**
+	 * Returns the file size in bytes from which {@link #deserializeFromFile(Path)}
+	 * memory-maps the file instead of reading it through a buffer. Mapping avoids
+	 * copying large files through intermediate buffers.
+	 *
+	 * @return the file size from which files are memory-mapped.
+	 */
+	public long getMappingThreshold() {
+		return DEFAULT_MAPPING_THRESHOLD;
+	}
+
+	/**
+	 * Returns the model of the given file from the snapshot cache, or parses the
+	 * file and caches its model.
+	 */
+	private FeatureModel deserializeCached(final Path filePath)
+			throws IOException, NotSupportedVariabilityTypeException {
+		final byte[] content = Files.readAllBytes(filePath);
+		final String key = snapshotCache.key(content);
+		final FeatureModel cached = snapshotCache.get(key);
+		if (cached != null) {
+			return cached;
+		}
+		final String serial = new String(content, StandardCharsets.UTF_8);
+		FeatureModel model;
+		try {
+			model = new UVLReader(new StringReader(serial)).read();
+		} catch (final NotSupportedVariabilityTypeException e) {
+			// models the reader does not support are left to the UVL parser
+			model = importResolver.resolve(serial, filePath.toAbsolutePath().getParent());
+		}
+		snapshotCache.put(key, model);
+		return model;
+	}
+
 	@Override
 	public FeatureModel deserialize(String serial, Format format) throws NotSupportedVariabilityTypeException {
-		final UVLModelFactory uvlModelFactory = new UVLModelFactory();
+		if (!format.isText()) {
+			throw new NotSupportedVariabilityTypeException("Only text-based formats can be read from a string.");
+		}
+		try {
+			return new UVLReader(new StringReader(serial)).read();
+		} catch (final NotSupportedVariabilityTypeException | IOException e) {
+			// models the reader does not support are left to the UVL parser,
+			// imports are resolved relative to the working directory
+			return importResolver.resolve(serial, Paths.get(System.getProperty("user.dir")));
+		}
+	}
+
+	/**
+	 * Reads the UVL model from the given reader with the {@link UVLReader}. The
+	 * input read is recorded, such that models the reader rejects can be parsed
+	 * with the UVL parser instead, as with {@link #deserialize(String, Format)}.
+	 */
+	@Override
+	public FeatureModel deserialize(final Reader reader, final Format format)
+			throws IOException, NotSupportedVariabilityTypeException {
+		if (!format.isText()) {
+			throw new NotSupportedVariabilityTypeException("Only text-based formats can be read from a reader.");
+		}
+		final RecordingReader recording = new RecordingReader(reader);
 		try {
-			return uvlModelFactory.parse(serial);
-		} catch (final ParseError error) {
-			throw new NotSupportedVariabilityTypeException("Error in reading UVL Model file");
+			return new UVLReader(recording).read();
+		} catch (final NotSupportedVariabilityTypeException e) {
+			// models the reader does not support are left to the UVL parser,
+			// which only accepts the complete model text
+		}
+		final StringBuilder serial = recording.getRecorded();
+		final char[] buffer = new char[BUFFER_SIZE];
+		int read;
+		while ((read = reader.read(buffer)) != -1) {
+			serial.append(buffer, 0, read);
+		}
+		return importResolver.resolve(serial.toString(), Paths.get(System.getProperty("user.dir")));
+	}
+
+	@Override
+	public FeatureModel deserialize(final InputStream stream, final Format format)
+			throws IOException, NotSupportedVariabilityTypeException {
+		if (UVLSerializer.UVL_BINARY_FORMAT.equals(format)) {
+			return BinaryUVLReader.read(stream);
+		}
+		return IStreamingDeserializer.super.deserialize(stream, format);
+	}
+
+	/**
+	 * Streams the UVL model at the given path with the {@link UVLReader}, without
+	 * building the model. Models the reader rejects before the model is started,
+	 * e.g., models with imports, are parsed and emitted instead. With a snapshot
+	 * cache, the cached model is emitted.
+	 */
+	@Override
+	public void streamFromFile(final Path filePath, final IModelEventHandler handler)
+			throws IOException, NotSupportedVariabilityTypeException {
+		if (snapshotCache == null && filePath.toString().endsWith(UVLSerializer.UVL_FORMAT.extension())) {
+			try (Reader reader = FileUtils.newReader(filePath, getMappingThreshold())) {
+				final UVLReader uvlReader = new UVLReader(reader);
+				try {
+					uvlReader.read(handler);
+					return;
+				} catch (final NotSupportedVariabilityTypeException e) {
+					if (uvlReader.isStarted()) {
+						throw e;
+					}
+				}
+			}
 		}
+		FeatureModelEventEmitter.emit(deserializeFromFile(filePath), handler);
 	}
 
 	@Override
 	public Iterable<Format> supportedFormats() {
-		return List.of(UVLSerializer.UVL_FORMAT);
+		return List.of(UVLSerializer.UVL_FORMAT, UVLSerializer.UVL_BINARY_FORMAT);
+	}
+
+	/**
+	 * A reader recording the characters read, such that the input can be parsed
+	 * again.
+	 */
+	private static final class RecordingReader extends Reader {
+		private final Reader reader;
+		private final StringBuilder recorded = new StringBuilder();
+
+		private RecordingReader(final Reader reader) {
+			this.reader = Objects.requireNonNull(reader);
+		}
+
+		private StringBuilder getRecorded() {
+			return recorded;
+		}
+
+		@Override
+		public int read(final char[] cbuf, final int off, final int len) throws IOException {
+			final int read = reader.read(cbuf, off, len);
+			if (read > 0) {
+				recorded.append(cbuf, off, read);
+			}
+			return read;
+		}
+
+		@Override
+		public void close() throws IOException {
+			reader.close();
+		}
 	}
 }
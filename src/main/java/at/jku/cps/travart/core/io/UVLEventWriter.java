@@ -0,0 +1,254 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * Implements the writing of a UVL model from its events.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.io;
+
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import at.jku.cps.travart.core.common.IModelEventHandler;
+import at.jku.cps.travart.core.exception.NotSupportedVariabilityTypeException;
+import de.vill.config.Configuration;
+import de.vill.model.Attribute;
+import de.vill.model.FeatureType;
+import de.vill.model.Group.GroupType;
+import de.vill.model.LanguageLevel;
+import de.vill.model.constraint.Constraint;
+import de.vill.util.Util;
+
+/**
+ * Writes the received model events as a Universal Variability Language (UVL)
+ * model. The output is identical to {@link de.vill.model.FeatureModel#toString()}
+ * of the model built from the same events, but only the line of the current
+ * feature is kept in memory.
+ *
+ * @author Kevin Feichtinger
+ */
+public class UVLEventWriter implements IModelEventHandler {
+	private final IndentingWriter writer;
+	private final List<LanguageLevel> levels = new ArrayList<>();
+	private boolean explicitLanguageLevels;
+	private boolean headerWritten;
+	private boolean constraintsStarted;
+	private StringBuilder line;
+	private boolean hasAttributes;
+
+	/**
+	 * Creates an event writer writing to the given writer.
+	 *
+	 * @param writer the writer to write the model to.
+	 */
+	public UVLEventWriter(final Writer writer) {
+		this(writer, 0);
+	}
+
+	/**
+	 * Creates an event writer rendering a part of a feature tree. Features at
+	 * depth zero start the feature tree, features at greater depths are written
+	 * as children at the corresponding indentation.
+	 *
+	 * @param writer the writer to write the part to.
+	 * @param depth  the depth of the parent group of the first feature.
+	 */
+	UVLEventWriter(final Writer writer, final int depth) {
+		this.writer = new IndentingWriter(Objects.requireNonNull(writer), depth);
+	}
+
+	@Override
+	public void startModel(final String namespace, final boolean explicitLanguageLevels) {
+		this.explicitLanguageLevels = explicitLanguageLevels;
+		if (namespace != null) {
+			writer.write("namespace ");
+			writer.write(Util.addNecessaryQuotes(namespace));
+			writer.newLine();
+			writer.newLine();
+		}
+	}
+
+	@Override
+	public void languageLevel(final LanguageLevel level) throws NotSupportedVariabilityTypeException {
+		if (headerWritten) {
+			if (explicitLanguageLevels) {
+				throw new NotSupportedVariabilityTypeException("Language levels must precede the feature tree");
+			}
+			// levels of models without include section are not written
+			return;
+		}
+		levels.add(level);
+	}
+
+	@Override
+	public void startFeature(final String name, final FeatureType type, final String lowerBound,
+			final String upperBound) throws NotSupportedVariabilityTypeException {
+		writeHeader();
+		if (constraintsStarted) {
+			throw new NotSupportedVariabilityTypeException("Features must precede the constraints");
+		}
+		if (writer.getDepth() == 0) {
+			writer.write("features");
+			writer.newLine();
+		}
+		flushLine();
+		writer.indent();
+		line = new StringBuilder();
+		hasAttributes = false;
+		if (type != null) {
+			line.append(type.getName()).append(' ');
+		}
+		line.append(Util.addNecessaryQuotes(name));
+		if (lowerBound != null || upperBound != null) {
+			line.append(" cardinality [").append(cardinality(lowerBound, upperBound)).append("] ");
+		}
+	}
+
+	@Override
+	public void attribute(final String key, final Attribute<?> attribute)
+			throws NotSupportedVariabilityTypeException {
+		if (line == null) {
+			throw new NotSupportedVariabilityTypeException("Attributes must directly follow their feature");
+		}
+		line.append(hasAttributes ? ", " : " {");
+		line.append(Util.addNecessaryQuotes(key)).append(' ').append(attribute.toString(false, ""));
+		hasAttributes = true;
+	}
+
+	@Override
+	public void startGroup(final GroupType type, final String lowerBound, final String upperBound) {
+		flushLine();
+		writer.indent();
+		switch (type) {
+		case OR:
+			writer.writeLine("or");
+			break;
+		case ALTERNATIVE:
+			writer.writeLine("alternative");
+			break;
+		case OPTIONAL:
+			writer.writeLine("optional");
+			break;
+		case MANDATORY:
+			writer.writeLine("mandatory");
+			break;
+		default:
+			writer.writeLine("[" + cardinality(lowerBound, upperBound) + "]");
+			break;
+		}
+	}
+
+	@Override
+	public void endGroup() {
+		writer.unindent();
+	}
+
+	@Override
+	public void endFeature() {
+		flushLine();
+		writer.unindent();
+		if (writer.getDepth() == 0) {
+			writer.newLine();
+		}
+	}
+
+	@Override
+	public void constraint(final Constraint constraint) {
+		startConstraints();
+		writeConstraint(writer, constraint);
+	}
+
+	/**
+	 * Writes the given feature tree, which has been rendered by a writer for
+	 * parts of a feature tree starting at depth zero.
+	 *
+	 * @param tree the rendered feature tree.
+	 * @throws NotSupportedVariabilityTypeException if constraints have already
+	 *                                              been written.
+	 */
+	void featureTree(final String tree) throws NotSupportedVariabilityTypeException {
+		writeHeader();
+		if (constraintsStarted) {
+			throw new NotSupportedVariabilityTypeException("Features must precede the constraints");
+		}
+		writer.write(tree);
+	}
+
+	/**
+	 * Writes the given constraint lines, which have been rendered with
+	 * {@link #writeConstraint(IndentingWriter, Constraint)}.
+	 *
+	 * @param lines the rendered constraint lines.
+	 */
+	void constraints(final String lines) {
+		startConstraints();
+		writer.write(lines);
+	}
+
+	static void writeConstraint(final IndentingWriter writer, final Constraint constraint) {
+		writer.write(Configuration.getTabulatorSymbol());
+		writer.write(constraint.toString(false, ""));
+		writer.newLine();
+	}
+
+	@Override
+	public void endModel() {
+		writeHeader();
+		writer.flush();
+	}
+
+	private void startConstraints() {
+		writeHeader();
+		if (!constraintsStarted) {
+			writer.write("constraints");
+			writer.newLine();
+			constraintsStarted = true;
+		}
+	}
+
+	private void writeHeader() {
+		if (headerWritten) {
+			return;
+		}
+		headerWritten = true;
+		if (explicitLanguageLevels && !levels.isEmpty()) {
+			writer.write("include");
+			writer.newLine();
+			for (final LanguageLevel level : levels) {
+				writer.write(Configuration.getTabulatorSymbol());
+				if (!LanguageLevel.isMajorLevel(level)) {
+					writer.write(LanguageLevel.valueOf(level.getValue() - 1).get(0).getName());
+					writer.write(".");
+				}
+				writer.write(level.getName());
+				writer.newLine();
+			}
+			writer.newLine();
+		}
+	}
+
+	private void flushLine() {
+		if (line != null) {
+			if (hasAttributes) {
+				line.append('}');
+			}
+			writer.writeLine(line.toString());
+			line = null;
+		}
+	}
+
+	private static String cardinality(final String lowerBound, final String upperBound) {
+		return Objects.equals(lowerBound, upperBound) ? lowerBound : lowerBound + ".." + upperBound;
+	}
+}
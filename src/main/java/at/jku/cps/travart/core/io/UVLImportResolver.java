@@ -0,0 +1,391 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * Implements the concurrent and cached resolution of UVL imports.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.io;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+
+import at.jku.cps.travart.core.exception.NotSupportedVariabilityTypeException;
+import de.vill.exception.ParseError;
+import de.vill.exception.ParseErrorList;
+import de.vill.main.UVLListener;
+import de.vill.model.Feature;
+import de.vill.model.FeatureModel;
+import de.vill.model.Group;
+import de.vill.model.Import;
+import de.vill.model.constraint.Constraint;
+import de.vill.model.expression.AggregateFunctionExpression;
+import uvl.UVLJavaLexer;
+import uvl.UVLJavaParser;
+import uvl.UVLJavaParser.FeatureModelContext;
+
+/**
+ * Resolves UVL models with imports like the UVL parser, but parses the imported
+ * submodels concurrently and caches their parse trees by path and content
+ * hash. Submodels shared by several models of a batch are thus parsed once. As
+ * resolving an import changes the submodel, every import gets its own submodel
+ * built from the cached parse tree. Only imported submodels are cached, the
+ * resolved models themselves are parsed on each call. The cache is bounded by
+ * a number of files; the least recently used parse trees are evicted first.
+ * <p>
+ * </p>
+ * Imported namespaces are resolved relative to the directory of the importing
+ * model, i.e., the namespace {@code a.b} refers to the file {@code a/b.uvl}.
+ * Resolvers are thread-safe and can be shared by several deserializers.
+ *
+ * @author Kevin Feichtinger
+ */
+public final class UVLImportResolver {
+	/**
+	 * The default maximum number of submodel files whose parse trees are cached.
+	 */
+	public static final int DEFAULT_CACHED_FILES = 256;
+
+	private static final String HASH_ALGORITHM = "SHA-256";
+
+	private final Executor executor;
+	private final Map<Path, ParsedFile> cache;
+
+	/**
+	 * Creates a resolver parsing submodels in the common fork join pool.
+	 */
+	public UVLImportResolver() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates a resolver parsing submodels with the given executor.
+	 *
+	 * @param executor the executor to parse submodels with.
+	 */
+	public UVLImportResolver(final Executor executor) {
+		this(executor, DEFAULT_CACHED_FILES);
+	}
+
+	/**
+	 * Creates a resolver parsing submodels with the given executor and caching
+	 * the parse trees of at most the given number of submodel files.
+	 *
+	 * @param executor    the executor to parse submodels with.
+	 * @param cachedFiles the maximum number of cached submodel files, 0 disables
+	 *                    the cache.
+	 */
+	public UVLImportResolver(final Executor executor, final int cachedFiles) {
+		if (cachedFiles < 0) {
+			throw new IllegalArgumentException("The cache limit must not be negative");
+		}
+		this.executor = Objects.requireNonNull(executor);
+		cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<Path, ParsedFile> eldest) {
+				return size() > cachedFiles;
+			}
+		});
+	}
+
+	/**
+	 * Reads the UVL model from the given file and resolves its imports relative
+	 * to the directory of the file.
+	 *
+	 * @param file the file to read.
+	 * @return the resolved model.
+	 * @throws IOException                          if the file can not be read.
+	 * @throws NotSupportedVariabilityTypeException if the model or one of its
+	 *                                              submodels is not valid, or an
+	 *                                              import can not be resolved.
+	 */
+	public FeatureModel resolve(final Path file) throws IOException, NotSupportedVariabilityTypeException {
+		final Path path = file.toAbsolutePath().normalize();
+		final String text = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+		return resolve(build(parse(text)), path.getParent());
+	}
+
+	/**
+	 * Parses the given UVL model and resolves its imports relative to the given
+	 * directory.
+	 *
+	 * @param text      the UVL model.
+	 * @param directory the directory to resolve imports in.
+	 * @return the resolved model.
+	 * @throws NotSupportedVariabilityTypeException if the model or one of its
+	 *                                              submodels is not valid, or an
+	 *                                              import can not be resolved.
+	 */
+	public FeatureModel resolve(final String text, final Path directory) throws NotSupportedVariabilityTypeException {
+		return resolve(build(parse(text)), directory.toAbsolutePath().normalize());
+	}
+
+	/**
+	 * Removes all cached parse trees.
+	 */
+	public void clear() {
+		cache.clear();
+	}
+
+	private FeatureModel resolve(final FeatureModel model, final Path directory)
+			throws NotSupportedVariabilityTypeException {
+		join(resolveImports(model, directory, Set.of()));
+		composeSubmodels(model);
+		link(model);
+		for (final FeatureModel subModel : subModels(model)) {
+			link(subModel);
+		}
+		for (final Constraint constraint : model.getOwnConstraints()) {
+			if (!UVLReader.hasConsistentTypes(constraint)) {
+				throw new NotSupportedVariabilityTypeException(
+						String.format("Invalid constraint in line %d", constraint.getLineNumber()));
+			}
+		}
+		return model;
+	}
+
+	/**
+	 * Loads the submodels imported by the given model concurrently and attaches
+	 * them in the order of the imports once all of them are resolved.
+	 */
+	private CompletableFuture<Void> resolveImports(final FeatureModel model, final Path directory,
+			final Set<String> ancestors) {
+		if (model.getNamespace() == null || model.getImports().isEmpty()) {
+			return CompletableFuture.completedFuture(null);
+		}
+		final Set<String> namespaces = new HashSet<>(ancestors);
+		namespaces.add(model.getNamespace());
+		final List<CompletableFuture<FeatureModel>> subModels = new ArrayList<>();
+		for (final Import importLine : model.getImports()) {
+			if (namespaces.contains(importLine.getNamespace())) {
+				return CompletableFuture.failedFuture(new NotSupportedVariabilityTypeException(
+						String.format("Cyclic import of %s in %s in line %d", importLine.getNamespace(),
+								model.getNamespace(), importLine.getLineNumber())));
+			}
+			subModels.add(load(directory, importLine).thenCompose(
+					subModel -> resolveImports(subModel, directory, namespaces).thenApply(done -> subModel)));
+		}
+		return CompletableFuture.allOf(subModels.toArray(new CompletableFuture<?>[0])).thenRun(() -> {
+			for (int i = 0; i < subModels.size(); i++) {
+				attach(model, model.getImports().get(i), subModels.get(i).join());
+			}
+		});
+	}
+
+	private CompletableFuture<FeatureModel> load(final Path directory, final Import importLine) {
+		final String separator = directory.getFileSystem().getSeparator();
+		final Path file = directory
+				.resolve(importLine.getNamespace().replace(".", separator) + UVLSerializer.UVL_FORMAT.extension())
+				.normalize();
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return Files.readAllBytes(file);
+			} catch (final IOException e) {
+				throw new CompletionException(new NotSupportedVariabilityTypeException(
+						String.format("Could not resolve import %s in line %d: %s", importLine.getNamespace(),
+								importLine.getLineNumber(), e.getMessage())));
+			}
+		}, executor).thenCompose(content -> parse(file, content)).thenApply(tree -> {
+			try {
+				return build(tree);
+			} catch (final NotSupportedVariabilityTypeException e) {
+				throw new CompletionException(e);
+			}
+		});
+	}
+
+	/**
+	 * Attaches the resolved submodel to the import of the given model, as the
+	 * UVL parser does.
+	 */
+	private static void attach(final FeatureModel model, final Import importLine, final FeatureModel subModel) {
+		if (subModel.getRootFeature() == null) {
+			throw new CompletionException(new NotSupportedVariabilityTypeException(
+					String.format("Imported model %s has no root feature", importLine.getNamespace())));
+		}
+		importLine.setFeatureModel(subModel);
+		subModel.getRootFeature().setRelatedImport(importLine);
+		for (final Feature feature : subModel.getFeatureMap().values()) {
+			if (feature.getNameSpace().isEmpty()) {
+				feature.setNameSpace(importLine.getAlias());
+			} else {
+				feature.setNameSpace(importLine.getAlias() + "." + feature.getNameSpace());
+			}
+		}
+		if (model.getFeatureMap().containsKey(subModel.getRootFeature().getReferenceFromSpecificSubmodel(""))) {
+			importLine.setReferenced(true);
+		}
+		if (importLine.isReferenced()) {
+			for (final Feature feature : subModel.getFeatureMap().values()) {
+				model.getFeatureMap().putIfAbsent(feature.getNameSpace() + "." + feature.getFeatureName(), feature);
+			}
+		}
+	}
+
+	/**
+	 * Moves the trees of the submodels to the features referencing them in the
+	 * tree of the given model.
+	 */
+	private static void composeSubmodels(final FeatureModel model) {
+		for (final Feature feature : model.getFeatureMap().values()) {
+			if (!feature.isSubmodelRoot()) {
+				continue;
+			}
+			final Import relatedImport = feature.getRelatedImport();
+			final Feature subRoot = relatedImport.getFeatureModel().getRootFeature();
+			feature.getChildren().addAll(subRoot.getChildren());
+			for (final Group group : feature.getChildren()) {
+				group.setParentFeature(feature);
+			}
+			feature.getAttributes().putAll(subRoot.getAttributes());
+			relatedImport.getFeatureModel().setRootFeature(feature);
+		}
+	}
+
+	private static List<FeatureModel> subModels(final FeatureModel model) {
+		final List<FeatureModel> subModels = new LinkedList<>();
+		for (final Import importLine : model.getImports()) {
+			subModels.add(importLine.getFeatureModel());
+			subModels.addAll(subModels(importLine.getFeatureModel()));
+		}
+		return subModels;
+	}
+
+	private static void link(final FeatureModel model) throws NotSupportedVariabilityTypeException {
+		LiteralReferences.link(model, model.getLiteralConstraints(), model.getLiteralExpressions());
+		for (final AggregateFunctionExpression expression : model.getAggregateFunctionsWithRootFeature()) {
+			final Feature feature = model.getFeatureMap().get(expression.getRootFeatureName().replace("\"", ""));
+			if (feature == null) {
+				throw new NotSupportedVariabilityTypeException(String.format(
+						"Aggregate function references unknown feature %s", expression.getRootFeatureName()));
+			}
+			expression.setRootFeature(feature);
+		}
+	}
+
+	/**
+	 * Returns the parse tree of the given submodel file content, parsing it only
+	 * if the cache has no parse tree for the same content of the file.
+	 */
+	private CompletableFuture<FeatureModelContext> parse(final Path file, final byte[] content) {
+		final byte[] hash = hash(content);
+		final ParsedFile created = new ParsedFile(hash);
+		final ParsedFile cached = cache.merge(file, created,
+				(previous, current) -> Arrays.equals(previous.hash, hash) ? previous : current);
+		if (cached == created) {
+			try {
+				created.tree.complete(parse(new String(content, StandardCharsets.UTF_8)));
+			} catch (final NotSupportedVariabilityTypeException e) {
+				created.tree.completeExceptionally(e);
+			}
+		}
+		return cached.tree;
+	}
+
+	private static FeatureModelContext parse(final String text) throws NotSupportedVariabilityTypeException {
+		final ErrorCollector errors = new ErrorCollector();
+		final UVLJavaLexer lexer = new UVLJavaLexer(CharStreams.fromString(text.trim()));
+		lexer.removeErrorListeners();
+		lexer.addErrorListener(errors);
+		final UVLJavaParser parser = new UVLJavaParser(new CommonTokenStream(lexer));
+		parser.removeErrorListeners();
+		parser.addErrorListener(errors);
+		final FeatureModelContext tree = parser.featureModel();
+		if (errors.message != null) {
+			throw new NotSupportedVariabilityTypeException(errors.message);
+		}
+		return tree;
+	}
+
+	/**
+	 * Builds a new model from the given parse tree. Parse trees are not changed
+	 * by building models, thus cached trees can be used concurrently.
+	 */
+	private static FeatureModel build(final FeatureModelContext tree) throws NotSupportedVariabilityTypeException {
+		final UVLListener listener = new UVLListener();
+		try {
+			ParseTreeWalker.DEFAULT.walk(listener, tree);
+			return listener.getFeatureModel();
+		} catch (final ParseErrorList e) {
+			throw new NotSupportedVariabilityTypeException(
+					e.getErrorList().isEmpty() ? e.getMessage() : e.getErrorList().get(0).getMessage());
+		} catch (final ParseError e) {
+			throw new NotSupportedVariabilityTypeException(e.getMessage());
+		}
+	}
+
+	private static byte[] hash(final byte[] content) {
+		try {
+			return MessageDigest.getInstance(HASH_ALGORITHM).digest(content);
+		} catch (final NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static <T> T join(final CompletableFuture<T> future) throws NotSupportedVariabilityTypeException {
+		try {
+			return future.join();
+		} catch (final CompletionException e) {
+			if (e.getCause() instanceof NotSupportedVariabilityTypeException) {
+				throw (NotSupportedVariabilityTypeException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	private static final class ParsedFile {
+		private final byte[] hash;
+		private final CompletableFuture<FeatureModelContext> tree = new CompletableFuture<>();
+
+		private ParsedFile(final byte[] hash) {
+			this.hash = hash;
+		}
+	}
+
+	private static final class ErrorCollector extends BaseErrorListener {
+		private String message;
+
+		@Override
+		public void syntaxError(final Recognizer<?, ?> recognizer, final Object offendingSymbol, final int line,
+				final int charPositionInLine, final String msg, final RecognitionException e) {
+			if (message == null) {
+				message = String.format("Failed to parse at line %d:%d due to %s", line, charPositionInLine, msg);
+			}
+		}
+	}
+}
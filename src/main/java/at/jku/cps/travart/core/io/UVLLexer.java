@@ -0,0 +1,513 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * Implements a streaming lexer for the Universal Variability Language.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.io;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+
+import at.jku.cps.travart.core.exception.NotSupportedVariabilityTypeException;
+
+/**
+ * Splits a UVL model read from a {@link Reader} into tokens. The tokens follow
+ * the lexer grammar of the UVL parser: line breaks outside of brackets end a
+ * line, and changes of the indentation produce indent and dedent tokens.
+ * Input which the lexer can not split the same way as the UVL parser is
+ * rejected.
+ *
+ * @author Kevin Feichtinger
+ */
+final class UVLLexer {
+	static final int EOF = 0;
+	static final int NEWLINE = 1;
+	static final int INDENT = 2;
+	static final int DEDENT = 3;
+	static final int KEYWORD = 4;
+	static final int ID = 5;
+	static final int QUOTED_ID = 6;
+	static final int STRING = 7;
+	static final int INTEGER = 8;
+	static final int FLOAT = 9;
+	static final int BOOLEAN = 10;
+	static final int CARDINALITY = 11;
+	static final int DOT = 12;
+	static final int COMMA = 13;
+	static final int OPEN_PAREN = 14;
+	static final int CLOSE_PAREN = 15;
+	static final int OPEN_BRACK = 16;
+	static final int CLOSE_BRACK = 17;
+	static final int OPEN_BRACE = 18;
+	static final int CLOSE_BRACE = 19;
+	static final int NOT = 20;
+	static final int AND = 21;
+	static final int OR = 22;
+	static final int IMPLICATION = 23;
+	static final int EQUIVALENCE = 24;
+	static final int EQUAL = 25;
+	static final int NOT_EQUALS = 26;
+	static final int LOWER = 27;
+	static final int LOWER_EQUALS = 28;
+	static final int GREATER = 29;
+	static final int GREATER_EQUALS = 30;
+	static final int ADD = 31;
+	static final int SUB = 32;
+	static final int MUL = 33;
+	static final int DIV = 34;
+
+	private static final Set<String> KEYWORDS = Set.of("include", "namespace", "imports", "as", "features",
+			"cardinality", "constraint", "constraints", "sum", "avg", "len", "floor", "ceil", "String", "Integer",
+			"Real", "Boolean", "Arithmetic", "Type", "or", "alternative", "optional", "mandatory");
+	private static final String[] HYPHENATED_KEYWORDS = { "group-cardinality", "feature-cardinality",
+			"aggregate-function", "string-constraints" };
+	private static final String ID_CHARACTERS = "_#\u00a7%?\\'\u00e4\u00fc\u00f6\u00df;";
+	private static final int TAB_SIZE = 8;
+
+	/**
+	 * A token of a UVL model.
+	 */
+	static final class Token {
+		final int type;
+		final String text;
+		final int line;
+
+		Token(final int type, final String text, final int line) {
+			this.type = type;
+			this.text = text;
+			this.line = line;
+		}
+
+		boolean isKeyword(final String keyword) {
+			return type == KEYWORD && text.equals(keyword);
+		}
+	}
+
+	private final Reader reader;
+	private char[] buffer = new char[8192];
+	private int position;
+	private int limit;
+	private boolean endOfInput;
+
+	private final List<Token> lookahead = new ArrayList<>();
+	private final Deque<Integer> indentation = new ArrayDeque<>();
+	private int line = 1;
+	private int brackets;
+	private boolean lineStart = true;
+	private boolean firstLine = true;
+	private boolean lineHasTokens;
+	private int pendingDedents;
+
+	UVLLexer(final Reader reader) {
+		this.reader = reader;
+		indentation.push(0);
+	}
+
+	/**
+	 * Returns the token at the given offset without consuming it.
+	 *
+	 * @param offset the offset from the current token.
+	 * @return the token.
+	 * @throws IOException                          if reading fails.
+	 * @throws NotSupportedVariabilityTypeException if the input can not be split
+	 *                                              into tokens.
+	 */
+	Token peek(final int offset) throws IOException, NotSupportedVariabilityTypeException {
+		while (lookahead.size() <= offset) {
+			lookahead.add(scan());
+		}
+		return lookahead.get(offset);
+	}
+
+	Token peek() throws IOException, NotSupportedVariabilityTypeException {
+		return peek(0);
+	}
+
+	Token next() throws IOException, NotSupportedVariabilityTypeException {
+		return lookahead.isEmpty() ? scan() : lookahead.remove(0);
+	}
+
+	private Token scan() throws IOException, NotSupportedVariabilityTypeException {
+		if (pendingDedents > 0) {
+			pendingDedents--;
+			return new Token(DEDENT, "", line);
+		}
+		while (true) {
+			if (lineStart && brackets == 0) {
+				final Token token = startLine();
+				if (token != null) {
+					return token;
+				}
+			}
+			final int c = peekChar(0);
+			if (c < 0) {
+				return endOfInput();
+			}
+			if (c == '\n' || c == '\r') {
+				skipLineBreak();
+				if (brackets == 0) {
+					lineStart = true;
+					if (lineHasTokens) {
+						lineHasTokens = false;
+						return new Token(NEWLINE, "\n", line - 1);
+					}
+				}
+			} else if (c == ' ' || c == '\t' || c == '\f') {
+				position++;
+			} else if (c == '/' && (peekChar(1) == '/' || peekChar(1) == '*')) {
+				skipComment();
+			} else {
+				lineHasTokens = true;
+				return token((char) c);
+			}
+		}
+	}
+
+	private Token startLine() throws IOException, NotSupportedVariabilityTypeException {
+		int width = 0;
+		boolean spaces = false;
+		int c;
+		while ((c = peekChar(0)) == ' ' || c == '\t') {
+			if (c == '\t') {
+				if (spaces) {
+					throw error("Mixed spaces and tabs in indentation");
+				}
+				width += TAB_SIZE - width % TAB_SIZE;
+			} else {
+				spaces = true;
+				width++;
+			}
+			position++;
+		}
+		if (c < 0 || c == '\n' || c == '\r') {
+			return null;
+		}
+		if (c == '/' && (peekChar(1) == '/' || peekChar(1) == '*')) {
+			// the UVL parser treats lines starting with a comment as blank
+			skipComment();
+			skipBlanks();
+			c = peekChar(0);
+			if (c >= 0 && c != '\n' && c != '\r') {
+				throw error("Content after a comment at the start of a line");
+			}
+			return null;
+		}
+		lineStart = false;
+		if (firstLine) {
+			// the UVL parser trims the model, thus the first line is not indented
+			firstLine = false;
+			return null;
+		}
+		if (width > indentation.peek()) {
+			indentation.push(width);
+			return new Token(INDENT, "", line);
+		}
+		while (width < indentation.peek()) {
+			indentation.pop();
+			pendingDedents++;
+		}
+		if (width != indentation.peek()) {
+			throw error("Inconsistent dedent");
+		}
+		if (pendingDedents > 0) {
+			pendingDedents--;
+			return new Token(DEDENT, "", line);
+		}
+		return null;
+	}
+
+	private Token endOfInput() throws NotSupportedVariabilityTypeException {
+		if (brackets > 0) {
+			throw error("Unclosed bracket");
+		}
+		if (lineHasTokens) {
+			lineHasTokens = false;
+			return new Token(NEWLINE, "\n", line);
+		}
+		if (indentation.size() > 1) {
+			indentation.pop();
+			return new Token(DEDENT, "", line);
+		}
+		return new Token(EOF, "", line);
+	}
+
+	private Token token(final char c) throws IOException, NotSupportedVariabilityTypeException {
+		switch (c) {
+		case '"':
+			return quoted('"', QUOTED_ID);
+		case '\'':
+			return quoted('\'', STRING);
+		case '[':
+			final Token cardinality = cardinality();
+			if (cardinality != null) {
+				return cardinality;
+			}
+			brackets++;
+			return symbol(OPEN_BRACK, 1);
+		case ']':
+			brackets = Math.max(0, brackets - 1);
+			return symbol(CLOSE_BRACK, 1);
+		case '(':
+			brackets++;
+			return symbol(OPEN_PAREN, 1);
+		case ')':
+			brackets = Math.max(0, brackets - 1);
+			return symbol(CLOSE_PAREN, 1);
+		case '{':
+			brackets++;
+			return symbol(OPEN_BRACE, 1);
+		case '}':
+			brackets = Math.max(0, brackets - 1);
+			return symbol(CLOSE_BRACE, 1);
+		case ',':
+			return symbol(COMMA, 1);
+		case '&':
+			return symbol(AND, 1);
+		case '|':
+			return symbol(OR, 1);
+		case '+':
+			return symbol(ADD, 1);
+		case '*':
+			return symbol(MUL, 1);
+		case '/':
+			return symbol(DIV, 1);
+		case '!':
+			return peekChar(1) == '=' ? symbol(NOT_EQUALS, 2) : symbol(NOT, 1);
+		case '=':
+			if (peekChar(1) == '=') {
+				return symbol(EQUAL, 2);
+			}
+			if (peekChar(1) == '>') {
+				return symbol(IMPLICATION, 2);
+			}
+			throw error("Unexpected character =");
+		case '<':
+			if (peekChar(1) == '=' && peekChar(2) == '>') {
+				return symbol(EQUIVALENCE, 3);
+			}
+			return peekChar(1) == '=' ? symbol(LOWER_EQUALS, 2) : symbol(LOWER, 1);
+		case '>':
+			return peekChar(1) == '=' ? symbol(GREATER_EQUALS, 2) : symbol(GREATER, 1);
+		case '-':
+		case '.':
+			final Token number = number();
+			if (number != null) {
+				return number;
+			}
+			return c == '-' ? symbol(SUB, 1) : symbol(DOT, 1);
+		default:
+			if (c >= '0' && c <= '9') {
+				return number();
+			}
+			if (c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z') {
+				return word();
+			}
+			throw error("Unexpected character " + c);
+		}
+	}
+
+	private Token symbol(final int type, final int length) throws IOException {
+		final String text = new String(buffer, position, length);
+		position += length;
+		return new Token(type, text, line);
+	}
+
+	private Token quoted(final char quote, final int type) throws IOException, NotSupportedVariabilityTypeException {
+		int length = 1;
+		int c;
+		while ((c = peekChar(length)) >= 0 && c != quote) {
+			if (c == '\n' || c == '\r' || c == '.' || c == '"' && quote == '\'') {
+				throw error("Unsupported character in quoted text");
+			}
+			length++;
+		}
+		if (c < 0 || length == 1) {
+			throw error("Unterminated quoted text");
+		}
+		return symbol(type, length + 1);
+	}
+
+	private Token cardinality() throws IOException {
+		int length = 1;
+		final int lower = digits(length);
+		if (lower == 0) {
+			return null;
+		}
+		length += lower;
+		if (peekChar(length) == '.' && peekChar(length + 1) == '.') {
+			length += 2;
+			if (peekChar(length) == '*') {
+				length++;
+			} else {
+				final int upper = digits(length);
+				if (upper == 0) {
+					return null;
+				}
+				length += upper;
+			}
+		}
+		if (peekChar(length) != ']') {
+			return null;
+		}
+		return symbol(CARDINALITY, length + 1);
+	}
+
+	/**
+	 * Returns the length of an unsigned integer literal at the given offset,
+	 * i.e., 0 or a digit sequence not starting with 0.
+	 */
+	private int digits(final int offset) throws IOException {
+		int c = peekChar(offset);
+		if (c == '0') {
+			return 1;
+		}
+		int length = 0;
+		while (c >= '0' && c <= '9') {
+			length++;
+			c = peekChar(offset + length);
+		}
+		return length;
+	}
+
+	private Token number() throws IOException {
+		final int sign = peekChar(0) == '-' ? 1 : 0;
+		int integerDigits = 0;
+		while (isDigit(peekChar(sign + integerDigits))) {
+			integerDigits++;
+		}
+		if (peekChar(sign + integerDigits) == '.' && isDigit(peekChar(sign + integerDigits + 1))) {
+			int length = sign + integerDigits + 1;
+			while (isDigit(peekChar(length))) {
+				length++;
+			}
+			return symbol(FLOAT, length);
+		}
+		if (integerDigits == 0 || sign == 1 && peekChar(1) == '0') {
+			return null;
+		}
+		return symbol(INTEGER, sign + digits(sign));
+	}
+
+	private Token word() throws IOException {
+		for (final String keyword : HYPHENATED_KEYWORDS) {
+			if (matches(keyword)) {
+				return symbol(KEYWORD, keyword.length());
+			}
+		}
+		int length = 1;
+		int c;
+		while ((c = peekChar(length)) >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || isDigit(c)
+				|| c >= 0 && ID_CHARACTERS.indexOf(c) >= 0) {
+			length++;
+		}
+		final Token token = symbol(ID, length);
+		if (KEYWORDS.contains(token.text)) {
+			return new Token(KEYWORD, token.text, token.line);
+		}
+		if ("true".equals(token.text) || "false".equals(token.text)) {
+			return new Token(BOOLEAN, token.text, token.line);
+		}
+		return token;
+	}
+
+	private boolean matches(final String text) throws IOException {
+		for (int i = 0; i < text.length(); i++) {
+			if (peekChar(i) != text.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isDigit(final int c) {
+		return c >= '0' && c <= '9';
+	}
+
+	private void skipComment() throws IOException, NotSupportedVariabilityTypeException {
+		if (peekChar(1) == '/') {
+			int c;
+			while ((c = peekChar(0)) >= 0 && c != '\n' && c != '\r') {
+				position++;
+			}
+			return;
+		}
+		position += 2;
+		while (!(peekChar(0) == '*' && peekChar(1) == '/')) {
+			final int c = peekChar(0);
+			if (c < 0) {
+				throw error("Unterminated comment");
+			}
+			if (c == '\n' || c == '\r') {
+				throw error("Comment spanning several lines");
+			}
+			position++;
+		}
+		position += 2;
+	}
+
+	private void skipBlanks() throws IOException {
+		int c;
+		while ((c = peekChar(0)) == ' ' || c == '\t' || c == '\f') {
+			position++;
+		}
+	}
+
+	private void skipLineBreak() throws IOException {
+		if (peekChar(0) == '\r' && peekChar(1) == '\n') {
+			position++;
+		}
+		position++;
+		line++;
+	}
+
+	private int peekChar(final int offset) throws IOException {
+		if (position + offset >= limit && !fill(offset + 1)) {
+			return -1;
+		}
+		return buffer[position + offset];
+	}
+
+	private boolean fill(final int required) throws IOException {
+		if (endOfInput) {
+			return position + required <= limit;
+		}
+		if (position > 0) {
+			System.arraycopy(buffer, position, buffer, 0, limit - position);
+			limit -= position;
+			position = 0;
+		}
+		if (required > buffer.length) {
+			final char[] larger = new char[Math.max(required, buffer.length * 2)];
+			System.arraycopy(buffer, 0, larger, 0, limit);
+			buffer = larger;
+		}
+		while (limit < required) {
+			final int read = reader.read(buffer, limit, buffer.length - limit);
+			if (read < 0) {
+				endOfInput = true;
+				return false;
+			}
+			limit += read;
+		}
+		return true;
+	}
+
+	NotSupportedVariabilityTypeException error(final String message) {
+		return new NotSupportedVariabilityTypeException(String.format("%s in line %d", message, line));
+	}
+}
@@ -0,0 +1,738 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * Implements a streaming reader for the Universal Variability Language.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.io;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import at.jku.cps.travart.core.common.IModelEventHandler;
+import at.jku.cps.travart.core.exception.NotSupportedVariabilityTypeException;
+import at.jku.cps.travart.core.io.UVLLexer.Token;
+import at.jku.cps.travart.core.stream.FeatureModelEventBuilder;
+import de.vill.model.Attribute;
+import de.vill.model.FeatureModel;
+import de.vill.model.FeatureType;
+import de.vill.model.Group.GroupType;
+import de.vill.model.LanguageLevel;
+import de.vill.model.constraint.AndConstraint;
+import de.vill.model.constraint.Constraint;
+import de.vill.model.constraint.EqualEquationConstraint;
+import de.vill.model.constraint.EquivalenceConstraint;
+import de.vill.model.constraint.ExpressionConstraint;
+import de.vill.model.constraint.GreaterEqualsEquationConstraint;
+import de.vill.model.constraint.GreaterEquationConstraint;
+import de.vill.model.constraint.ImplicationConstraint;
+import de.vill.model.constraint.LiteralConstraint;
+import de.vill.model.constraint.LowerEqualsEquationConstraint;
+import de.vill.model.constraint.LowerEquationConstraint;
+import de.vill.model.constraint.NotConstraint;
+import de.vill.model.constraint.NotEqualsEquationConstraint;
+import de.vill.model.constraint.OrConstraint;
+import de.vill.model.constraint.ParenthesisConstraint;
+import de.vill.model.expression.AddExpression;
+import de.vill.model.expression.DivExpression;
+import de.vill.model.expression.Expression;
+import de.vill.model.expression.LiteralExpression;
+import de.vill.model.expression.MulExpression;
+import de.vill.model.expression.NumberExpression;
+import de.vill.model.expression.ParenthesisExpression;
+import de.vill.model.expression.StringExpression;
+import de.vill.model.expression.SubExpression;
+
+/**
+ * A hand-written reader for the subset of the Universal Variability Language
+ * (UVL) used by TraVarT, i.e., models without imports and aggregate functions.
+ * The reader passes the model to an {@link IModelEventHandler} while reading,
+ * such that jobs like statistics or indexing can scan a model without building
+ * its object graph. {@link #read()} builds the same {@link FeatureModel} as the
+ * UVL parser.
+ * <p>
+ * </p>
+ * The reader rejects everything outside of the subset, as well as input it can
+ * not read exactly like the UVL parser, with a
+ * {@link NotSupportedVariabilityTypeException}. Callers fall back to the UVL
+ * parser in this case, see {@link UVLDeserializer}. Language levels of models
+ * without an include section are declared as soon as they are used.
+ *
+ * @author Kevin Feichtinger
+ */
+public final class UVLReader {
+	private static final int[] EXPRESSION_OPERATORS = { UVLLexer.DIV, UVLLexer.MUL, UVLLexer.SUB, UVLLexer.ADD };
+
+	private final UVLLexer lexer;
+	private final LiteralReferences references = new LiteralReferences();
+	private final Set<LanguageLevel> usedLevels = new HashSet<>(List.of(LanguageLevel.BOOLEAN_LEVEL));
+	private final Set<LanguageLevel> includedLevels = new HashSet<>(List.of(LanguageLevel.BOOLEAN_LEVEL));
+	private IModelEventHandler handler;
+	private boolean explicitLanguageLevels;
+	private boolean started;
+
+	/**
+	 * Creates a reader for the UVL model provided by the given reader. The given
+	 * reader is not closed.
+	 *
+	 * @param reader the reader providing the model.
+	 */
+	public UVLReader(final Reader reader) {
+		lexer = new UVLLexer(Objects.requireNonNull(reader));
+	}
+
+	/**
+	 * Reads the model and builds it.
+	 *
+	 * @return the read model.
+	 * @throws IOException                          if reading fails.
+	 * @throws NotSupportedVariabilityTypeException if the model is not valid or
+	 *                                              not supported by this reader.
+	 */
+	public FeatureModel read() throws IOException, NotSupportedVariabilityTypeException {
+		final FeatureModelEventBuilder builder = new FeatureModelEventBuilder();
+		read(builder);
+		final FeatureModel model = builder.getFeatureModel();
+		references.link(model);
+		for (final Constraint constraint : model.getOwnConstraints()) {
+			if (!hasConsistentTypes(constraint)) {
+				throw new NotSupportedVariabilityTypeException(
+						String.format("Invalid constraint in line %d", constraint.getLineNumber()));
+			}
+		}
+		return model;
+	}
+
+	/**
+	 * Reads the model and passes it to the given handler. A reader can be used
+	 * once only.
+	 *
+	 * @param handler the handler to pass the model to.
+	 * @throws IOException                          if reading fails.
+	 * @throws NotSupportedVariabilityTypeException if the model is not valid or
+	 *                                              not supported by this reader,
+	 *                                              or the handler fails.
+	 */
+	public void read(final IModelEventHandler handler) throws IOException, NotSupportedVariabilityTypeException {
+		if (this.handler != null) {
+			throw new IllegalStateException("The reader has already been used");
+		}
+		this.handler = Objects.requireNonNull(handler);
+		skipNewlines();
+		String namespace = null;
+		if (lexer.peek().isKeyword("namespace")) {
+			lexer.next();
+			namespace = reference();
+			expect(UVLLexer.NEWLINE);
+			skipNewlines();
+		}
+		if (lexer.peek().isKeyword("include")) {
+			lexer.next();
+			explicitLanguageLevels = true;
+			expect(UVLLexer.NEWLINE);
+			expect(UVLLexer.INDENT);
+			while (!isBlockEnd()) {
+				includeLine();
+			}
+			expect(UVLLexer.DEDENT);
+			skipNewlines();
+		}
+		if (lexer.peek().isKeyword("imports")) {
+			throw lexer.error("Imports are not supported");
+		}
+		started = true;
+		handler.startModel(namespace, explicitLanguageLevels);
+		if (explicitLanguageLevels) {
+			// declared in the order of the model's hash set
+			final Set<LanguageLevel> levels = new FeatureModel().getUsedLanguageLevels();
+			levels.addAll(includedLevels);
+			for (final LanguageLevel level : levels) {
+				handler.languageLevel(level);
+			}
+		}
+		if (lexer.peek().isKeyword("features")) {
+			lexer.next();
+			expect(UVLLexer.NEWLINE);
+			expect(UVLLexer.INDENT);
+			feature();
+			expect(UVLLexer.DEDENT);
+			skipNewlines();
+		}
+		if (lexer.peek().isKeyword("constraints")) {
+			lexer.next();
+			expect(UVLLexer.NEWLINE);
+			expect(UVLLexer.INDENT);
+			while (!isBlockEnd()) {
+				final Constraint constraint = constraint();
+				expect(UVLLexer.NEWLINE);
+				handler.constraint(constraint);
+			}
+			expect(UVLLexer.DEDENT);
+			skipNewlines();
+		}
+		expect(UVLLexer.EOF);
+		if (explicitLanguageLevels && !usedLevels.equals(includedLevels)) {
+			throw new NotSupportedVariabilityTypeException(
+					String.format("Included language levels %s do not match the used language levels %s",
+							includedLevels, usedLevels));
+		}
+		handler.endModel();
+	}
+
+	/**
+	 * Returns whether the reader already passed the start of the model to the
+	 * handler. Until then, a failed read can be repeated with another reader.
+	 *
+	 * @return true if the model has been started.
+	 */
+	public boolean isStarted() {
+		return started;
+	}
+
+	private void includeLine() throws IOException, NotSupportedVariabilityTypeException {
+		final Token majorToken = lexer.next();
+		final LanguageLevel major = LanguageLevel.getLevelByName(majorToken.text);
+		if (majorToken.type != UVLLexer.KEYWORD || major == null || !LanguageLevel.isMajorLevel(major)) {
+			throw lexer.error("Invalid language level " + majorToken.text);
+		}
+		includedLevels.add(major);
+		if (lexer.peek().type == UVLLexer.DOT) {
+			lexer.next();
+			final Token minorToken = lexer.next();
+			final List<LanguageLevel> minors;
+			if (minorToken.type == UVLLexer.MUL) {
+				minors = LanguageLevel.valueOf(major.getValue() + 1);
+			} else {
+				final LanguageLevel minor = LanguageLevel.getLevelByName(minorToken.text);
+				if (minorToken.type != UVLLexer.KEYWORD || minor == null || LanguageLevel.isMajorLevel(minor)) {
+					throw lexer.error("Invalid language level " + minorToken.text);
+				}
+				minors = List.of(minor);
+			}
+			for (final LanguageLevel minor : minors) {
+				if (minor.getValue() - 1 != major.getValue()) {
+					throw lexer.error(String.format("Language level %s does not belong to %s", minor.getName(),
+							major.getName()));
+				}
+				includedLevels.add(minor);
+			}
+		}
+		expect(UVLLexer.NEWLINE);
+	}
+
+	@SuppressWarnings("rawtypes")
+	private void feature() throws IOException, NotSupportedVariabilityTypeException {
+		FeatureType type = null;
+		final Token first = lexer.peek();
+		if (first.isKeyword("String") || first.isKeyword("Integer") || first.isKeyword("Boolean")
+				|| first.isKeyword("Real")) {
+			lexer.next();
+			type = FeatureType.fromString(first.text.toLowerCase());
+			useLevel(LanguageLevel.TYPE_LEVEL);
+		}
+		final String name = reference();
+		if (name.contains(".")) {
+			throw lexer.error("Imported features are not supported");
+		}
+		String lowerBound = null;
+		String upperBound = null;
+		if (lexer.peek().isKeyword("cardinality")) {
+			lexer.next();
+			final String[] bounds = bounds(expect(UVLLexer.CARDINALITY));
+			if ("*".equals(bounds[1])) {
+				throw lexer.error("Feature cardinality must not have * as upper bound");
+			}
+			lowerBound = bounds[0];
+			upperBound = bounds[1];
+			useLevel(LanguageLevel.ARITHMETIC_LEVEL);
+			useLevel(LanguageLevel.FEATURE_CARDINALITY);
+		}
+		handler.startFeature(name, type, lowerBound, upperBound);
+		if (lexer.peek().type == UVLLexer.OPEN_BRACE) {
+			for (final Map.Entry<String, Attribute<?>> attribute : attributes().entrySet()) {
+				handler.attribute(attribute.getKey(), attribute.getValue());
+			}
+		}
+		expect(UVLLexer.NEWLINE);
+		if (lexer.peek().type == UVLLexer.INDENT) {
+			lexer.next();
+			do {
+				group();
+			} while (!isBlockEnd());
+			expect(UVLLexer.DEDENT);
+		}
+		handler.endFeature();
+	}
+
+	private void group() throws IOException, NotSupportedVariabilityTypeException {
+		final Token token = lexer.next();
+		if (token.type == UVLLexer.CARDINALITY) {
+			final String[] bounds = bounds(token);
+			useLevel(LanguageLevel.GROUP_CARDINALITY);
+			handler.startGroup(GroupType.GROUP_CARDINALITY, bounds[0], bounds[1]);
+		} else if (token.isKeyword("or")) {
+			handler.startGroup(GroupType.OR, null, null);
+		} else if (token.isKeyword("alternative")) {
+			handler.startGroup(GroupType.ALTERNATIVE, null, null);
+		} else if (token.isKeyword("optional")) {
+			handler.startGroup(GroupType.OPTIONAL, null, null);
+		} else if (token.isKeyword("mandatory")) {
+			handler.startGroup(GroupType.MANDATORY, null, null);
+		} else {
+			throw lexer.error("Expected a group instead of " + token.text);
+		}
+		expect(UVLLexer.NEWLINE);
+		expect(UVLLexer.INDENT);
+		do {
+			feature();
+		} while (!isBlockEnd());
+		expect(UVLLexer.DEDENT);
+		handler.endGroup();
+	}
+
+	private String[] bounds(final Token cardinality) throws NotSupportedVariabilityTypeException {
+		final String text = cardinality.text.substring(1, cardinality.text.length() - 1);
+		final int separator = text.indexOf("..");
+		if (separator < 0) {
+			// the UVL parser derives single bounds from the text of the whole
+			// rule, which is not reproduced here
+			throw lexer.error("Cardinalities without range are not supported");
+		}
+		return new String[] { text.substring(0, separator), text.substring(separator + 2) };
+	}
+
+	@SuppressWarnings("rawtypes")
+	private Map<String, Attribute<?>> attributes() throws IOException, NotSupportedVariabilityTypeException {
+		expect(UVLLexer.OPEN_BRACE);
+		// filled like the UVL parser does, as the attribute order depends on it
+		final Map<String, Attribute<?>> attributes = new HashMap<>();
+		if (lexer.peek().type != UVLLexer.CLOSE_BRACE) {
+			attribute(attributes);
+			while (lexer.peek().type == UVLLexer.COMMA) {
+				lexer.next();
+				attribute(attributes);
+			}
+		}
+		expect(UVLLexer.CLOSE_BRACE);
+		return attributes;
+	}
+
+	@SuppressWarnings("rawtypes")
+	private void attribute(final Map<String, Attribute<?>> attributes)
+			throws IOException, NotSupportedVariabilityTypeException {
+		final Token token = lexer.next();
+		if (token.isKeyword("constraint")) {
+			attributes.put("constraint", new Attribute<>("constraint", constraint()));
+			return;
+		}
+		if (token.isKeyword("constraints")) {
+			final LinkedList<Constraint> constraints = new LinkedList<>();
+			expect(UVLLexer.OPEN_BRACK);
+			if (lexer.peek().type != UVLLexer.CLOSE_BRACK) {
+				// the UVL parser collects the constraints in reverse order
+				constraints.addFirst(constraint());
+				while (lexer.peek().type == UVLLexer.COMMA) {
+					lexer.next();
+					constraints.addFirst(constraint());
+				}
+			}
+			expect(UVLLexer.CLOSE_BRACK);
+			attributes.put("constraints", new Attribute<>("constraints", constraints));
+			return;
+		}
+		if (token.type != UVLLexer.ID && token.type != UVLLexer.QUOTED_ID) {
+			throw lexer.error("Expected an attribute instead of " + token.text);
+		}
+		final String key = token.text.replace("\"", "");
+		final int next = lexer.peek().type;
+		if (next == UVLLexer.COMMA || next == UVLLexer.CLOSE_BRACE) {
+			attributes.put(key, new Attribute<>(key, true));
+		} else {
+			attributes.put(key, new Attribute<>(key, value()));
+		}
+	}
+
+	private Object value() throws IOException, NotSupportedVariabilityTypeException {
+		final Token token = lexer.peek();
+		switch (token.type) {
+		case UVLLexer.BOOLEAN:
+			lexer.next();
+			return Boolean.parseBoolean(token.text);
+		case UVLLexer.INTEGER:
+			lexer.next();
+			try {
+				return Long.parseLong(token.text);
+			} catch (final NumberFormatException e) {
+				throw lexer.error("Integer out of range");
+			}
+		case UVLLexer.FLOAT:
+			lexer.next();
+			return Double.parseDouble(token.text);
+		case UVLLexer.STRING:
+			lexer.next();
+			return token.text.replace("'", "");
+		case UVLLexer.OPEN_BRACE:
+			return attributes();
+		case UVLLexer.OPEN_BRACK:
+			// the UVL parser keeps the elements of a vector as text
+			final StringBuilder text = new StringBuilder();
+			vector(text);
+			return Arrays.asList(text.substring(1, text.length() - 1).split(","));
+		default:
+			throw lexer.error("Expected a value instead of " + token.text);
+		}
+	}
+
+	private void vector(final StringBuilder text) throws IOException, NotSupportedVariabilityTypeException {
+		text.append(expect(UVLLexer.OPEN_BRACK).text);
+		if (lexer.peek().type != UVLLexer.CLOSE_BRACK) {
+			vectorValue(text);
+			while (lexer.peek().type == UVLLexer.COMMA) {
+				text.append(lexer.next().text);
+				vectorValue(text);
+			}
+		}
+		text.append(expect(UVLLexer.CLOSE_BRACK).text);
+	}
+
+	private void vectorValue(final StringBuilder text) throws IOException, NotSupportedVariabilityTypeException {
+		final Token token = lexer.peek();
+		switch (token.type) {
+		case UVLLexer.BOOLEAN:
+		case UVLLexer.INTEGER:
+		case UVLLexer.FLOAT:
+		case UVLLexer.STRING:
+			text.append(lexer.next().text);
+			break;
+		case UVLLexer.OPEN_BRACK:
+			vector(text);
+			break;
+		default:
+			throw lexer.error("Unsupported vector value " + token.text);
+		}
+	}
+
+	private Constraint constraint() throws IOException, NotSupportedVariabilityTypeException {
+		Constraint left = implication();
+		while (lexer.peek().type == UVLLexer.EQUIVALENCE) {
+			lexer.next();
+			left = withLine(new EquivalenceConstraint(left, implication()), left.getLineNumber());
+		}
+		return left;
+	}
+
+	private Constraint implication() throws IOException, NotSupportedVariabilityTypeException {
+		Constraint left = disjunction();
+		while (lexer.peek().type == UVLLexer.IMPLICATION) {
+			lexer.next();
+			left = withLine(new ImplicationConstraint(left, disjunction()), left.getLineNumber());
+		}
+		return left;
+	}
+
+	private Constraint disjunction() throws IOException, NotSupportedVariabilityTypeException {
+		Constraint left = conjunction();
+		while (lexer.peek().type == UVLLexer.OR) {
+			lexer.next();
+			left = withLine(new OrConstraint(left, conjunction()), left.getLineNumber());
+		}
+		return left;
+	}
+
+	private Constraint conjunction() throws IOException, NotSupportedVariabilityTypeException {
+		Constraint left = negation();
+		while (lexer.peek().type == UVLLexer.AND) {
+			lexer.next();
+			left = withLine(new AndConstraint(left, negation()), left.getLineNumber());
+		}
+		return left;
+	}
+
+	private Constraint negation() throws IOException, NotSupportedVariabilityTypeException {
+		final Token token = lexer.peek();
+		if (token.type == UVLLexer.NOT) {
+			lexer.next();
+			return withLine(new NotConstraint(negation()), token.line);
+		}
+		if (isEquation()) {
+			return equation();
+		}
+		lexer.next();
+		if (token.type == UVLLexer.OPEN_PAREN) {
+			final Constraint content = constraint();
+			expect(UVLLexer.CLOSE_PAREN);
+			return withLine(new ParenthesisConstraint(content), token.line);
+		}
+		if (token.type == UVLLexer.ID || token.type == UVLLexer.QUOTED_ID) {
+			final String literal = reference(token);
+			if (literal.contains(".")) {
+				throw lexer.error("Imported features are not supported");
+			}
+			return withLine(references.add(new LiteralConstraint(literal)), token.line);
+		}
+		throw lexer.error("Expected a constraint instead of " + token.text);
+	}
+
+	/**
+	 * Decides whether the next constraint is an equation by looking for a
+	 * comparison outside of parentheses before the constraint ends.
+	 */
+	private boolean isEquation() throws IOException, NotSupportedVariabilityTypeException {
+		int depth = 0;
+		for (int offset = 0;; offset++) {
+			switch (lexer.peek(offset).type) {
+			case UVLLexer.OPEN_PAREN:
+				depth++;
+				break;
+			case UVLLexer.CLOSE_PAREN:
+				if (depth == 0) {
+					return false;
+				}
+				depth--;
+				break;
+			case UVLLexer.EQUAL:
+			case UVLLexer.NOT_EQUALS:
+			case UVLLexer.LOWER:
+			case UVLLexer.LOWER_EQUALS:
+			case UVLLexer.GREATER:
+			case UVLLexer.GREATER_EQUALS:
+				if (depth == 0) {
+					return true;
+				}
+				break;
+			case UVLLexer.AND:
+			case UVLLexer.OR:
+			case UVLLexer.IMPLICATION:
+			case UVLLexer.EQUIVALENCE:
+			case UVLLexer.NOT:
+				if (depth == 0) {
+					return false;
+				}
+				break;
+			case UVLLexer.NEWLINE:
+			case UVLLexer.INDENT:
+			case UVLLexer.DEDENT:
+			case UVLLexer.COMMA:
+			case UVLLexer.CLOSE_BRACK:
+			case UVLLexer.CLOSE_BRACE:
+			case UVLLexer.EOF:
+				return false;
+			default:
+				break;
+			}
+		}
+	}
+
+	private Constraint equation() throws IOException, NotSupportedVariabilityTypeException {
+		final Expression left = expression(0);
+		final Token operator = lexer.next();
+		final Expression right = expression(0);
+		final ExpressionConstraint constraint;
+		switch (operator.type) {
+		case UVLLexer.EQUAL:
+			constraint = new EqualEquationConstraint(left, right);
+			break;
+		case UVLLexer.NOT_EQUALS:
+			constraint = new NotEqualsEquationConstraint(left, right);
+			break;
+		case UVLLexer.LOWER:
+			constraint = new LowerEquationConstraint(left, right);
+			break;
+		case UVLLexer.LOWER_EQUALS:
+			constraint = new LowerEqualsEquationConstraint(left, right);
+			break;
+		case UVLLexer.GREATER:
+			constraint = new GreaterEquationConstraint(left, right);
+			break;
+		case UVLLexer.GREATER_EQUALS:
+			constraint = new GreaterEqualsEquationConstraint(left, right);
+			break;
+		default:
+			throw lexer.error("Expected a comparison instead of " + operator.text);
+		}
+		return withLine(constraint, left.getLineNumber());
+	}
+
+	/**
+	 * Parses an expression whose operators bind at least as strong as the
+	 * operator at the given index of {@link #EXPRESSION_OPERATORS}. As in the UVL
+	 * parser, addition binds strongest and division weakest.
+	 */
+	private Expression expression(final int level) throws IOException, NotSupportedVariabilityTypeException {
+		if (level == EXPRESSION_OPERATORS.length) {
+			return primaryExpression();
+		}
+		final int operator = EXPRESSION_OPERATORS[level];
+		Expression left = expression(level + 1);
+		while (lexer.peek().type == operator) {
+			lexer.next();
+			final Expression right = expression(level + 1);
+			final Expression expression;
+			switch (operator) {
+			case UVLLexer.DIV:
+				expression = new DivExpression(left, right);
+				break;
+			case UVLLexer.MUL:
+				expression = new MulExpression(left, right);
+				break;
+			case UVLLexer.SUB:
+				expression = new SubExpression(left, right);
+				break;
+			default:
+				expression = new AddExpression(left, right);
+				break;
+			}
+			expression.setLineNumber(left.getLineNumber());
+			left = expression;
+		}
+		return left;
+	}
+
+	private Expression primaryExpression() throws IOException, NotSupportedVariabilityTypeException {
+		final Token token = lexer.next();
+		final Expression expression;
+		switch (token.type) {
+		case UVLLexer.FLOAT:
+			expression = new NumberExpression(Double.parseDouble(token.text));
+			break;
+		case UVLLexer.INTEGER:
+			try {
+				expression = new NumberExpression(Integer.parseInt(token.text));
+			} catch (final NumberFormatException e) {
+				throw lexer.error("Integer out of range");
+			}
+			break;
+		case UVLLexer.STRING:
+			expression = new StringExpression(token.text.replace("'", ""));
+			break;
+		case UVLLexer.OPEN_PAREN:
+			final Expression content = expression(0);
+			expect(UVLLexer.CLOSE_PAREN);
+			expression = new ParenthesisExpression(content);
+			break;
+		case UVLLexer.ID:
+		case UVLLexer.QUOTED_ID:
+			final String reference = reference(token);
+			if (reference.split("\\.").length > 1) {
+				useLevel(LanguageLevel.ARITHMETIC_LEVEL);
+			}
+			expression = references.add(new LiteralExpression(reference));
+			break;
+		default:
+			throw lexer.error("Unsupported expression " + token.text);
+		}
+		expression.setLineNumber(token.line);
+		return expression;
+	}
+
+	private String reference() throws IOException, NotSupportedVariabilityTypeException {
+		return reference(lexer.next());
+	}
+
+	/**
+	 * Reads the reference starting with the given token and returns its text
+	 * without quotes.
+	 */
+	private String reference(final Token first) throws IOException, NotSupportedVariabilityTypeException {
+		if (first.type != UVLLexer.ID && first.type != UVLLexer.QUOTED_ID) {
+			throw lexer.error("Expected a name instead of " + first.text);
+		}
+		if (lexer.peek().type != UVLLexer.DOT) {
+			return first.text.replace("\"", "");
+		}
+		final StringBuilder reference = new StringBuilder(first.text);
+		while (lexer.peek().type == UVLLexer.DOT) {
+			reference.append(lexer.next().text);
+			final Token id = lexer.next();
+			if (id.type != UVLLexer.ID && id.type != UVLLexer.QUOTED_ID) {
+				throw lexer.error("Expected a name instead of " + id.text);
+			}
+			reference.append(id.text);
+		}
+		return reference.toString().replace("\"", "");
+	}
+
+	private static <C extends Constraint> C withLine(final C constraint, final int line) {
+		constraint.setLineNumber(line);
+		return constraint;
+	}
+
+	private void useLevel(final LanguageLevel level) throws NotSupportedVariabilityTypeException {
+		if (usedLevels.add(level) && !explicitLanguageLevels) {
+			handler.languageLevel(level);
+		}
+	}
+
+	private boolean isBlockEnd() throws IOException, NotSupportedVariabilityTypeException {
+		final int type = lexer.peek().type;
+		return type == UVLLexer.DEDENT || type == UVLLexer.EOF;
+	}
+
+	private void skipNewlines() throws IOException, NotSupportedVariabilityTypeException {
+		while (lexer.peek().type == UVLLexer.NEWLINE) {
+			lexer.next();
+		}
+	}
+
+	private Token expect(final int type) throws IOException, NotSupportedVariabilityTypeException {
+		final Token token = lexer.next();
+		if (token.type != type) {
+			throw lexer.error("Unexpected " + (token.type == UVLLexer.EOF ? "end of model" : token.text));
+		}
+		return token;
+	}
+
+	/**
+	 * Checks the types of the expressions of the given constraint, as the UVL
+	 * parser does.
+	 */
+	static boolean hasConsistentTypes(final Constraint constraint) {
+		if (constraint instanceof ExpressionConstraint) {
+			final ExpressionConstraint equation = (ExpressionConstraint) constraint;
+			final String leftType = equation.getLeft().getReturnType();
+			final String rightType = equation.getRight().getReturnType();
+			if (!leftType.equalsIgnoreCase("true") && !rightType.equalsIgnoreCase("true")
+					&& !leftType.equalsIgnoreCase(rightType)) {
+				return false;
+			}
+			for (final Expression expression : equation.getExpressionSubParts()) {
+				if (!hasConsistentTypes(expression)) {
+					return false;
+				}
+			}
+		}
+		for (final Constraint part : constraint.getConstraintSubParts()) {
+			if (!hasConsistentTypes(part)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean hasConsistentTypes(final Expression expression) {
+		final String type = expression.getReturnType();
+		for (final Expression part : expression.getExpressionSubParts()) {
+			if (!hasConsistentTypes(part) || !type.equalsIgnoreCase(part.getReturnType())) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,565 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * Implements a single-file repository of many core models.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+import at.jku.cps.travart.core.exception.NotSupportedVariabilityTypeException;
+import de.vill.model.FeatureModel;
+
+/**
+ * A repository storing many core models in a single append-only file, such
+ * that large corpora do not need one file per model. Each model is stored as
+ * binary UVL snapshot under an id and a version, see {@link BinaryUVL}. A
+ * repository consists of three files:
+ * <ol>
+ * <li>the data file, holding the snapshots one after another,</li>
+ * <li>the index file ({@value #INDEX_EXTENSION}), mapping the id and version
+ * of each snapshot to its byte range in the data file, and</li>
+ * <li>the dictionary file ({@value #DICTIONARY_EXTENSION}), holding the
+ * feature names shared by all snapshots.</li>
+ * </ol>
+ * All files are only appended to. Storing a model again adds a new version,
+ * removing a model only records its removal in the index. The space of
+ * outdated and removed snapshots is reclaimed by {@link #compact(int)}.
+ * <p>
+ * </p>
+ * Snapshots are read from windows of the data file mapped into memory with
+ * {@link FileChannel#map(FileChannel.MapMode, long, long)}, thus reading a
+ * model does not copy the snapshot. Each lookup decodes a new model, thus
+ * callers can change the returned models. Snapshots do not keep the line
+ * numbers of constraints, models with imports can not be stored. Snapshots
+ * partially written when a process was interrupted are discarded when the
+ * repository is opened again. A repository is thread-safe, but must not be
+ * opened by several processes at once.
+ *
+ * @author Kevin Feichtinger
+ */
+public final class UVLRepository implements Closeable {
+	/**
+	 * The file extension of repositories, used to detect repositories given as
+	 * source or target path.
+	 */
+	public static final String EXTENSION = ".tvr";
+
+	/**
+	 * The extension appended to the path of a repository for its index file.
+	 */
+	public static final String INDEX_EXTENSION = ".idx";
+
+	/**
+	 * The extension appended to the path of a repository for its dictionary file.
+	 */
+	public static final String DICTIONARY_EXTENSION = ".dict";
+
+	private static final int WINDOW_SIZE = MappedFileReader.DEFAULT_WINDOW_SIZE;
+	private static final int REMOVED = -1;
+	private static final String COMPACT_SUFFIX = ".compact";
+
+	private final Path file;
+	private final Map<String, NavigableMap<Integer, Entry>> index = new LinkedHashMap<>();
+	private StringDictionary dictionary;
+	private FileChannel data;
+	private DataOutputStream indexOut;
+	private DataOutputStream dictionaryOut;
+	private long end;
+	private int persistedStrings;
+	private MappedByteBuffer window;
+	private long windowStart;
+
+	/**
+	 * Opens the repository stored at the given path, creating it if it does not
+	 * exist.
+	 *
+	 * @param file the path of the data file of the repository.
+	 * @throws IOException if the repository can not be opened.
+	 */
+	public UVLRepository(final Path file) throws IOException {
+		this.file = Objects.requireNonNull(file).toAbsolutePath();
+		final Path parent = this.file.getParent();
+		if (parent != null) {
+			Files.createDirectories(parent);
+		}
+		open();
+	}
+
+	/**
+	 * Returns whether the given path denotes a repository, i.e., has the
+	 * extension {@value #EXTENSION}.
+	 *
+	 * @param path the path to check.
+	 * @return {@code true} if the path denotes a repository.
+	 */
+	public static boolean isRepository(final Path path) {
+		return path.getFileName() != null && path.getFileName().toString().endsWith(EXTENSION);
+	}
+
+	/**
+	 * Returns the path of the data file of the repository.
+	 *
+	 * @return the path of the repository.
+	 */
+	public Path getPath() {
+		return file;
+	}
+
+	/**
+	 * Stores the given model as the next version of the given id.
+	 *
+	 * @param id    the id of the model.
+	 * @param model the model to store.
+	 * @return the version of the stored model, starting at 1.
+	 * @throws IOException                          if the model can not be
+	 *                                              written.
+	 * @throws NotSupportedVariabilityTypeException if the model can not be stored
+	 *                                              as binary UVL snapshot.
+	 */
+	public synchronized int put(final String id, final FeatureModel model)
+			throws IOException, NotSupportedVariabilityTypeException {
+		final NavigableMap<Integer, Entry> versions = index.get(Objects.requireNonNull(id));
+		final int version = versions == null ? 1 : versions.lastKey() + 1;
+		append(id, version, model);
+		return version;
+	}
+
+	/**
+	 * Returns the latest version of the model with the given id.
+	 *
+	 * @param id the id of the model.
+	 * @return a new instance of the model, or {@code null} if the repository
+	 *         does not contain the id.
+	 * @throws IOException                          if the snapshot can not be
+	 *                                              read.
+	 * @throws NotSupportedVariabilityTypeException if the snapshot is damaged.
+	 */
+	public FeatureModel get(final String id) throws IOException, NotSupportedVariabilityTypeException {
+		final ByteBuffer snapshot;
+		final StringDictionary strings;
+		synchronized (this) {
+			final NavigableMap<Integer, Entry> versions = index.get(id);
+			if (versions == null) {
+				return null;
+			}
+			snapshot = snapshot(versions.lastEntry().getValue());
+			strings = dictionary;
+		}
+		return BinaryUVLReader.read(new ByteBufferInputStream(snapshot), strings);
+	}
+
+	/**
+	 * Returns the given version of the model with the given id.
+	 *
+	 * @param id      the id of the model.
+	 * @param version the version of the model.
+	 * @return a new instance of the model, or {@code null} if the repository
+	 *         does not contain the version.
+	 * @throws IOException                          if the snapshot can not be
+	 *                                              read.
+	 * @throws NotSupportedVariabilityTypeException if the snapshot is damaged.
+	 */
+	public FeatureModel get(final String id, final int version)
+			throws IOException, NotSupportedVariabilityTypeException {
+		final ByteBuffer snapshot;
+		final StringDictionary strings;
+		synchronized (this) {
+			final NavigableMap<Integer, Entry> versions = index.get(id);
+			final Entry entry = versions == null ? null : versions.get(version);
+			if (entry == null) {
+				return null;
+			}
+			snapshot = snapshot(entry);
+			strings = dictionary;
+		}
+		return BinaryUVLReader.read(new ByteBufferInputStream(snapshot), strings);
+	}
+
+	/**
+	 * Returns the ids of the models in the repository, in the order they were
+	 * first stored.
+	 *
+	 * @return an unmodifiable copy of the ids.
+	 */
+	public synchronized Set<String> ids() {
+		return Collections.unmodifiableSet(new LinkedHashSet<>(index.keySet()));
+	}
+
+	/**
+	 * Returns the stored versions of the model with the given id.
+	 *
+	 * @param id the id of the model.
+	 * @return the ascending versions of the model, empty if the repository does
+	 *         not contain the id.
+	 */
+	public synchronized List<Integer> versions(final String id) {
+		final NavigableMap<Integer, Entry> versions = index.get(id);
+		return versions == null ? Collections.emptyList() : List.copyOf(versions.keySet());
+	}
+
+	/**
+	 * Removes all versions of the model with the given id. The space of the
+	 * snapshots is reclaimed by the next compaction.
+	 *
+	 * @param id the id of the model.
+	 * @return {@code true} if the repository contained the id.
+	 * @throws IOException if the removal can not be recorded.
+	 */
+	public synchronized boolean remove(final String id) throws IOException {
+		final NavigableMap<Integer, Entry> versions = index.remove(id);
+		if (versions == null) {
+			return false;
+		}
+		writeEntry(indexOut, id, versions.lastKey(), 0, REMOVED);
+		indexOut.flush();
+		return true;
+	}
+
+	/**
+	 * Rewrites the repository, keeping only the given number of latest versions
+	 * of each model. The snapshots are re-encoded, such that the dictionary only
+	 * holds the feature names of the kept models. Versions keep their numbers.
+	 * The files are replaced one after another, thus the repository may be
+	 * damaged if the process is interrupted while replacing them.
+	 *
+	 * @param versions the number of versions kept per model, at least 1.
+	 * @throws IOException                          if the repository can not be
+	 *                                              rewritten.
+	 * @throws NotSupportedVariabilityTypeException if a snapshot is damaged.
+	 */
+	public synchronized void compact(final int versions) throws IOException, NotSupportedVariabilityTypeException {
+		if (versions < 1) {
+			throw new IllegalArgumentException("At least one version must be kept");
+		}
+		final Path target = file.resolveSibling(file.getFileName() + COMPACT_SUFFIX);
+		try (UVLRepository compacted = new UVLRepository(target)) {
+			compacted.clear();
+			for (final Map.Entry<String, NavigableMap<Integer, Entry>> model : index.entrySet()) {
+				final List<Integer> all = new ArrayList<>(model.getValue().keySet());
+				for (final int version : all.subList(Math.max(0, all.size() - versions), all.size())) {
+					compacted.append(model.getKey(), version, get(model.getKey(), version));
+				}
+			}
+		}
+		close();
+		try {
+			move(indexFile(target), indexFile(file));
+			move(dictionaryFile(target), dictionaryFile(file));
+			move(target, file);
+		} finally {
+			index.clear();
+			open();
+		}
+	}
+
+	/**
+	 * Removes all models from the repository.
+	 *
+	 * @throws IOException if the files can not be truncated.
+	 */
+	public synchronized void clear() throws IOException {
+		close();
+		for (final Path path : List.of(file, indexFile(file), dictionaryFile(file))) {
+			Files.deleteIfExists(path);
+		}
+		index.clear();
+		open();
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		window = null;
+		if (data == null) {
+			return;
+		}
+		final FileChannel channel = data;
+		final OutputStream indexStream = indexOut;
+		final OutputStream dictionaryStream = dictionaryOut;
+		data = null;
+		indexOut = null;
+		dictionaryOut = null;
+		// close all files, even if closing one of them fails, the streams are
+		// missing if opening the repository failed
+		try {
+			if (dictionaryStream != null) {
+				dictionaryStream.close();
+			}
+		} finally {
+			try {
+				if (indexStream != null) {
+					indexStream.close();
+				}
+			} finally {
+				channel.close();
+			}
+		}
+	}
+
+	private void open() throws IOException {
+		final Path indexFile = indexFile(file);
+		final Path dictionaryFile = dictionaryFile(file);
+		dictionary = readDictionary(dictionaryFile);
+		persistedStrings = dictionary.size();
+		data = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		end = readIndex(indexFile, data.size());
+		// discard the remains of interrupted writes
+		if (data.size() > end) {
+			data.truncate(end);
+		}
+		indexOut = new DataOutputStream(new BufferedOutputStream(
+				Files.newOutputStream(indexFile, StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+		dictionaryOut = new DataOutputStream(new BufferedOutputStream(
+				Files.newOutputStream(dictionaryFile, StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+	}
+
+	/**
+	 * Reads the dictionary file, truncating a partially written last string.
+	 */
+	private static StringDictionary readDictionary(final Path dictionaryFile) throws IOException {
+		final StringDictionary strings = new StringDictionary();
+		if (!Files.exists(dictionaryFile)) {
+			return strings;
+		}
+		long valid = 0;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(dictionaryFile)))) {
+			while (true) {
+				final String string = readText(in);
+				if (string == null) {
+					break;
+				}
+				strings.add(string);
+				valid += textSize(string);
+			}
+		}
+		truncate(dictionaryFile, valid);
+		return strings;
+	}
+
+	/**
+	 * Reads the index file, ignoring entries of snapshots not completely written
+	 * and truncating a partially written last entry.
+	 *
+	 * @return the end of the last complete snapshot.
+	 */
+	private long readIndex(final Path indexFile, final long dataSize) throws IOException {
+		long last = 0;
+		if (!Files.exists(indexFile)) {
+			return last;
+		}
+		long valid = 0;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+			while (true) {
+				final String id = readText(in);
+				if (id == null) {
+					break;
+				}
+				final int version;
+				final long offset;
+				final int length;
+				try {
+					version = in.readInt();
+					offset = in.readLong();
+					length = in.readInt();
+				} catch (final EOFException e) {
+					break;
+				}
+				if (length == REMOVED) {
+					index.remove(id);
+				} else {
+					if (offset + length > dataSize) {
+						break;
+					}
+					index.computeIfAbsent(id, key -> new TreeMap<>()).put(version, new Entry(offset, length));
+					last = Math.max(last, offset + length);
+				}
+				valid += entrySize(id);
+			}
+		}
+		truncate(indexFile, valid);
+		return last;
+	}
+
+	private void append(final String id, final int version, final FeatureModel model)
+			throws IOException, NotSupportedVariabilityTypeException {
+		final ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+		BinaryUVLWriter.write(model, snapshot, dictionary);
+		// the dictionary is written first, the index entry last, such that the
+		// index only refers to complete snapshots
+		final int size = dictionary.size();
+		for (int i = persistedStrings; i < size; i++) {
+			writeText(dictionaryOut, dictionary.get(i));
+		}
+		dictionaryOut.flush();
+		persistedStrings = size;
+		final ByteBuffer bytes = ByteBuffer.wrap(snapshot.toByteArray());
+		final long offset = end;
+		long position = offset;
+		while (bytes.hasRemaining()) {
+			position += data.write(bytes, position);
+		}
+		end = position;
+		writeEntry(indexOut, id, version, offset, snapshot.size());
+		indexOut.flush();
+		index.computeIfAbsent(id, key -> new TreeMap<>()).put(version, new Entry(offset, snapshot.size()));
+	}
+
+	/**
+	 * Returns the bytes of the given snapshot, mapping the window of the data
+	 * file holding it if the current window does not.
+	 */
+	private ByteBuffer snapshot(final Entry entry) throws IOException {
+		if (data == null) {
+			throw new IOException("Repository closed");
+		}
+		if (entry.length > WINDOW_SIZE) {
+			return data.map(FileChannel.MapMode.READ_ONLY, entry.offset, entry.length);
+		}
+		if (window == null || entry.offset < windowStart
+				|| entry.offset + entry.length > windowStart + window.capacity()) {
+			windowStart = entry.offset;
+			window = data.map(FileChannel.MapMode.READ_ONLY, windowStart, Math.min(WINDOW_SIZE, end - windowStart));
+		}
+		final ByteBuffer snapshot = window.duplicate();
+		snapshot.position((int) (entry.offset - windowStart));
+		snapshot.limit(snapshot.position() + entry.length);
+		return snapshot.slice();
+	}
+
+	private static void writeEntry(final DataOutputStream out, final String id, final int version, final long offset,
+			final int length) throws IOException {
+		writeText(out, id);
+		out.writeInt(version);
+		out.writeLong(offset);
+		out.writeInt(length);
+	}
+
+	private static long entrySize(final String id) {
+		return textSize(id) + Integer.BYTES + Long.BYTES + Integer.BYTES;
+	}
+
+	private static void writeText(final DataOutputStream out, final String text) throws IOException {
+		final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * Reads a string written by {@link #writeText(DataOutputStream, String)}.
+	 *
+	 * @return the string, or {@code null} if the stream ends before the string
+	 *         is complete.
+	 */
+	private static String readText(final DataInputStream in) throws IOException {
+		try {
+			final byte[] bytes = new byte[in.readInt()];
+			in.readFully(bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		} catch (final EOFException e) {
+			return null;
+		}
+	}
+
+	private static long textSize(final String text) {
+		return Integer.BYTES + text.getBytes(StandardCharsets.UTF_8).length;
+	}
+
+	private static void truncate(final Path path, final long size) throws IOException {
+		if (Files.size(path) > size) {
+			try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+				channel.truncate(size);
+			}
+		}
+	}
+
+	private static void move(final Path source, final Path target) throws IOException {
+		Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private static Path indexFile(final Path file) {
+		return file.resolveSibling(file.getFileName() + INDEX_EXTENSION);
+	}
+
+	private static Path dictionaryFile(final Path file) {
+		return file.resolveSibling(file.getFileName() + DICTIONARY_EXTENSION);
+	}
+
+	/**
+	 * The byte range of a snapshot in the data file.
+	 */
+	private static final class Entry {
+		private final long offset;
+		private final int length;
+
+		private Entry(final long offset, final int length) {
+			this.offset = offset;
+			this.length = length;
+		}
+	}
+
+	/**
+	 * An input stream reading the remaining bytes of a buffer.
+	 */
+	private static final class ByteBufferInputStream extends InputStream {
+		private final ByteBuffer buffer;
+
+		private ByteBufferInputStream(final ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+			return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+		}
+
+		@Override
+		public int read(final byte[] bytes, final int offset, final int length) {
+			if (length == 0) {
+				return 0;
+			}
+			if (!buffer.hasRemaining()) {
+				return -1;
+			}
+			final int read = Math.min(length, buffer.remaining());
+			buffer.get(bytes, offset, read);
+			return read;
+		}
+	}
+}
@@ -15,9 +15,17 @@
  *******************************************************************************/
 package at.jku.cps.travart.core.io;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
 import at.jku.cps.travart.core.common.Format;
-import at.jku.cps.travart.core.common.ISerializer;
+import at.jku.cps.travart.core.common.IModelEventHandler;
+import at.jku.cps.travart.core.common.IStreamingSerializer;
 import at.jku.cps.travart.core.exception.NotSupportedVariabilityTypeException;
+import at.jku.cps.travart.core.stream.FeatureModelEventEmitter;
 import de.vill.model.FeatureModel;
 
 /**
@@ -31,17 +39,125 @@ import de.vill.model.FeatureModel;
  *      Repository</a>
  * @see <a href="https://modevar.github.io/">MODEVAR initiative</a>
  */
-public class UVLSerializer implements ISerializer<FeatureModel> {
+public class UVLSerializer implements IStreamingSerializer<FeatureModel> {
 	public static Format UVL_FORMAT = new Format("UVL", ".uvl", true, true);
+	public static Format UVL_BINARY_FORMAT = new Format("UVL binary", ".uvlb", false, false);
+
+	/**
+	 * The default number of features from which subtrees are rendered
+	 * concurrently, see {@link #UVLSerializer(Format, int)}.
+	 */
+	public static final int DEFAULT_PARALLEL_THRESHOLD = 10_000;
+
+	private final Format format;
+	private final int parallelThreshold;
+
+	/**
+	 * Creates a serializer writing textual UVL.
+	 */
+	public UVLSerializer() {
+		this(UVL_FORMAT);
+	}
+
+	/**
+	 * Creates a serializer writing the given format, either {@link #UVL_FORMAT}
+	 * or {@link #UVL_BINARY_FORMAT}.
+	 *
+	 * @param format the format to write.
+	 */
+	public UVLSerializer(final Format format) {
+		this(format, 0);
+	}
+
+	/**
+	 * Creates a serializer writing the given format, which renders large textual
+	 * models concurrently. Subtrees of the feature tree with at least the given
+	 * number of features are split into their child subtrees, which are rendered
+	 * concurrently; constraints are rendered concurrently in chunks of the given
+	 * size. The output is identical to the sequential output. Models with
+	 * imports are always rendered sequentially.
+	 *
+	 * @param format            the format to write.
+	 * @param parallelThreshold the number of features from which subtrees are
+	 *                          rendered concurrently, or 0 to render
+	 *                          sequentially.
+	 */
+	public UVLSerializer(final Format format, final int parallelThreshold) {
+		if (!UVL_FORMAT.equals(format) && !UVL_BINARY_FORMAT.equals(format)) {
+			throw new IllegalArgumentException(String.format("Unsupported format %s", format));
+		}
+		if (parallelThreshold < 0) {
+			throw new IllegalArgumentException("The parallel threshold must not be negative");
+		}
+		this.format = format;
+		this.parallelThreshold = parallelThreshold;
+	}
 
 	@Override
 	public String serialize(FeatureModel uvlModel) throws NotSupportedVariabilityTypeException {
-		return uvlModel.toString();
+		if (!format.isText()) {
+			throw new NotSupportedVariabilityTypeException("This serializer does not support text-based serialization.");
+		}
+		if (!isParallel(uvlModel)) {
+			return uvlModel.toString();
+		}
+		final StringWriter writer = new StringWriter();
+		ParallelUVLWriter.write(uvlModel, writer, parallelThreshold);
+		return writer.toString();
+	}
+
+	/**
+	 * Renders the model directly into the given writer, line by line. Models with
+	 * imports are rendered with {@link FeatureModel#toString()}.
+	 */
+	@Override
+	public void serialize(final FeatureModel uvlModel, final Writer writer)
+			throws IOException, NotSupportedVariabilityTypeException {
+		if (!format.isText()) {
+			throw new NotSupportedVariabilityTypeException("This serializer does not support text-based serialization.");
+		}
+		if (!uvlModel.getImports().isEmpty()) {
+			writer.write(uvlModel.toString());
+			writer.flush();
+			return;
+		}
+		try {
+			if (isParallel(uvlModel)) {
+				ParallelUVLWriter.write(uvlModel, writer, parallelThreshold);
+			} else {
+				FeatureModelEventEmitter.emit(uvlModel, createEventWriter(writer));
+			}
+		} catch (final UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Writes the model as binary UVL snapshot if this serializer uses the
+	 * {@link #UVL_BINARY_FORMAT}, otherwise as UTF-8 encoded text.
+	 */
+	@Override
+	public void serialize(final FeatureModel uvlModel, final OutputStream stream)
+			throws IOException, NotSupportedVariabilityTypeException {
+		if (format.isText()) {
+			IStreamingSerializer.super.serialize(uvlModel, stream);
+		} else {
+			BinaryUVLWriter.write(uvlModel, stream);
+		}
+	}
+
+	private boolean isParallel(final FeatureModel uvlModel) {
+		return parallelThreshold > 0 && uvlModel.getImports().isEmpty();
+	}
+
+	@Override
+	public IModelEventHandler createEventWriter(final Writer writer) {
+		return new UVLEventWriter(writer);
 	}
 
 	@Override
 	public Format getFormat() {
-		return UVL_FORMAT;
+		return format;
 	}
 
 }
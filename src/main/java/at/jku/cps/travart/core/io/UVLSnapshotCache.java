@@ -0,0 +1,322 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * Implements a cache of binary snapshots of parsed UVL models.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+
+import at.jku.cps.travart.core.exception.NotSupportedVariabilityTypeException;
+import de.vill.main.UVLModelFactory;
+import de.vill.model.FeatureModel;
+
+/**
+ * An opt-in cache of parsed UVL models, such that jobs reading the same files
+ * repeatedly, e.g., validation, statistics and transformation in one CI run,
+ * parse each file once. Models are stored as binary UVL snapshots in a
+ * directory, keyed by the SHA-256 hash of the source content and the version
+ * of the UVL parser and snapshot format. The directory is bounded in size;
+ * the least recently used snapshots are deleted first. Recently used snapshots
+ * are additionally kept in memory.
+ * <p>
+ * </p>
+ * Each lookup decodes a new model, thus callers can change the returned models.
+ * Snapshots do not keep the line numbers of constraints. Models with imports
+ * are not cached, as their content hash does not cover the imported files.
+ * Caches are thread-safe and can be shared by several processes using the same
+ * directory.
+ *
+ * @author Kevin Feichtinger
+ * @see UVLDeserializer#UVLDeserializer(UVLImportResolver, UVLSnapshotCache)
+ */
+public final class UVLSnapshotCache {
+	/**
+	 * The version of the UVL parser and the snapshot format, part of each key.
+	 */
+	public static final String PARSER_VERSION = parserVersion() + "-" + BinaryUVL.VERSION;
+
+	/**
+	 * The default maximum size of the snapshots in the cache directory.
+	 */
+	public static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+
+	/**
+	 * The default maximum number of snapshots kept in memory.
+	 */
+	public static final int DEFAULT_MEMORY_ENTRIES = 64;
+
+	private static final String HASH_ALGORITHM = "SHA-256";
+	private static final String PARSER_PROPERTIES = "/META-INF/maven/io.github.universal-variability-language/uvl-parser/pom.properties";
+	private static final String TEMP_SUFFIX = ".tmp";
+
+	private final Path directory;
+	private final long maxBytes;
+	private final Map<String, byte[]> memory;
+	private long bytes = -1;
+
+	/**
+	 * Creates a cache storing snapshots in the given directory with the default
+	 * limits.
+	 *
+	 * @param directory the directory to store the snapshots in. It is created if
+	 *                  it does not exist.
+	 * @throws IOException if the directory can not be created.
+	 */
+	public UVLSnapshotCache(final Path directory) throws IOException {
+		this(directory, DEFAULT_MAX_BYTES, DEFAULT_MEMORY_ENTRIES);
+	}
+
+	/**
+	 * Creates a cache storing snapshots in the given directory.
+	 *
+	 * @param directory     the directory to store the snapshots in. It is created
+	 *                      if it does not exist.
+	 * @param maxBytes      the maximum size of the snapshots in the directory.
+	 * @param memoryEntries the maximum number of snapshots kept in memory.
+	 * @throws IOException if the directory can not be created.
+	 */
+	public UVLSnapshotCache(final Path directory, final long maxBytes, final int memoryEntries) throws IOException {
+		if (maxBytes < 0 || memoryEntries < 0) {
+			throw new IllegalArgumentException("The cache limits must not be negative");
+		}
+		this.directory = Files.createDirectories(Objects.requireNonNull(directory));
+		this.maxBytes = maxBytes;
+		memory = new LinkedHashMap<>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<String, byte[]> eldest) {
+				return size() > memoryEntries;
+			}
+		};
+	}
+
+	/**
+	 * Returns the key of the given source content.
+	 *
+	 * @param content the content of a UVL file.
+	 * @return the key of the content.
+	 */
+	public String key(final byte[] content) {
+		final byte[] hash;
+		try {
+			hash = MessageDigest.getInstance(HASH_ALGORITHM).digest(content);
+		} catch (final NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		final StringBuilder key = new StringBuilder(hash.length * 2 + PARSER_VERSION.length() + 1);
+		for (final byte b : hash) {
+			key.append(Character.forDigit(b >> 4 & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		}
+		return key.append('-').append(PARSER_VERSION).toString();
+	}
+
+	/**
+	 * Returns the model cached for the given key.
+	 *
+	 * @param key the key of the model, see {@link #key(byte[])}.
+	 * @return a new instance of the cached model, or {@code null} if no model is
+	 *         cached for the key.
+	 * @throws IOException if the snapshot can not be read.
+	 */
+	public FeatureModel get(final String key) throws IOException {
+		byte[] snapshot;
+		synchronized (memory) {
+			snapshot = memory.get(key);
+		}
+		final Path file = file(key);
+		if (snapshot == null) {
+			try {
+				snapshot = Files.readAllBytes(file);
+			} catch (final NoSuchFileException e) {
+				return null;
+			}
+			synchronized (memory) {
+				memory.put(key, snapshot);
+			}
+		}
+		try (InputStream stream = new ByteArrayInputStream(snapshot)) {
+			final FeatureModel model = BinaryUVLReader.read(stream);
+			touch(file);
+			return model;
+		} catch (final NotSupportedVariabilityTypeException | IOException e) {
+			// a damaged snapshot is treated as missing
+			remove(key);
+			return null;
+		}
+	}
+
+	/**
+	 * Caches the given model for the given key. Models with imports are not
+	 * cached.
+	 *
+	 * @param key   the key of the model, see {@link #key(byte[])}.
+	 * @param model the model to cache.
+	 * @throws IOException if the snapshot can not be written.
+	 */
+	public void put(final String key, final FeatureModel model) throws IOException {
+		if (!model.getImports().isEmpty()) {
+			return;
+		}
+		final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		try {
+			BinaryUVLWriter.write(model, stream);
+		} catch (final NotSupportedVariabilityTypeException e) {
+			// models the snapshot format does not support are not cached
+			return;
+		}
+		final byte[] snapshot = stream.toByteArray();
+		synchronized (memory) {
+			memory.put(key, snapshot);
+		}
+		if (snapshot.length > maxBytes) {
+			return;
+		}
+		final Path file = file(key);
+		final Path temp = Files.createTempFile(directory, key, TEMP_SUFFIX);
+		try {
+			Files.write(temp, snapshot);
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+		added(snapshot.length);
+	}
+
+	/**
+	 * Removes all snapshots from the cache.
+	 *
+	 * @throws IOException if a snapshot can not be deleted.
+	 */
+	public synchronized void clear() throws IOException {
+		synchronized (memory) {
+			memory.clear();
+		}
+		for (final Path file : snapshots()) {
+			Files.deleteIfExists(file);
+		}
+		bytes = 0;
+	}
+
+	private Path file(final String key) {
+		return directory.resolve(key + UVLSerializer.UVL_BINARY_FORMAT.extension());
+	}
+
+	private void remove(final String key) throws IOException {
+		synchronized (memory) {
+			memory.remove(key);
+		}
+		Files.deleteIfExists(file(key));
+	}
+
+	private static void touch(final Path file) {
+		try {
+			Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+		} catch (final IOException e) {
+			// snapshots only kept in memory or deleted concurrently are not touched
+		}
+	}
+
+	/**
+	 * Accounts for a newly written snapshot and deletes the least recently used
+	 * snapshots if the directory exceeds its size limit. The size of the
+	 * directory is determined on the first write.
+	 */
+	private synchronized void added(final long size) throws IOException {
+		if (bytes < 0) {
+			bytes = 0;
+			for (final Path file : snapshots()) {
+				bytes += sizeOf(file);
+			}
+		} else {
+			bytes += size;
+		}
+		if (bytes <= maxBytes) {
+			return;
+		}
+		final List<Path> files = snapshots();
+		final Map<Path, BasicFileAttributes> attributes = new LinkedHashMap<>();
+		for (final Path file : files) {
+			try {
+				attributes.put(file, Files.readAttributes(file, BasicFileAttributes.class));
+			} catch (final NoSuchFileException e) {
+				// deleted concurrently
+			}
+		}
+		files.retainAll(attributes.keySet());
+		files.sort(Comparator.comparing(file -> attributes.get(file).lastModifiedTime()));
+		bytes = 0;
+		for (final BasicFileAttributes fileAttributes : attributes.values()) {
+			bytes += fileAttributes.size();
+		}
+		for (final Path file : files) {
+			if (bytes <= maxBytes) {
+				break;
+			}
+			Files.deleteIfExists(file);
+			bytes -= attributes.get(file).size();
+		}
+	}
+
+	private List<Path> snapshots() throws IOException {
+		final List<Path> files = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+				"*" + UVLSerializer.UVL_BINARY_FORMAT.extension())) {
+			for (final Path file : stream) {
+				files.add(file);
+			}
+		}
+		return files;
+	}
+
+	private static long sizeOf(final Path file) throws IOException {
+		try {
+			return Files.size(file);
+		} catch (final NoSuchFileException e) {
+			return 0;
+		}
+	}
+
+	private static String parserVersion() {
+		try (InputStream stream = UVLModelFactory.class.getResourceAsStream(PARSER_PROPERTIES)) {
+			if (stream != null) {
+				final Properties properties = new Properties();
+				properties.load(stream);
+				return properties.getProperty("version", "unknown");
+			}
+		} catch (final IOException e) {
+			// fall through to the unknown version
+		}
+		return "unknown";
+	}
+}
@@ -16,16 +16,21 @@
 package at.jku.cps.travart.core.optimize;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Optional;
 import java.util.Set;
 
-import org.logicng.formulas.FormulaFactory;
-
 import at.jku.cps.travart.core.common.IModelOptimizer;
+import at.jku.cps.travart.core.factory.impl.ConstraintInterner;
 import at.jku.cps.travart.core.factory.impl.CoreModelFactory;
+import at.jku.cps.travart.core.helpers.ConstraintAnalysis;
+import at.jku.cps.travart.core.helpers.ConstraintIndex;
+import at.jku.cps.travart.core.helpers.FeatureTraversal;
+import at.jku.cps.travart.core.helpers.FormulaContext;
+import at.jku.cps.travart.core.helpers.FormulaConverter;
 import at.jku.cps.travart.core.helpers.TraVarTUtils;
 import de.vill.model.Feature;
 import de.vill.model.FeatureModel;
@@ -35,9 +40,12 @@ import de.vill.model.constraint.LiteralConstraint;
 
 public class DefaultCoreModelOptimizer implements IModelOptimizer<FeatureModel> {
 
-	private static final CoreModelFactory factory = CoreModelFactory.getInstance();
 	private static DefaultCoreModelOptimizer instance;
 
+	// the passes inspect the operands of the CNF in the shape of the UVL parser
+	private static final FormulaConverter CNF_CONVERTER = new FormulaConverter(CoreModelFactory.getInstance(),
+			false);
+
 	private DefaultCoreModelOptimizer() {
 
 	}
@@ -50,11 +58,15 @@ public class DefaultCoreModelOptimizer implements IModelOptimizer<FeatureModel>
 	}
 
 	private static void fixFalseOptionalFeaturesByFeatureGroupConstraints(final FeatureModel fm,
-			final Feature feature) {
-		final Set<Feature> children = TraVarTUtils.getChildren(feature);
-		for (final Feature child : children) {
-			fixFalseOptionalFeaturesByFeatureGroupConstraints(fm, child);
+			final ConstraintInterner factory) {
+		for (final Feature feature : FeatureTraversal.postOrder(TraVarTUtils.getRoot(fm))) {
+			fixFalseOptionalFeaturesByFeatureGroupConstraints(fm, factory, feature);
 		}
+	}
+
+	private static void fixFalseOptionalFeaturesByFeatureGroupConstraints(final FeatureModel fm,
+			final ConstraintInterner factory, final Feature feature) {
+		final Set<Feature> children = TraVarTUtils.getChildren(feature);
 		// if there is a requires constraint in the feature model between parent and
 		// child, we can remove the constraint and make the child mandatory
 		for (final Feature childFeature : children) {
@@ -72,8 +84,7 @@ public class DefaultCoreModelOptimizer implements IModelOptimizer<FeatureModel>
 			throws ReflectiveOperationException {
 		final List<de.vill.model.constraint.Constraint> toDelete = new ArrayList<>();
 		for (final de.vill.model.constraint.Constraint constr : TraVarTUtils.getOwnConstraints(fm)) {
-			final de.vill.model.constraint.Constraint cnf = TraVarTUtils.buildConstraintFromFormula(
-					TraVarTUtils.buildFormulaFromConstraint(constr, new FormulaFactory()).cnf());
+			final de.vill.model.constraint.Constraint cnf = CNF_CONVERTER.convert(ConstraintAnalysis.of(constr).getCnf());
 
 			if (TraVarTUtils.isRequires(constr)) {
 				final de.vill.model.constraint.Constraint left = TraVarTUtils.getLeftConstraint(cnf);
@@ -97,15 +108,22 @@ public class DefaultCoreModelOptimizer implements IModelOptimizer<FeatureModel>
 				}
 			}
 		}
-		toDelete.forEach(fm.getOwnConstraints()::remove);
+		toDelete.forEach(c -> TraVarTUtils.removeOwnConstraint(fm, c));
 	}
 
 	// TODO: check - Is this method correct? Is it necessary?!
+	private static void fixFalseOptionalFeaturesByAbstractFeatureGroup(final FeatureModel fm) {
+		// the features are moved to the groups of their parents, thus the order is
+		// fixed before
+		final List<Feature> features = new ArrayList<>();
+		FeatureTraversal.postOrder(TraVarTUtils.getRoot(fm)).forEach(features::add);
+		for (final Feature feature : features) {
+			fixFalseOptionalFeaturesByAbstractFeatureGroup(fm, feature);
+		}
+	}
+
 	private static void fixFalseOptionalFeaturesByAbstractFeatureGroup(final FeatureModel fm, final Feature feature) {
 		final Set<Feature> children = TraVarTUtils.getChildren(feature);
-		for (final Feature child : children) {
-			fixFalseOptionalFeaturesByAbstractFeatureGroup(fm, child);
-		}
 		if (!children.isEmpty() && TraVarTUtils.isAbstract(feature)
 //				&& !TraVarTUtils.isAbstract(feature.getParentFeature())
 				&& (TraVarTUtils.checkGroupType(feature, Group.GroupType.OR)
@@ -121,11 +139,20 @@ public class DefaultCoreModelOptimizer implements IModelOptimizer<FeatureModel>
 		}
 	}
 
-	private static void transformConstraintsToAlternativeGroup(final FeatureModel fm, final Feature feature) {
+	private static void transformConstraintsToAlternativeGroup(final FeatureModel fm,
+			final ConstraintInterner factory) {
+		for (final Feature feature : FeatureTraversal.postOrder(TraVarTUtils.getRoot(fm))) {
+			transformConstraintsToAlternativeGroup(fm, factory, feature);
+		}
+	}
+
+	private static void transformConstraintsToAlternativeGroup(final FeatureModel fm,
+			final ConstraintInterner factory, final Feature feature) {
 		final Set<Feature> children = TraVarTUtils.getChildren(feature);
-		final Set<de.vill.model.constraint.Constraint> relevantExcludesConstraints = new HashSet<>();
+		// the interned constraints are equal if and only if they are identical
+		final Set<de.vill.model.constraint.Constraint> relevantExcludesConstraints = Collections
+				.newSetFromMap(new IdentityHashMap<>());
 		for (final Feature childFeature : children) {
-			transformConstraintsToAlternativeGroup(fm, childFeature);
 			final Set<Feature> otherChildren = new HashSet<>(children);
 			otherChildren.remove(childFeature);
 			for (final Feature other : otherChildren) {
@@ -133,32 +160,22 @@ public class DefaultCoreModelOptimizer implements IModelOptimizer<FeatureModel>
 						factory.createLiteralConstraint(TraVarTUtils.getFeatureName(childFeature)),
 						factory.createNotConstraint(
 								factory.createLiteralConstraint(TraVarTUtils.getFeatureName(other))));
-				// TODO: toStringEquals: hack for now but should be removed as soon library
-				// properly overrieds equals hashcode
-				if (TraVarTUtils.hasOwnConstraint(fm, constraint)
-						|| toStringEquals(fm.getOwnConstraints(), constraint)) {
+				if (ConstraintIndex.of(fm).find(constraint) != null) {
 					relevantExcludesConstraints.add(constraint);
 				}
 			}
 		}
 		if (isAlternativeGroup(children, relevantExcludesConstraints)) {
 			children.forEach(c -> TraVarTUtils.setGroup(fm, c, feature, Group.GroupType.ALTERNATIVE));
-			// TODO: toStringEquals: hack for now but should be removed as soon library
-			// properly overrieds equals hashcode; code in the next line is the replacement
-			relevantExcludesConstraints.forEach(c -> removeExcludesConstraint(fm.getOwnConstraints(), c));
-			// relevantExcludesConstraints.forEach(c -> TraVarTUtils.removeOwnConstraint(fm,
-			// c));
+			relevantExcludesConstraints.forEach(c -> removeExcludesConstraint(fm, c));
 		}
 	}
 
-	private static void removeExcludesConstraint(final List<Constraint> ownConstraints, final Constraint constraint) {
-		final Optional<Constraint> constr = ownConstraints.stream()
-				.filter(oc -> oc.toString().equals(constraint.toString())).findFirst();
-		constr.ifPresent(ownConstraints::remove);
-	}
-
-	private static boolean toStringEquals(final List<Constraint> ownConstraints, final Constraint constraint) {
-		return ownConstraints.stream().anyMatch(oc -> oc.toString().equals(constraint.toString()));
+	private static void removeExcludesConstraint(final FeatureModel fm, final Constraint constraint) {
+		final Constraint constr = ConstraintIndex.of(fm).find(constraint);
+		if (constr != null) {
+			TraVarTUtils.removeOwnConstraint(fm, constr);
+		}
 	}
 
 	private static boolean isAlternativeGroup(final Set<Feature> children,
@@ -169,37 +186,50 @@ public class DefaultCoreModelOptimizer implements IModelOptimizer<FeatureModel>
 
 	@Override
 	public void optimize(final FeatureModel fm, final STRATEGY level) {
-		// find mandatory features within feature groups
-		fixFalseOptionalFeaturesByFeatureGroupConstraints(fm, TraVarTUtils.getRoot(fm));
-		// find mandatory features within abstract feature groups
-		fixFalseOptionalFeaturesByAbstractFeatureGroup(fm, TraVarTUtils.getRoot(fm));
-		// find alternative groups
-		transformConstraintsToAlternativeGroup(fm, TraVarTUtils.getRoot(fm));
-		// find mandatory features within requires constraints
+		// the formulas of the constraints are released after the optimization
+		// the constraints created by the passes are interned for the optimization
+		final ConstraintInterner factory = CoreModelFactory.interning();
+		final FormulaContext context = FormulaContext.open();
 		try {
-			fixFalseOptionalFeaturesByConstraints(fm);
-		} catch (final ReflectiveOperationException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-		}
-		try {
-			// remove unnecessary requires constraints
-			removeUnnecessaryRequiresConstraints(fm);
-		} catch (final ReflectiveOperationException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+			// the passes look up the constraints in the index of the model
+			ConstraintIndex.of(fm);
+			// find mandatory features within feature groups
+			fixFalseOptionalFeaturesByFeatureGroupConstraints(fm, factory);
+			// find mandatory features within abstract feature groups
+			fixFalseOptionalFeaturesByAbstractFeatureGroup(fm);
+			// find alternative groups
+			transformConstraintsToAlternativeGroup(fm, factory);
+			// find mandatory features within requires constraints
+			try {
+				fixFalseOptionalFeaturesByConstraints(fm);
+			} catch (final ReflectiveOperationException e) {
+				// TODO Auto-generated catch block
+				e.printStackTrace();
+			}
+			try {
+				// remove unnecessary requires constraints
+				removeUnnecessaryRequiresConstraints(fm);
+			} catch (final ReflectiveOperationException e) {
+				// TODO Auto-generated catch block
+				e.printStackTrace();
+			}
+			// find duplicated Constraints and remove one of them
+			fixDuplicatedConstraints(fm);
+		} finally {
+			// the index is only kept up to date while the optimizer changes the model
+			ConstraintIndex.invalidate(fm);
+			context.close();
 		}
-		// find duplicated Constraints and remove one of them
-		fixDuplicatedConstraints(fm);
 	}
 
 	private void removeUnnecessaryRequiresConstraints(final FeatureModel fm) throws ReflectiveOperationException {
 		final Iterator<de.vill.model.constraint.Constraint> iterator = TraVarTUtils.getOwnConstraints(fm).iterator();
+		boolean removed = false;
 		while (iterator.hasNext()) {
 			final de.vill.model.constraint.Constraint constr = iterator.next();
 			if (TraVarTUtils.isRequires(constr)) {
-				final de.vill.model.constraint.Constraint cnf = TraVarTUtils.buildConstraintFromFormula(
-						TraVarTUtils.buildFormulaFromConstraint(constr, new FormulaFactory()).cnf());
+				final de.vill.model.constraint.Constraint cnf = CNF_CONVERTER
+						.convert(ConstraintAnalysis.of(constr).getCnf());
 				if (TraVarTUtils.isRequires(constr)) {
 					final de.vill.model.constraint.Constraint right = TraVarTUtils.getRightConstraint(cnf);
 					if (right != null && TraVarTUtils.isLiteral(right)) {
@@ -207,15 +237,22 @@ public class DefaultCoreModelOptimizer implements IModelOptimizer<FeatureModel>
 								((LiteralConstraint) right).getLiteral());
 						if (TraVarTUtils.isInGroup(rightFeature, Group.GroupType.MANDATORY)) {
 							iterator.remove();
+							removed = true;
 						}
 					}
 				}
 			}
 		}
+		if (removed) {
+			ConstraintIndex.invalidate(fm);
+		}
 	}
 
 	private void fixDuplicatedConstraints(final FeatureModel fm) {
-		TraVarTUtils.getOwnConstraints(fm).removeIf(constraint -> TraVarTUtils.getOwnConstraints(fm).stream()
-				.filter(oc -> oc.toString().equals(constraint.toString())).count() > 1);
+		// the first copy of equal constraints is kept
+		final Set<Constraint> constraints = new HashSet<>();
+		if (TraVarTUtils.getOwnConstraints(fm).removeIf(constraint -> !constraints.add(constraint))) {
+			ConstraintIndex.invalidate(fm);
+		}
 	}
 }
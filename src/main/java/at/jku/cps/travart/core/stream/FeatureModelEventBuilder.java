@@ -0,0 +1,181 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * Implements the materialization of a feature model from its events.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.stream;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+import at.jku.cps.travart.core.common.IModelEventHandler;
+import at.jku.cps.travart.core.exception.NotSupportedVariabilityTypeException;
+import de.vill.model.Attribute;
+import de.vill.model.Feature;
+import de.vill.model.FeatureModel;
+import de.vill.model.FeatureType;
+import de.vill.model.Group;
+import de.vill.model.Group.GroupType;
+import de.vill.model.LanguageLevel;
+import de.vill.model.constraint.Constraint;
+
+/**
+ * Builds a materialized {@link FeatureModel} from the received events. The
+ * builder is the fallback for consumers which require the tree-based API.
+ *
+ * @author Kevin Feichtinger
+ */
+public class FeatureModelEventBuilder implements IModelEventHandler {
+	private final Deque<Feature> features = new ArrayDeque<>();
+	private final Deque<Group> groups = new ArrayDeque<>();
+	// collected like the UVL parser does, as the attribute order of a feature
+	// depends on how its hash map is filled
+	private final Map<String, Attribute<?>> attributes = new HashMap<>();
+	private FeatureModel model;
+	private boolean finished;
+
+	@Override
+	public void startModel(final String namespace, final boolean explicitLanguageLevels)
+			throws NotSupportedVariabilityTypeException {
+		if (model != null) {
+			throw new NotSupportedVariabilityTypeException("Model already started");
+		}
+		model = new FeatureModel();
+		if (namespace != null) {
+			model.setNamespace(namespace);
+		}
+		model.setExplicitLanguageLevels(explicitLanguageLevels);
+	}
+
+	@Override
+	public void languageLevel(final LanguageLevel level) throws NotSupportedVariabilityTypeException {
+		currentModel().getUsedLanguageLevels().add(level);
+	}
+
+	@Override
+	public void startFeature(final String name, final FeatureType type, final String lowerBound,
+			final String upperBound) throws NotSupportedVariabilityTypeException {
+		final FeatureModel fm = currentModel();
+		final Feature feature = new Feature(name);
+		feature.setFeatureType(type);
+		feature.setLowerBound(lowerBound);
+		feature.setUpperBound(upperBound);
+		if (features.isEmpty()) {
+			if (fm.getRootFeature() != null) {
+				throw new NotSupportedVariabilityTypeException("A model has a single root feature");
+			}
+			fm.setRootFeature(feature);
+		} else {
+			final Group group = groups.peek();
+			if (group == null || group.getParentFeature() != features.peek()) {
+				throw new NotSupportedVariabilityTypeException(
+						String.format("Feature %s is not placed in a group", name));
+			}
+			group.getFeatures().add(feature);
+			feature.setParentGroup(group);
+		}
+		fm.getFeatureMap().put(feature.getFeatureName(), feature);
+		features.push(feature);
+	}
+
+	@Override
+	public void attribute(final String key, final Attribute<?> attribute)
+			throws NotSupportedVariabilityTypeException {
+		currentFeature();
+		attributes.put(key, attribute);
+	}
+
+	@Override
+	public void startGroup(final GroupType type, final String lowerBound, final String upperBound)
+			throws NotSupportedVariabilityTypeException {
+		final Feature feature = currentFeature();
+		flushAttributes(feature);
+		final Group group = new Group(type);
+		group.setLowerBound(lowerBound);
+		group.setUpperBound(upperBound);
+		feature.addChildren(group);
+		group.setParentFeature(feature);
+		groups.push(group);
+	}
+
+	@Override
+	public void endGroup() throws NotSupportedVariabilityTypeException {
+		if (groups.isEmpty() || groups.peek().getParentFeature() != features.peek()) {
+			throw new NotSupportedVariabilityTypeException("No group to end");
+		}
+		groups.pop();
+	}
+
+	@Override
+	public void endFeature() throws NotSupportedVariabilityTypeException {
+		final Feature feature = currentFeature();
+		flushAttributes(feature);
+		if (!groups.isEmpty() && groups.peek().getParentFeature() == feature) {
+			throw new NotSupportedVariabilityTypeException(
+					String.format("Group of feature %s not ended", feature.getFeatureName()));
+		}
+		features.pop();
+	}
+
+	@Override
+	public void constraint(final Constraint constraint) throws NotSupportedVariabilityTypeException {
+		currentModel().getOwnConstraints().add(constraint);
+	}
+
+	@Override
+	public void endModel() throws NotSupportedVariabilityTypeException {
+		currentModel();
+		if (!features.isEmpty()) {
+			throw new NotSupportedVariabilityTypeException("Feature tree not ended");
+		}
+		finished = true;
+	}
+
+	/**
+	 * Returns the model built from the received events.
+	 *
+	 * @return the built model.
+	 * @throws NotSupportedVariabilityTypeException if the model has not been
+	 *                                              ended yet.
+	 */
+	public FeatureModel getFeatureModel() throws NotSupportedVariabilityTypeException {
+		if (!finished) {
+			throw new NotSupportedVariabilityTypeException("Model not ended");
+		}
+		return model;
+	}
+
+	private void flushAttributes(final Feature feature) {
+		if (!attributes.isEmpty()) {
+			feature.getAttributes().putAll(attributes);
+			attributes.clear();
+		}
+	}
+
+	private FeatureModel currentModel() throws NotSupportedVariabilityTypeException {
+		if (model == null || finished) {
+			throw new NotSupportedVariabilityTypeException("No model started");
+		}
+		return model;
+	}
+
+	private Feature currentFeature() throws NotSupportedVariabilityTypeException {
+		currentModel();
+		if (features.isEmpty()) {
+			throw new NotSupportedVariabilityTypeException("No feature started");
+		}
+		return features.peek();
+	}
+}
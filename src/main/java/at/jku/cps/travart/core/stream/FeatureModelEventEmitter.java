@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * Implements the emission of the events of a materialized feature model.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.stream;
+
+import java.lang.reflect.Field;
+import java.util.Map;
+
+import at.jku.cps.travart.core.common.IModelEventHandler;
+import at.jku.cps.travart.core.exception.NotSupportedVariabilityTypeException;
+import de.vill.model.Attribute;
+import de.vill.model.Feature;
+import de.vill.model.FeatureModel;
+import de.vill.model.Group;
+import de.vill.model.LanguageLevel;
+import de.vill.model.constraint.Constraint;
+
+/**
+ * Emits the events of a materialized {@link FeatureModel} to an
+ * {@link IModelEventHandler}. The events follow the order in which the model is
+ * printed by {@link FeatureModel#toString()}. Models with imports can not be
+ * emitted.
+ *
+ * @author Kevin Feichtinger
+ */
+public final class FeatureModelEventEmitter {
+
+	private FeatureModelEventEmitter() {
+
+	}
+
+	/**
+	 * Emits the events of the given model to the given handler.
+	 *
+	 * @param model   the model to emit.
+	 * @param handler the handler receiving the events.
+	 * @throws NotSupportedVariabilityTypeException if the model has imports or
+	 *                                              the handler rejects an event.
+	 */
+	public static void emit(final FeatureModel model, final IModelEventHandler handler)
+			throws NotSupportedVariabilityTypeException {
+		if (!model.getImports().isEmpty()) {
+			throw new NotSupportedVariabilityTypeException("Models with imports can not be streamed");
+		}
+		handler.startModel(explicitNamespace(model), model.isExplicitLanguageLevels());
+		for (final LanguageLevel level : model.getUsedLanguageLevels()) {
+			handler.languageLevel(level);
+		}
+		if (model.getRootFeature() != null) {
+			emit(model.getRootFeature(), handler);
+		}
+		for (final Constraint constraint : model.getOwnConstraints()) {
+			handler.constraint(constraint);
+		}
+		handler.endModel();
+	}
+
+	/**
+	 * Emits the events of the subtree of the given feature to the given handler,
+	 * starting with the feature itself.
+	 *
+	 * @param feature the root of the subtree to emit.
+	 * @param handler the handler receiving the events.
+	 * @throws NotSupportedVariabilityTypeException if the handler rejects an
+	 *                                              event.
+	 */
+	public static void emit(final Feature feature, final IModelEventHandler handler)
+			throws NotSupportedVariabilityTypeException {
+		handler.startFeature(feature.getFeatureName(), feature.getFeatureType(), feature.getLowerBound(),
+				feature.getUpperBound());
+		for (final Map.Entry<String, ?> entry : feature.getAttributes().entrySet()) {
+			handler.attribute(entry.getKey(), (Attribute<?>) entry.getValue());
+		}
+		for (final Group group : feature.getChildren()) {
+			handler.startGroup(group.GROUPTYPE, group.getLowerBound(), group.getUpperBound());
+			for (final Feature child : group.getFeatures()) {
+				emit(child, handler);
+			}
+			handler.endGroup();
+		}
+		handler.endFeature();
+	}
+
+	/**
+	 * Returns the namespace explicitly set for the given model.
+	 * {@link FeatureModel#getNamespace()} falls back to the name of the root
+	 * feature, thus the field is read directly.
+	 *
+	 * @param model the model.
+	 * @return the explicit namespace of the model, or {@code null} if there is
+	 *         none.
+	 */
+	public static String explicitNamespace(final FeatureModel model) {
+		try {
+			final Field field = FeatureModel.class.getDeclaredField("namespace");
+			field.setAccessible(true);
+			return (String) field.get(model);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * Implements an empty handler for the events of a streamed feature model.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.stream;
+
+import at.jku.cps.travart.core.common.IModelEventHandler;
+import at.jku.cps.travart.core.exception.NotSupportedVariabilityTypeException;
+import de.vill.model.Attribute;
+import de.vill.model.FeatureType;
+import de.vill.model.Group.GroupType;
+import de.vill.model.LanguageLevel;
+import de.vill.model.constraint.Constraint;
+
+/**
+ * A handler ignoring all events. Jobs scanning a model, e.g., to count features
+ * or index attributes, extend the adapter and override the events they need.
+ *
+ * @author Kevin Feichtinger
+ */
+public abstract class ModelEventAdapter implements IModelEventHandler {
+
+	@Override
+	public void startModel(final String namespace, final boolean explicitLanguageLevels)
+			throws NotSupportedVariabilityTypeException {
+	}
+
+	@Override
+	public void languageLevel(final LanguageLevel level) throws NotSupportedVariabilityTypeException {
+	}
+
+	@Override
+	public void startFeature(final String name, final FeatureType type, final String lowerBound,
+			final String upperBound) throws NotSupportedVariabilityTypeException {
+	}
+
+	@Override
+	public void attribute(final String key, final Attribute<?> attribute)
+			throws NotSupportedVariabilityTypeException {
+	}
+
+	@Override
+	public void startGroup(final GroupType type, final String lowerBound, final String upperBound)
+			throws NotSupportedVariabilityTypeException {
+	}
+
+	@Override
+	public void endGroup() throws NotSupportedVariabilityTypeException {
+	}
+
+	@Override
+	public void endFeature() throws NotSupportedVariabilityTypeException {
+	}
+
+	@Override
+	public void constraint(final Constraint constraint) throws NotSupportedVariabilityTypeException {
+	}
+
+	@Override
+	public void endModel() throws NotSupportedVariabilityTypeException {
+	}
+}
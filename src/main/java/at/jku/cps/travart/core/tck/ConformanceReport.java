@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * Implements the result of a run of the plugin conformance kit.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.tck;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import at.jku.cps.travart.core.exception.ConformanceException;
+
+/**
+ * The report of the {@link PluginConformanceKit} with the measurements of each
+ * stage and the violations found.
+ *
+ * @author Kevin Feichtinger
+ */
+public final class ConformanceReport {
+	private final String pluginId;
+	private final Map<ConformanceStage, StageMeasurement> measurements = new EnumMap<>(ConformanceStage.class);
+	private final List<String> failures = Collections.synchronizedList(new ArrayList<>());
+
+	ConformanceReport(final String pluginId) {
+		this.pluginId = pluginId;
+		for (final ConformanceStage stage : ConformanceStage.values()) {
+			measurements.put(stage, new StageMeasurement(stage));
+		}
+	}
+
+	StageMeasurement measurement(final ConformanceStage stage) {
+		return measurements.get(stage);
+	}
+
+	void addFailure(final String failure) {
+		failures.add(failure);
+	}
+
+	public String getPluginId() {
+		return pluginId;
+	}
+
+	public Collection<StageMeasurement> getMeasurements() {
+		return Collections.unmodifiableCollection(measurements.values());
+	}
+
+	public List<String> getFailures() {
+		return Collections.unmodifiableList(failures);
+	}
+
+	public boolean isPassed() {
+		return failures.isEmpty();
+	}
+
+	/**
+	 * Throws an exception listing all failures if the plugin did not pass.
+	 *
+	 * @throws ConformanceException if the plugin did not pass.
+	 */
+	public void assertPassed() throws ConformanceException {
+		if (!isPassed()) {
+			throw new ConformanceException(toString());
+		}
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder builder = new StringBuilder();
+		builder.append("Conformance report of plugin ").append(pluginId).append(isPassed() ? ": passed" : ": failed")
+				.append("\n");
+		for (final StageMeasurement measurement : measurements.values()) {
+			builder.append("  ").append(measurement).append("\n");
+		}
+		synchronized (failures) {
+			for (final String failure : failures) {
+				builder.append("  FAILURE: ").append(failure).append("\n");
+			}
+		}
+		return builder.toString();
+	}
+}
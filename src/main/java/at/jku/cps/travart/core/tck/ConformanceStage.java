@@ -0,0 +1,26 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * Defines the measured stages of the plugin conformance kit.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.tck;
+
+/**
+ * The stages of a plugin roundtrip measured by the
+ * {@link PluginConformanceKit}.
+ *
+ * @author Kevin Feichtinger
+ */
+public enum ConformanceStage {
+	DESERIALIZE, TRANSFORM_TO_CORE, TRANSFORM_FROM_CORE, SERIALIZE
+}
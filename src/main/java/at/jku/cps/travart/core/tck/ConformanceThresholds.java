@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * Implements the configurable limits of the plugin conformance kit.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.tck;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The thresholds a plugin has to meet in the {@link PluginConformanceKit}. The
+ * limits are given per model and stage and compared to the average over the
+ * corpus. Stages without a limit are measured but never fail.
+ *
+ * @author Kevin Feichtinger
+ */
+public final class ConformanceThresholds {
+	/**
+	 * The default number of threads used for the thread-safety check.
+	 */
+	public static final int DEFAULT_THREADS = 4;
+
+	private final Map<ConformanceStage, Long> maxNanos = new EnumMap<>(ConformanceStage.class);
+	private final Map<ConformanceStage, Long> maxAllocatedBytes = new EnumMap<>(ConformanceStage.class);
+	private int threads = DEFAULT_THREADS;
+
+	/**
+	 * Sets the maximum average time per model for the given stage.
+	 *
+	 * @param stage   the stage to limit.
+	 * @param maxTime the maximum average time per model.
+	 * @return these thresholds.
+	 */
+	public ConformanceThresholds maxTimePerModel(final ConformanceStage stage, final Duration maxTime) {
+		maxNanos.put(Objects.requireNonNull(stage), maxTime.toNanos());
+		return this;
+	}
+
+	/**
+	 * Sets the maximum average number of allocated bytes per model for the given
+	 * stage. The limit is only checked if the JVM supports measuring thread
+	 * allocations.
+	 *
+	 * @param stage    the stage to limit.
+	 * @param maxBytes the maximum average number of allocated bytes per model.
+	 * @return these thresholds.
+	 */
+	public ConformanceThresholds maxAllocationPerModel(final ConformanceStage stage, final long maxBytes) {
+		maxAllocatedBytes.put(Objects.requireNonNull(stage), maxBytes);
+		return this;
+	}
+
+	/**
+	 * Sets the number of threads used to check the thread-safety of the plugin. A
+	 * value smaller than two disables the check.
+	 *
+	 * @param threads the number of threads.
+	 * @return these thresholds.
+	 */
+	public ConformanceThresholds threads(final int threads) {
+		this.threads = threads;
+		return this;
+	}
+
+	Long getMaxNanos(final ConformanceStage stage) {
+		return maxNanos.get(stage);
+	}
+
+	Long getMaxAllocatedBytes(final ConformanceStage stage) {
+		return maxAllocatedBytes.get(stage);
+	}
+
+	int getThreads() {
+		return threads;
+	}
+}
@@ -0,0 +1,238 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * Implements a reusable conformance and performance check for TraVarT plugins.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.tck;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import at.jku.cps.travart.core.common.IDeserializer;
+import at.jku.cps.travart.core.common.IModelTransformer;
+import at.jku.cps.travart.core.common.IModelTransformer.STRATEGY;
+import at.jku.cps.travart.core.common.IPlugin;
+import at.jku.cps.travart.core.common.ISerializer;
+import at.jku.cps.travart.core.exception.ConformanceException;
+import at.jku.cps.travart.core.exception.VerificationException;
+import at.jku.cps.travart.core.verify.UVLVerifier;
+import de.vill.model.FeatureModel;
+
+/**
+ * The plugin conformance kit checks a plugin against a corpus of variability
+ * models. For each model it
+ * <ul>
+ * <li>deserializes the model, transforms it into the core model and back, and
+ * serializes the result, measuring time and allocation of each stage,</li>
+ * <li>reads the serialized result again and verifies with the
+ * {@link UVLVerifier} that its core model is equivalent to the first one,
+ * and</li>
+ * <li>repeats the roundtrip concurrently to check that the plugin produces
+ * equivalent core models when its deserializer and transformer are shared by
+ * several threads.</li>
+ * </ul>
+ * The measured averages are compared to the configured
+ * {@link ConformanceThresholds}. The kit does not depend on a test framework;
+ * plugin tests call {@link #check(Collection)} and fail on the returned
+ * report, or use {@link #assertConformance(Collection)}.
+ *
+ * @param <T> The type of the variability model of the plugin.
+ * @author Kevin Feichtinger
+ */
+public final class PluginConformanceKit<T> {
+	private final IPlugin<T> plugin;
+	private final ConformanceThresholds thresholds;
+
+	/**
+	 * Creates a conformance kit for the given plugin with default thresholds,
+	 * i.e., without performance limits.
+	 *
+	 * @param plugin the plugin to check.
+	 */
+	public PluginConformanceKit(final IPlugin<T> plugin) {
+		this(plugin, new ConformanceThresholds());
+	}
+
+	/**
+	 * Creates a conformance kit for the given plugin and thresholds.
+	 *
+	 * @param plugin     the plugin to check.
+	 * @param thresholds the thresholds the plugin has to meet.
+	 */
+	public PluginConformanceKit(final IPlugin<T> plugin, final ConformanceThresholds thresholds) {
+		this.plugin = Objects.requireNonNull(plugin);
+		this.thresholds = Objects.requireNonNull(thresholds);
+	}
+
+	/**
+	 * Checks the plugin against the given corpus and throws an exception if any
+	 * check fails.
+	 *
+	 * @param corpus the paths to the variability models of the corpus.
+	 * @return the report of the passed check.
+	 * @throws ConformanceException if the plugin fails a check.
+	 */
+	public ConformanceReport assertConformance(final Collection<Path> corpus) throws ConformanceException {
+		final ConformanceReport report = check(corpus);
+		report.assertPassed();
+		return report;
+	}
+
+	/**
+	 * Checks the plugin against the given corpus.
+	 *
+	 * @param corpus the paths to the variability models of the corpus.
+	 * @return the report of the check.
+	 */
+	public ConformanceReport check(final Collection<Path> corpus) {
+		final ConformanceReport report = new ConformanceReport(plugin.getId());
+		final Map<Path, FeatureModel> coreModels = new HashMap<>();
+		for (final Path file : corpus) {
+			try {
+				coreModels.put(file, roundtrip(file, report));
+			} catch (final Exception e) {
+				report.addFailure(String.format("Roundtrip of %s failed: %s", file, e));
+			}
+		}
+		checkThresholds(report);
+		checkConcurrency(coreModels, report);
+		return report;
+	}
+
+	private FeatureModel roundtrip(final Path file, final ConformanceReport report) throws Exception {
+		final IDeserializer<T> deserializer = plugin.getDeserializer();
+		final IModelTransformer<T> transformer = plugin.getTransformer();
+		final ISerializer<T> serializer = plugin.getSerializer();
+		final String modelName = file.getFileName().toString();
+
+		final T model = measure(report, ConformanceStage.DESERIALIZE, () -> deserializer.deserializeFromFile(file));
+		final FeatureModel core = measure(report, ConformanceStage.TRANSFORM_TO_CORE,
+				() -> transformer.transform(model, modelName, STRATEGY.ROUNDTRIP));
+		final T back = measure(report, ConformanceStage.TRANSFORM_FROM_CORE,
+				() -> transformer.transform(core, modelName, STRATEGY.ROUNDTRIP));
+		// streams support text and binary formats alike
+		final byte[] serial = measure(report, ConformanceStage.SERIALIZE, () -> {
+			final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+			serializer.serialize(back, stream);
+			return stream.toByteArray();
+		});
+
+		final T reread = deserializer.deserialize(new ByteArrayInputStream(serial), serializer.getFormat());
+		final FeatureModel rereadCore = transformer.transform(reread, modelName, STRATEGY.ROUNDTRIP);
+		try {
+			UVLVerifier.verify(core, rereadCore);
+		} catch (final VerificationException e) {
+			report.addFailure(String.format("Roundtrip of %s is not equivalent: %s", file, e.getUnsatCore()));
+		}
+		return core;
+	}
+
+	private void checkThresholds(final ConformanceReport report) {
+		for (final ConformanceStage stage : ConformanceStage.values()) {
+			final StageMeasurement measurement = report.measurement(stage);
+			if (measurement.getModels() == 0) {
+				continue;
+			}
+			final Long maxNanos = thresholds.getMaxNanos(stage);
+			if (maxNanos != null && measurement.getNanosPerModel() > maxNanos) {
+				report.addFailure(String.format("%s took %d ns per model, limit is %d ns", stage,
+						measurement.getNanosPerModel(), maxNanos));
+			}
+			final Long maxBytes = thresholds.getMaxAllocatedBytes(stage);
+			if (maxBytes != null && measurement.getAllocatedBytesPerModel() > maxBytes) {
+				report.addFailure(String.format("%s allocated %d bytes per model, limit is %d bytes", stage,
+						measurement.getAllocatedBytesPerModel(), maxBytes));
+			}
+		}
+	}
+
+	private void checkConcurrency(final Map<Path, FeatureModel> coreModels, final ConformanceReport report) {
+		final int threads = thresholds.getThreads();
+		if (threads < 2 || coreModels.isEmpty()) {
+			return;
+		}
+		// the threads share the instances, as jobs of a running system do
+		final IDeserializer<T> deserializer = plugin.getDeserializer();
+		final IModelTransformer<T> transformer = plugin.getTransformer();
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			final List<Future<?>> futures = new ArrayList<>();
+			for (int i = 0; i < threads; i++) {
+				futures.add(executor.submit(() -> {
+					for (final Map.Entry<Path, FeatureModel> entry : coreModels.entrySet()) {
+						checkConcurrentRoundtrip(deserializer, transformer, entry.getKey(), entry.getValue(), report);
+					}
+				}));
+			}
+			for (final Future<?> future : futures) {
+				future.get();
+			}
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			report.addFailure("Concurrent check was interrupted");
+		} catch (final ExecutionException e) {
+			report.addFailure(String.format("Concurrent check failed: %s", e.getCause()));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void checkConcurrentRoundtrip(final IDeserializer<T> deserializer,
+			final IModelTransformer<T> transformer, final Path file, final FeatureModel expected,
+			final ConformanceReport report) {
+		try {
+			final T model = deserializer.deserializeFromFile(file);
+			final FeatureModel core = transformer.transform(model, file.getFileName().toString(), STRATEGY.ROUNDTRIP);
+			if (!UVLVerifier.equals(expected, core)) {
+				report.addFailure(String.format("Concurrent roundtrip of %s produced a different model", file));
+			}
+		} catch (final Exception e) {
+			report.addFailure(String.format("Concurrent roundtrip of %s failed: %s", file, e));
+		}
+	}
+
+	private static <R> R measure(final ConformanceReport report, final ConformanceStage stage,
+			final Callable<R> action) throws Exception {
+		final long startBytes = allocatedBytes();
+		final long start = System.nanoTime();
+		final R result = action.call();
+		final long nanos = System.nanoTime() - start;
+		final long endBytes = allocatedBytes();
+		report.measurement(stage).add(nanos, startBytes < 0 || endBytes < 0 ? -1 : endBytes - startBytes);
+		return result;
+	}
+
+	private static long allocatedBytes() {
+		final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			final com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+			if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+				return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * Implements the accumulated measurement of a conformance stage.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.tck;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The accumulated time and allocation of a single stage over all models of the
+ * corpus.
+ *
+ * @author Kevin Feichtinger
+ */
+public final class StageMeasurement {
+	private final ConformanceStage stage;
+	private long models;
+	private long nanos;
+	private long allocatedBytes;
+	private boolean allocationSupported = true;
+
+	StageMeasurement(final ConformanceStage stage) {
+		this.stage = stage;
+	}
+
+	void add(final long nanos, final long allocatedBytes) {
+		models++;
+		this.nanos += nanos;
+		if (allocatedBytes < 0) {
+			allocationSupported = false;
+		} else {
+			this.allocatedBytes += allocatedBytes;
+		}
+	}
+
+	public ConformanceStage getStage() {
+		return stage;
+	}
+
+	public long getModels() {
+		return models;
+	}
+
+	public long getNanos() {
+		return nanos;
+	}
+
+	/**
+	 * Returns the average time per model in nanoseconds.
+	 *
+	 * @return the average time per model.
+	 */
+	public long getNanosPerModel() {
+		return models == 0 ? 0 : nanos / models;
+	}
+
+	/**
+	 * Returns the number of models processed per second.
+	 *
+	 * @return the throughput of the stage.
+	 */
+	public double getModelsPerSecond() {
+		return nanos == 0 ? 0 : models * (double) TimeUnit.SECONDS.toNanos(1) / nanos;
+	}
+
+	/**
+	 * Returns the average number of allocated bytes per model, or -1 if the JVM
+	 * does not support measuring thread allocations.
+	 *
+	 * @return the average number of allocated bytes per model.
+	 */
+	public long getAllocatedBytesPerModel() {
+		if (!allocationSupported) {
+			return -1;
+		}
+		return models == 0 ? 0 : allocatedBytes / models;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s: %d models, %.1f models/s, %d us/model, %d bytes/model", stage, models,
+				getModelsPerSecond(), TimeUnit.NANOSECONDS.toMicros(getNanosPerModel()),
+				getAllocatedBytesPerModel());
+	}
+}
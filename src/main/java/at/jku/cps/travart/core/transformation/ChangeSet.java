@@ -0,0 +1,204 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * Implements the description of the changes between two model versions.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.transformation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import de.vill.model.Feature;
+import de.vill.model.FeatureModel;
+import de.vill.model.Group;
+import de.vill.model.constraint.Constraint;
+
+/**
+ * A change set describes the difference between two versions of a variability
+ * model. Features are identified by their names. A feature is modified if its
+ * type, cardinality, attributes, position in the tree or its groups changed.
+ * Constraints are compared structurally, a changed constraint shows up as a
+ * removed and an added constraint.
+ * <p>
+ * </p>
+ * Plugins create change sets for their own notation with the constructor, the
+ * change set between two core models can be computed with
+ * {@link #between(FeatureModel, FeatureModel)}.
+ *
+ * @author Kevin Feichtinger
+ */
+public final class ChangeSet {
+	private final Set<String> addedFeatures;
+	private final Set<String> removedFeatures;
+	private final Set<String> modifiedFeatures;
+	private final List<Constraint> addedConstraints;
+	private final List<Constraint> removedConstraints;
+
+	/**
+	 * Creates a change set from the given changes.
+	 *
+	 * @param addedFeatures      the names of the added features.
+	 * @param removedFeatures    the names of the removed features.
+	 * @param modifiedFeatures   the names of the modified features.
+	 * @param addedConstraints   the added constraints.
+	 * @param removedConstraints the removed constraints.
+	 */
+	public ChangeSet(final Set<String> addedFeatures, final Set<String> removedFeatures,
+			final Set<String> modifiedFeatures, final List<Constraint> addedConstraints,
+			final List<Constraint> removedConstraints) {
+		this.addedFeatures = Collections.unmodifiableSet(new LinkedHashSet<>(addedFeatures));
+		this.removedFeatures = Collections.unmodifiableSet(new LinkedHashSet<>(removedFeatures));
+		this.modifiedFeatures = Collections.unmodifiableSet(new LinkedHashSet<>(modifiedFeatures));
+		this.addedConstraints = Collections.unmodifiableList(new ArrayList<>(addedConstraints));
+		this.removedConstraints = Collections.unmodifiableList(new ArrayList<>(removedConstraints));
+	}
+
+	/**
+	 * Computes the changes from the previous to the current version of a core
+	 * model.
+	 *
+	 * @param previous the previous version of the model.
+	 * @param current  the current version of the model.
+	 * @return the changes between both versions.
+	 */
+	public static ChangeSet between(final FeatureModel previous, final FeatureModel current) {
+		final Map<String, Feature> previousFeatures = previous.getFeatureMap();
+		final Map<String, Feature> currentFeatures = current.getFeatureMap();
+		final Set<String> added = new LinkedHashSet<>();
+		final Set<String> removed = new LinkedHashSet<>();
+		final Set<String> modified = new LinkedHashSet<>();
+		for (final Map.Entry<String, Feature> entry : currentFeatures.entrySet()) {
+			final Feature old = previousFeatures.get(entry.getKey());
+			if (old == null) {
+				added.add(entry.getKey());
+			} else if (!isUnchanged(old, entry.getValue())) {
+				modified.add(entry.getKey());
+			}
+		}
+		for (final String name : previousFeatures.keySet()) {
+			if (!currentFeatures.containsKey(name)) {
+				removed.add(name);
+			}
+		}
+		final List<Constraint> addedConstraints = new ArrayList<>();
+		final List<Constraint> removedConstraints = new ArrayList<>();
+		final Map<Constraint, Integer> counts = new HashMap<>();
+		for (final Constraint constraint : previous.getOwnConstraints()) {
+			counts.merge(constraint, 1, Integer::sum);
+		}
+		for (final Constraint constraint : current.getOwnConstraints()) {
+			final Integer count = counts.get(constraint);
+			if (count == null) {
+				addedConstraints.add(constraint);
+			} else if (count == 1) {
+				counts.remove(constraint);
+			} else {
+				counts.put(constraint, count - 1);
+			}
+		}
+		for (final Constraint constraint : previous.getOwnConstraints()) {
+			final Integer count = counts.get(constraint);
+			if (count != null) {
+				removedConstraints.add(constraint);
+				if (count == 1) {
+					counts.remove(constraint);
+				} else {
+					counts.put(constraint, count - 1);
+				}
+			}
+		}
+		return new ChangeSet(added, removed, modified, addedConstraints, removedConstraints);
+	}
+
+	private static boolean isUnchanged(final Feature previous, final Feature current) {
+		if (!Objects.equals(previous.getFeatureType(), current.getFeatureType())
+				|| !Objects.equals(previous.getLowerBound(), current.getLowerBound())
+				|| !Objects.equals(previous.getUpperBound(), current.getUpperBound())
+				|| !previous.getAttributes().equals(current.getAttributes())) {
+			return false;
+		}
+		final Group previousParent = previous.getParentGroup();
+		final Group currentParent = current.getParentGroup();
+		if (previousParent == null || currentParent == null) {
+			if (previousParent != currentParent) {
+				return false;
+			}
+		} else if (previousParent.GROUPTYPE != currentParent.GROUPTYPE
+				|| !Objects.equals(previousParent.getLowerBound(), currentParent.getLowerBound())
+				|| !Objects.equals(previousParent.getUpperBound(), currentParent.getUpperBound())
+				|| !previous.getParentFeature().getFeatureName().equals(current.getParentFeature().getFeatureName())) {
+			return false;
+		}
+		final List<Group> previousGroups = previous.getChildren();
+		final List<Group> currentGroups = current.getChildren();
+		if (previousGroups.size() != currentGroups.size()) {
+			return false;
+		}
+		for (int i = 0; i < previousGroups.size(); i++) {
+			final List<Feature> previousChildren = previousGroups.get(i).getFeatures();
+			final List<Feature> currentChildren = currentGroups.get(i).getFeatures();
+			if (previousGroups.get(i).GROUPTYPE != currentGroups.get(i).GROUPTYPE
+					|| previousChildren.size() != currentChildren.size()) {
+				return false;
+			}
+			for (int j = 0; j < previousChildren.size(); j++) {
+				if (!previousChildren.get(j).getFeatureName().equals(currentChildren.get(j).getFeatureName())) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	public Set<String> getAddedFeatures() {
+		return addedFeatures;
+	}
+
+	public Set<String> getRemovedFeatures() {
+		return removedFeatures;
+	}
+
+	public Set<String> getModifiedFeatures() {
+		return modifiedFeatures;
+	}
+
+	public List<Constraint> getAddedConstraints() {
+		return addedConstraints;
+	}
+
+	public List<Constraint> getRemovedConstraints() {
+		return removedConstraints;
+	}
+
+	/**
+	 * Returns whether this change set contains no changes.
+	 *
+	 * @return true if nothing changed, false otherwise.
+	 */
+	public boolean isEmpty() {
+		return addedFeatures.isEmpty() && removedFeatures.isEmpty() && modifiedFeatures.isEmpty()
+				&& addedConstraints.isEmpty() && removedConstraints.isEmpty();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("+%s -%s ~%s, constraints +%d -%d", addedFeatures, removedFeatures, modifiedFeatures,
+				addedConstraints.size(), removedConstraints.size());
+	}
+}
@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * Implements incremental transformations with a fallback to full ones.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.transformation;
+
+import at.jku.cps.travart.core.common.IIncrementalTransformer;
+import at.jku.cps.travart.core.common.IModelTransformer;
+import at.jku.cps.travart.core.common.IModelTransformer.STRATEGY;
+import at.jku.cps.travart.core.exception.NotSupportedVariabilityTypeException;
+import de.vill.model.FeatureModel;
+
+/**
+ * Helper to update transformed models from changes. If the transformer is an
+ * {@link IIncrementalTransformer} and accepts the update, only the changes are
+ * transformed. Otherwise, the current model is transformed in full.
+ *
+ * @author Kevin Feichtinger
+ */
+public final class IncrementalTransformation {
+
+	private IncrementalTransformation() {
+
+	}
+
+	/**
+	 * Updates the core model of a variability model after the variability model
+	 * changed.
+	 *
+	 * @param <I>               the type of the variability model.
+	 * @param transformer       the transformer of the variability model.
+	 * @param previousModel     the previous version of the variability model, or
+	 *                          {@code null} if there is none.
+	 * @param model             the current version of the variability model.
+	 * @param previousCoreModel the core model of the previous version, or
+	 *                          {@code null} if there is none.
+	 * @param changes           the changes of the variability model, or
+	 *                          {@code null} if unknown.
+	 * @param modelName         the name of the model.
+	 * @param level             the transformation strategy.
+	 * @return the core model of the current version.
+	 * @throws NotSupportedVariabilityTypeException if the model can not be
+	 *                                              transformed.
+	 */
+	public static <I> FeatureModel toCoreModel(final IModelTransformer<I> transformer, final I previousModel,
+			final I model, final FeatureModel previousCoreModel, final ChangeSet changes, final String modelName,
+			final STRATEGY level) throws NotSupportedVariabilityTypeException {
+		if (transformer instanceof IIncrementalTransformer && previousModel != null && previousCoreModel != null
+				&& changes != null) {
+			if (changes.isEmpty()) {
+				return previousCoreModel;
+			}
+			final FeatureModel updated = ((IIncrementalTransformer<I>) transformer).updateCoreModel(previousModel,
+					model, previousCoreModel, changes, modelName, level);
+			if (updated != null) {
+				return updated;
+			}
+		}
+		return transformer.transform(model, modelName, level);
+	}
+
+	/**
+	 * Updates the variability model transformed from a core model after the core
+	 * model changed. The changes are computed with
+	 * {@link ChangeSet#between(FeatureModel, FeatureModel)}.
+	 *
+	 * @param <I>               the type of the variability model.
+	 * @param transformer       the transformer of the variability model.
+	 * @param previousCoreModel the previous version of the core model, or
+	 *                          {@code null} if there is none.
+	 * @param coreModel         the current version of the core model.
+	 * @param previousModel     the variability model of the previous version, or
+	 *                          {@code null} if there is none.
+	 * @param modelName         the name of the model.
+	 * @param level             the transformation strategy.
+	 * @return the variability model of the current version.
+	 * @throws NotSupportedVariabilityTypeException if the model can not be
+	 *                                              transformed.
+	 */
+	public static <I> I fromCoreModel(final IModelTransformer<I> transformer, final FeatureModel previousCoreModel,
+			final FeatureModel coreModel, final I previousModel, final String modelName, final STRATEGY level)
+			throws NotSupportedVariabilityTypeException {
+		if (transformer instanceof IIncrementalTransformer && previousCoreModel != null && previousModel != null) {
+			final ChangeSet changes = ChangeSet.between(previousCoreModel, coreModel);
+			if (changes.isEmpty()) {
+				return previousModel;
+			}
+			final I updated = ((IIncrementalTransformer<I>) transformer).updateModel(previousCoreModel, coreModel,
+					previousModel, changes, modelName, level);
+			if (updated != null) {
+				return updated;
+			}
+		}
+		return transformer.transform(coreModel, modelName, level);
+	}
+}
@@ -0,0 +1,261 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * Implements the graph of conversions between variability artifacts.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.transformation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.PriorityQueue;
+
+import at.jku.cps.travart.core.common.IModelConverter;
+import at.jku.cps.travart.core.common.IModelEventHandler;
+import at.jku.cps.travart.core.common.IModelTransformer;
+import at.jku.cps.travart.core.common.IModelTransformer.STRATEGY;
+import at.jku.cps.travart.core.common.IPlugin;
+import at.jku.cps.travart.core.common.IStreamingTransformer;
+import at.jku.cps.travart.core.exception.NotSupportedVariabilityTypeException;
+import de.vill.model.FeatureModel;
+
+/**
+ * The transformation graph connects variability types by conversions. Each
+ * plugin contributes two conversions through its {@link IModelTransformer},
+ * i.e., from its own type into the core model and back, and may contribute
+ * direct conversions {@link IPlugin#getConverters()}. The graph is used to find
+ * the cheapest sequence of conversions between two variability types. If no
+ * direct conversion is cheaper, the path runs through the core model.
+ *
+ * @author Kevin Feichtinger
+ */
+public final class TransformationGraph {
+
+	/**
+	 * The name of the core model type in the transformation graph.
+	 */
+	public static final String CORE_MODEL_TYPE = "UVL";
+
+	private final Map<String, List<IModelConverter<?, ?>>> edges = new HashMap<>();
+
+	/**
+	 * Creates a transformation graph for the given plugins.
+	 *
+	 * @param plugins the plugins providing the conversions of the graph.
+	 */
+	@SuppressWarnings("rawtypes")
+	public TransformationGraph(final Collection<? extends IPlugin> plugins) {
+		for (final IPlugin<?> plugin : Objects.requireNonNull(plugins)) {
+			addPlugin(plugin);
+		}
+	}
+
+	private <T> void addPlugin(final IPlugin<T> plugin) {
+		final IModelTransformer<T> transformer = plugin.getTransformer();
+		if (transformer != null) {
+			addConverter(new ToCoreConverter<>(plugin.getName(), transformer));
+			addConverter(new FromCoreConverter<>(plugin.getName(), transformer));
+		}
+		for (final IModelConverter<?, ?> converter : plugin.getConverters()) {
+			addConverter(converter);
+		}
+	}
+
+	/**
+	 * Adds the given converter as an edge to the graph. Converters without source
+	 * or target type or with a negative or non-finite cost are ignored.
+	 *
+	 * @param converter the converter to add.
+	 */
+	public void addConverter(final IModelConverter<?, ?> converter) {
+		Objects.requireNonNull(converter);
+		final double cost = converter.getCost();
+		if (converter.getSourceType() == null || converter.getTargetType() == null || !Double.isFinite(cost)
+				|| cost < 0) {
+			return;
+		}
+		edges.computeIfAbsent(key(converter.getSourceType()), k -> new ArrayList<>()).add(converter);
+	}
+
+	/**
+	 * Searches the cheapest sequence of conversions from the source type to the
+	 * target type. If two paths have the same cost, the one with fewer conversions
+	 * is preferred.
+	 *
+	 * @param sourceType the name of the source variability type.
+	 * @param targetType the name of the target variability type.
+	 * @return the ordered conversions of the cheapest path, or an empty optional if
+	 *         the target type is not reachable from the source type.
+	 */
+	public Optional<List<IModelConverter<?, ?>>> findCheapestPath(final String sourceType, final String targetType) {
+		final String source = key(Objects.requireNonNull(sourceType));
+		final String target = key(Objects.requireNonNull(targetType));
+		final Map<String, Step> best = new HashMap<>();
+		final PriorityQueue<Step> queue = new PriorityQueue<>();
+		final Step start = new Step(source, 0, 0, null, null);
+		best.put(source, start);
+		queue.add(start);
+		while (!queue.isEmpty()) {
+			final Step step = queue.poll();
+			if (step != best.get(step.type)) {
+				// outdated queue entry
+				continue;
+			}
+			if (step.type.equals(target)) {
+				return Optional.of(step.toPath());
+			}
+			for (final IModelConverter<?, ?> converter : edges.getOrDefault(step.type, Collections.emptyList())) {
+				final Step next = new Step(key(converter.getTargetType()), step.cost + converter.getCost(),
+						step.hops + 1, converter, step);
+				final Step known = best.get(next.type);
+				if (known == null || next.compareTo(known) < 0) {
+					best.put(next.type, next);
+					queue.add(next);
+				}
+			}
+		}
+		return Optional.empty();
+	}
+
+	private static String key(final String type) {
+		return type.toLowerCase(Locale.ROOT);
+	}
+
+	private static final class Step implements Comparable<Step> {
+		private final String type;
+		private final double cost;
+		private final int hops;
+		private final IModelConverter<?, ?> converter;
+		private final Step previous;
+
+		private Step(final String type, final double cost, final int hops, final IModelConverter<?, ?> converter,
+				final Step previous) {
+			this.type = type;
+			this.cost = cost;
+			this.hops = hops;
+			this.converter = converter;
+			this.previous = previous;
+		}
+
+		private List<IModelConverter<?, ?>> toPath() {
+			final LinkedList<IModelConverter<?, ?>> path = new LinkedList<>();
+			for (Step step = this; step.converter != null; step = step.previous) {
+				path.addFirst(step.converter);
+			}
+			return path;
+		}
+
+		@Override
+		public int compareTo(final Step other) {
+			final int result = Double.compare(cost, other.cost);
+			return result != 0 ? result : Integer.compare(hops, other.hops);
+		}
+	}
+
+	private static final class ToCoreConverter<T> implements IModelConverter<T, FeatureModel> {
+		private final String type;
+		private final IModelTransformer<T> transformer;
+
+		private ToCoreConverter(final String type, final IModelTransformer<T> transformer) {
+			this.type = type;
+			this.transformer = transformer;
+		}
+
+		@Override
+		public String getSourceType() {
+			return type;
+		}
+
+		@Override
+		public String getTargetType() {
+			return CORE_MODEL_TYPE;
+		}
+
+		@Override
+		public FeatureModel convert(final T model, final String modelName, final STRATEGY strategy)
+				throws NotSupportedVariabilityTypeException {
+			return transformer.transform(model, modelName, strategy);
+		}
+
+		@Override
+		public boolean supportsStreaming() {
+			return transformer instanceof IStreamingTransformer;
+		}
+
+		@Override
+		public IModelEventHandler convert(final IModelEventHandler target, final String modelName,
+				final STRATEGY strategy) throws NotSupportedVariabilityTypeException {
+			if (!supportsStreaming()) {
+				return IModelConverter.super.convert(target, modelName, strategy);
+			}
+			return ((IStreamingTransformer<T>) transformer).toCoreModel(target, modelName, strategy);
+		}
+
+		@Override
+		public String toString() {
+			return type + " -> " + CORE_MODEL_TYPE;
+		}
+	}
+
+	private static final class FromCoreConverter<T> implements IModelConverter<FeatureModel, T> {
+		private final String type;
+		private final IModelTransformer<T> transformer;
+
+		private FromCoreConverter(final String type, final IModelTransformer<T> transformer) {
+			this.type = type;
+			this.transformer = transformer;
+		}
+
+		@Override
+		public String getSourceType() {
+			return CORE_MODEL_TYPE;
+		}
+
+		@Override
+		public String getTargetType() {
+			return type;
+		}
+
+		@Override
+		public T convert(final FeatureModel model, final String modelName, final STRATEGY strategy)
+				throws NotSupportedVariabilityTypeException {
+			return transformer.transform(model, modelName, strategy);
+		}
+
+		@Override
+		public boolean supportsStreaming() {
+			return transformer instanceof IStreamingTransformer;
+		}
+
+		@Override
+		public IModelEventHandler convert(final IModelEventHandler target, final String modelName,
+				final STRATEGY strategy) throws NotSupportedVariabilityTypeException {
+			if (!supportsStreaming()) {
+				return IModelConverter.super.convert(target, modelName, strategy);
+			}
+			return ((IStreamingTransformer<T>) transformer).fromCoreModel(target, modelName, strategy);
+		}
+
+		@Override
+		public String toString() {
+			return CORE_MODEL_TYPE + " -> " + type;
+		}
+	}
+}
@@ -0,0 +1,525 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * Implements a structural fingerprint of feature models.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.verify;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import de.vill.model.Attribute;
+import de.vill.model.Feature;
+import de.vill.model.FeatureModel;
+import de.vill.model.Group;
+import de.vill.model.Import;
+import de.vill.model.constraint.AndConstraint;
+import de.vill.model.constraint.Constraint;
+import de.vill.model.constraint.EquivalenceConstraint;
+import de.vill.model.constraint.ExpressionConstraint;
+import de.vill.model.constraint.ImplicationConstraint;
+import de.vill.model.constraint.LiteralConstraint;
+import de.vill.model.constraint.NotConstraint;
+import de.vill.model.constraint.OrConstraint;
+import de.vill.model.constraint.ParenthesisConstraint;
+import de.vill.model.expression.AddExpression;
+import de.vill.model.expression.Expression;
+import de.vill.model.expression.LiteralExpression;
+import de.vill.model.expression.MulExpression;
+import de.vill.model.expression.NumberExpression;
+import de.vill.model.expression.ParenthesisExpression;
+import de.vill.model.expression.StringExpression;
+
+/**
+ * A structural fingerprint of a {@link FeatureModel}, computed as Merkle hash
+ * with SHA-256. The hash of a feature covers its type, name, cardinality,
+ * attributes and groups; the hash of a group covers its type, cardinality and
+ * the hashes of its features. Features of a group, groups of a feature,
+ * attributes and constraints are hashed independent of their order.
+ * Constraints are normalized before hashing: parentheses are ignored, nested
+ * conjunctions and disjunctions are flattened, and the operands of commutative
+ * operators are sorted. Namespaces, language levels, import declarations and
+ * line numbers are not part of the fingerprint.
+ * <p>
+ * </p>
+ * Models with equal fingerprints are structurally identical, such that
+ * expensive work like {@link UVLVerifier#verify(FeatureModel, FeatureModel)}
+ * can be skipped. Different fingerprints do not imply different configuration
+ * spaces. The hashes of all subtrees are kept and can be reused.
+ *
+ * @author Kevin Feichtinger
+ */
+public final class FeatureModelFingerprint {
+	private static final String HASH_ALGORITHM = "SHA-256";
+
+	private static final byte FEATURE = 'F';
+	private static final byte GROUP = 'G';
+	private static final byte MODEL = 'M';
+	private static final byte CONSTRAINTS = 'C';
+	private static final byte VALUE_NULL = '0';
+	private static final byte VALUE_BOOLEAN = 'b';
+	private static final byte VALUE_INTEGER = 'i';
+	private static final byte VALUE_REAL = 'r';
+	private static final byte VALUE_STRING = 's';
+	private static final byte VALUE_CONSTRAINT = 'c';
+	private static final byte VALUE_LIST = 'l';
+	private static final byte VALUE_MAP = 'm';
+	private static final byte VALUE_OTHER = 'o';
+
+	private final Map<Feature, byte[]> subtreeHashes = new IdentityHashMap<>();
+	private final MessageDigest digest;
+	private final byte[] treeHash;
+	private final byte[] constraintsHash;
+	private final byte[] hash;
+
+	private FeatureModelFingerprint(final FeatureModel model) {
+		digest = newDigest();
+		treeHash = model.getRootFeature() == null ? new byte[0] : feature(model.getRootFeature());
+		final List<byte[]> constraints = new ArrayList<>();
+		for (final Constraint constraint : constraints(model)) {
+			constraints.add(constraint(constraint));
+		}
+		constraintsHash = combine(CONSTRAINTS, sorted(constraints));
+		digest.update(MODEL);
+		digest.update(treeHash);
+		digest.update(constraintsHash);
+		hash = digest.digest();
+	}
+
+	/**
+	 * Computes the fingerprint of the given model.
+	 *
+	 * @param model the model.
+	 * @return the fingerprint of the model.
+	 */
+	public static FeatureModelFingerprint of(final FeatureModel model) {
+		return new FeatureModelFingerprint(model);
+	}
+
+	/**
+	 * Computes the hash of the given constraint after normalization.
+	 *
+	 * @param constraint the constraint.
+	 * @return the hexadecimal hash of the constraint.
+	 */
+	public static String hash(final Constraint constraint) {
+		return toHex(new ConstraintHasher(newDigest()).constraint(constraint));
+	}
+
+	/**
+	 * Returns the hash of the whole model.
+	 *
+	 * @return the hexadecimal hash of the model.
+	 */
+	public String getHash() {
+		return toHex(hash);
+	}
+
+	/**
+	 * Returns the hash of the feature tree.
+	 *
+	 * @return the hexadecimal hash of the feature tree.
+	 */
+	public String getTreeHash() {
+		return toHex(treeHash);
+	}
+
+	/**
+	 * Returns the hash of the constraints of the model and its referenced
+	 * imports.
+	 *
+	 * @return the hexadecimal hash of the constraints.
+	 */
+	public String getConstraintsHash() {
+		return toHex(constraintsHash);
+	}
+
+	/**
+	 * Returns the hash of the subtree of the given feature.
+	 *
+	 * @param feature a feature of the model.
+	 * @return the hexadecimal hash of the subtree, or {@code null} if the
+	 *         feature is not part of the feature tree of the model.
+	 */
+	public String getSubtreeHash(final Feature feature) {
+		final byte[] subtreeHash = subtreeHashes.get(feature);
+		return subtreeHash == null ? null : toHex(subtreeHash);
+	}
+
+	/**
+	 * Returns the features of the feature tree with their subtree hashes.
+	 *
+	 * @return an unmodifiable map of the hexadecimal subtree hashes by feature.
+	 */
+	public Map<Feature, String> getSubtreeHashes() {
+		final Map<Feature, String> hashes = new IdentityHashMap<>(subtreeHashes.size());
+		for (final Map.Entry<Feature, byte[]> entry : subtreeHashes.entrySet()) {
+			hashes.put(entry.getKey(), toHex(entry.getValue()));
+		}
+		return Collections.unmodifiableMap(hashes);
+	}
+
+	/**
+	 * Returns whether the given fingerprint belongs to a structurally identical
+	 * model.
+	 *
+	 * @param other the other fingerprint.
+	 * @return true if the fingerprints are equal.
+	 */
+	public boolean matches(final FeatureModelFingerprint other) {
+		return other != null && Arrays.equals(hash, other.hash);
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		return obj instanceof FeatureModelFingerprint && matches((FeatureModelFingerprint) obj);
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(hash);
+	}
+
+	@Override
+	public String toString() {
+		return getHash();
+	}
+
+	private byte[] feature(final Feature feature) {
+		final List<byte[]> groups = new ArrayList<>(feature.getChildren().size());
+		for (final Group group : feature.getChildren()) {
+			groups.add(group(group));
+		}
+		final List<byte[]> attributes = attributes(feature);
+		digest.update(FEATURE);
+		update(digest, feature.getFeatureType() == null ? null : feature.getFeatureType().getName());
+		update(digest, feature.getFeatureName());
+		update(digest, feature.getLowerBound());
+		update(digest, feature.getUpperBound());
+		updateAll(digest, attributes);
+		updateAll(digest, sorted(groups));
+		final byte[] featureHash = digest.digest();
+		subtreeHashes.put(feature, featureHash);
+		return featureHash;
+	}
+
+	private byte[] group(final Group group) {
+		final List<byte[]> features = new ArrayList<>(group.getFeatures().size());
+		for (final Feature feature : group.getFeatures()) {
+			features.add(feature(feature));
+		}
+		digest.update(GROUP);
+		update(digest, group.GROUPTYPE.name());
+		update(digest, group.getLowerBound());
+		update(digest, group.getUpperBound());
+		updateAll(digest, sorted(features));
+		return digest.digest();
+	}
+
+	/**
+	 * Hashes the attributes of the feature sorted by their key, each as key and
+	 * value hash.
+	 */
+	private List<byte[]> attributes(final Feature feature) {
+		final Map<String, Attribute<?>> attributes = new TreeMap<>();
+		feature.getAttributes().forEach(attributes::put);
+		final List<byte[]> hashes = new ArrayList<>(attributes.size());
+		for (final Map.Entry<String, Attribute<?>> entry : attributes.entrySet()) {
+			final byte[] value = value(entry.getValue().getValue());
+			update(digest, entry.getKey());
+			digest.update(value);
+			hashes.add(digest.digest());
+		}
+		return hashes;
+	}
+
+	private byte[] value(final Object value) {
+		if (value instanceof Constraint) {
+			return combine(VALUE_CONSTRAINT, List.of(constraint((Constraint) value)));
+		}
+		if (value instanceof Collection) {
+			final List<byte[]> elements = new ArrayList<>();
+			for (final Object element : (Collection<?>) value) {
+				elements.add(value(element));
+			}
+			return combine(VALUE_LIST, elements);
+		}
+		if (value instanceof Map) {
+			final List<byte[]> entries = new ArrayList<>();
+			for (final Map.Entry<?, ?> entry : new TreeMap<>((Map<?, ?>) value).entrySet()) {
+				final Object entryValue = entry.getValue() instanceof Attribute
+						? ((Attribute<?>) entry.getValue()).getValue()
+						: entry.getValue();
+				final byte[] entryHash = value(entryValue);
+				update(digest, String.valueOf(entry.getKey()));
+				digest.update(entryHash);
+				entries.add(digest.digest());
+			}
+			return combine(VALUE_MAP, entries);
+		}
+		if (value == null) {
+			digest.update(VALUE_NULL);
+		} else if (value instanceof Boolean) {
+			digest.update(VALUE_BOOLEAN);
+			digest.update((byte) ((Boolean) value ? 1 : 0));
+		} else if (value instanceof Long || value instanceof Integer) {
+			digest.update(VALUE_INTEGER);
+			update(digest, ((Number) value).longValue());
+		} else if (value instanceof Number) {
+			digest.update(VALUE_REAL);
+			update(digest, Double.doubleToLongBits(((Number) value).doubleValue()));
+		} else if (value instanceof String) {
+			digest.update(VALUE_STRING);
+			update(digest, (String) value);
+		} else {
+			digest.update(VALUE_OTHER);
+			update(digest, value.toString());
+		}
+		return digest.digest();
+	}
+
+	private byte[] constraint(final Constraint constraint) {
+		return new ConstraintHasher(digest).constraint(constraint);
+	}
+
+	private byte[] combine(final byte tag, final List<byte[]> hashes) {
+		digest.update(tag);
+		updateAll(digest, hashes);
+		return digest.digest();
+	}
+
+	/**
+	 * Returns the own constraints of the model and, recursively, of its
+	 * referenced imports.
+	 */
+	private static List<Constraint> constraints(final FeatureModel model) {
+		final List<Constraint> constraints = new ArrayList<>(model.getOwnConstraints());
+		for (final Import importLine : model.getImports()) {
+			if (importLine.isReferenced() && importLine.getFeatureModel() != null) {
+				constraints.addAll(constraints(importLine.getFeatureModel()));
+			}
+		}
+		return constraints;
+	}
+
+	/**
+	 * Returns the reference of the given feature within the composed model.
+	 * {@link Feature#getFullReference()} contains the identity hash code, thus is
+	 * not stable.
+	 */
+	private static String reference(final Feature feature) {
+		final String nameSpace = feature.getNameSpace();
+		return nameSpace == null || nameSpace.isEmpty() ? feature.getFeatureName()
+				: nameSpace + "." + feature.getFeatureName();
+	}
+
+	private static List<byte[]> sorted(final List<byte[]> hashes) {
+		hashes.sort(Arrays::compare);
+		return hashes;
+	}
+
+	private static void updateAll(final MessageDigest digest, final List<byte[]> hashes) {
+		update(digest, hashes.size());
+		for (final byte[] element : hashes) {
+			digest.update(element);
+		}
+	}
+
+	private static void update(final MessageDigest digest, final String text) {
+		if (text == null) {
+			update(digest, -1);
+			return;
+		}
+		final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		update(digest, bytes.length);
+		digest.update(bytes);
+	}
+
+	private static void update(final MessageDigest digest, final long value) {
+		for (int shift = 56; shift >= 0; shift -= 8) {
+			digest.update((byte) (value >>> shift));
+		}
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance(HASH_ALGORITHM);
+		} catch (final NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String toHex(final byte[] bytes) {
+		final StringBuilder hex = new StringBuilder(bytes.length * 2);
+		for (final byte b : bytes) {
+			hex.append(Character.forDigit(b >> 4 & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		}
+		return hex.toString();
+	}
+
+	/**
+	 * Hashes normalized constraints and expressions bottom-up.
+	 */
+	private static final class ConstraintHasher {
+		private final MessageDigest digest;
+
+		private ConstraintHasher(final MessageDigest digest) {
+			this.digest = digest;
+		}
+
+		private byte[] constraint(final Constraint constraint) {
+			if (constraint instanceof ParenthesisConstraint) {
+				return constraint(((ParenthesisConstraint) constraint).getContent());
+			}
+			if (constraint instanceof LiteralConstraint) {
+				final LiteralConstraint literal = (LiteralConstraint) constraint;
+				digest.update((byte) 'L');
+				update(digest, literal.getFeature() == null ? literal.getLiteral().replace("'", "")
+						: reference(literal.getFeature()));
+				return digest.digest();
+			}
+			if (constraint instanceof NotConstraint) {
+				return node("!", List.of(constraint(((NotConstraint) constraint).getContent())));
+			}
+			if (constraint instanceof AndConstraint || constraint instanceof OrConstraint) {
+				final List<byte[]> operands = new ArrayList<>();
+				flatten(constraint, constraint.getClass(), operands);
+				return node(constraint instanceof AndConstraint ? "&" : "|", sorted(operands));
+			}
+			if (constraint instanceof EquivalenceConstraint) {
+				final EquivalenceConstraint equivalence = (EquivalenceConstraint) constraint;
+				return node("<=>", sorted(new ArrayList<>(
+						List.of(constraint(equivalence.getLeft()), constraint(equivalence.getRight())))));
+			}
+			if (constraint instanceof ImplicationConstraint) {
+				final ImplicationConstraint implication = (ImplicationConstraint) constraint;
+				return node("=>", List.of(constraint(implication.getLeft()), constraint(implication.getRight())));
+			}
+			if (constraint instanceof ExpressionConstraint) {
+				return equation((ExpressionConstraint) constraint);
+			}
+			final List<byte[]> parts = new ArrayList<>();
+			for (final Constraint part : constraint.getConstraintSubParts()) {
+				parts.add(constraint(part));
+			}
+			return node(constraint.getClass().getSimpleName(), parts);
+		}
+
+		private void flatten(final Constraint constraint, final Class<?> type, final List<byte[]> operands) {
+			Constraint content = constraint;
+			while (content instanceof ParenthesisConstraint) {
+				content = ((ParenthesisConstraint) content).getContent();
+			}
+			if (type.isInstance(content)) {
+				for (final Constraint part : content.getConstraintSubParts()) {
+					flatten(part, type, operands);
+				}
+			} else {
+				operands.add(constraint(content));
+			}
+		}
+
+		/**
+		 * Hashes an equation, comparing with lower instead of greater operators
+		 * and with sorted operands for (in)equality.
+		 */
+		private byte[] equation(final ExpressionConstraint equation) {
+			final byte[] left = expression(equation.getLeft());
+			final byte[] right = expression(equation.getRight());
+			final String symbol = equation.getExpressionSymbol();
+			switch (symbol) {
+			case "==":
+			case "!=":
+				return node(symbol, sorted(new ArrayList<>(List.of(left, right))));
+			case ">":
+				return node("<", List.of(right, left));
+			case ">=":
+				return node("<=", List.of(right, left));
+			default:
+				return node(symbol, List.of(left, right));
+			}
+		}
+
+		private byte[] expression(final Expression expression) {
+			if (expression instanceof ParenthesisExpression) {
+				return expression(expression.getExpressionSubParts().get(0));
+			}
+			if (expression instanceof NumberExpression) {
+				digest.update((byte) 'N');
+				update(digest, Double.doubleToLongBits(((NumberExpression) expression).getNumber()));
+				return digest.digest();
+			}
+			if (expression instanceof StringExpression) {
+				digest.update((byte) 'S');
+				update(digest, ((StringExpression) expression).getString());
+				return digest.digest();
+			}
+			if (expression instanceof LiteralExpression) {
+				final LiteralExpression literal = (LiteralExpression) expression;
+				if (literal.getContent() == null) {
+					// boolean literals have no content
+					return node(literal.toString(), List.of());
+				}
+				digest.update((byte) 'A');
+				update(digest, literal.getFeature() == null ? literal.getFeatureName()
+						: reference(literal.getFeature()));
+				update(digest, literal.getAttributeName());
+				return digest.digest();
+			}
+			if (expression instanceof AddExpression || expression instanceof MulExpression) {
+				final List<byte[]> operands = new ArrayList<>();
+				flatten(expression, expression.getClass(), operands);
+				return node(expression instanceof AddExpression ? "+" : "*", sorted(operands));
+			}
+			final List<byte[]> parts = new ArrayList<>();
+			for (final Expression part : expression.getExpressionSubParts()) {
+				parts.add(expression(part));
+			}
+			if (parts.isEmpty()) {
+				// e.g., boolean literals and aggregate functions
+				return node(expression.getClass().getSimpleName() + ":" + expression.toString(), parts);
+			}
+			return node(expression.getClass().getSimpleName(), parts);
+		}
+
+		private void flatten(final Expression expression, final Class<?> type, final List<byte[]> operands) {
+			Expression content = expression;
+			while (content instanceof ParenthesisExpression) {
+				content = content.getExpressionSubParts().get(0);
+			}
+			if (type.isInstance(content)) {
+				for (final Expression part : content.getExpressionSubParts()) {
+					flatten(part, type, operands);
+				}
+			} else {
+				operands.add(expression(content));
+			}
+		}
+
+		private byte[] node(final String operator, final List<byte[]> operands) {
+			digest.update((byte) 'O');
+			update(digest, operator);
+			updateAll(digest, operands);
+			return digest.digest();
+		}
+	}
+}
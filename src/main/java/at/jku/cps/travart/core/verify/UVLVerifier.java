@@ -35,6 +35,7 @@ import org.logicng.io.parsers.PropositionalParser;
 import org.logicng.solvers.MaxSATSolver;
 
 import at.jku.cps.travart.core.exception.VerificationException;
+import at.jku.cps.travart.core.helpers.FormulaContext;
 import de.vill.model.Feature;
 import de.vill.model.FeatureModel;
 import de.vill.model.Group;
@@ -64,15 +65,17 @@ public class UVLVerifier {
 	 */
 	public static boolean verify(FeatureModel fm1, FeatureModel fm2) throws VerificationException {
 		if (!equals(fm1, fm2)) {
-			FormulaFactory ff = new FormulaFactory();
-			Formula formulaModel1 = getModelsAsFormula(ff, fm1);
-			Formula formulaModel2 = getModelsAsFormula(ff, fm2);
-			Formula equalityFormula = ff.not(ff.equivalence(formulaModel1, formulaModel2));
-			MaxSATSolver solver = MaxSATSolver.msu3(ff);
-			solver.addHardFormula(equalityFormula);
-			solver.solve();
-
-			throw new VerificationException("Verification failed.\n",formulaModel1,formulaModel2,solver.model().toString());
+			try (FormulaContext context = FormulaContext.open()) {
+				FormulaFactory ff = context.getFactory();
+				Formula formulaModel1 = getModelsAsFormula(ff, fm1);
+				Formula formulaModel2 = getModelsAsFormula(ff, fm2);
+				Formula equalityFormula = ff.not(ff.equivalence(formulaModel1, formulaModel2));
+				MaxSATSolver solver = MaxSATSolver.msu3(ff);
+				solver.addHardFormula(equalityFormula);
+				solver.solve();
+
+				throw new VerificationException("Verification failed.\n",formulaModel1,formulaModel2,solver.model().toString());
+			}
 		}
 		return true;
 	}
@@ -80,17 +83,24 @@ public class UVLVerifier {
 	/**
 	 * Checks two UVL models for equality. This should guarantee the same
 	 * configuration space. Both models need to have an identical feature-set.
+	 * Structurally identical models, see {@link FeatureModelFingerprint}, are
+	 * equal without comparing their formulas.
 	 * 
 	 * @param fm1 The first UVL model
 	 * @param fm2 The second UVL model to compare it with
 	 * @return true if models have same config space, false if not
 	 */
 	public static boolean equals(FeatureModel fm1, FeatureModel fm2) {
-		FormulaFactory ff = new FormulaFactory();
-		Formula formulaModel1 = getModelsAsFormula(ff, fm1);
-		Formula formulaModel2 = getModelsAsFormula(ff, fm2);
+		if (FeatureModelFingerprint.of(fm1).matches(FeatureModelFingerprint.of(fm2))) {
+			return true;
+		}
+		try (FormulaContext context = FormulaContext.open()) {
+			FormulaFactory ff = context.getFactory();
+			Formula formulaModel1 = getModelsAsFormula(ff, fm1);
+			Formula formulaModel2 = getModelsAsFormula(ff, fm2);
 
-		return formulaModel1.isEquivalentTo(formulaModel2);
+			return formulaModel1.isEquivalentTo(formulaModel2);
+		}
 	}
 
 	/**
@@ -0,0 +1,58 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * Tests the core model factory creating canonical constraint instances.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.factory.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+import de.vill.model.constraint.Constraint;
+import de.vill.model.constraint.ImplicationConstraint;
+import de.vill.model.constraint.LiteralConstraint;
+import de.vill.model.constraint.NotConstraint;
+
+class ConstraintInternerTest {
+
+	@Test
+	void createsEqualConstraintsOnce() {
+		final ConstraintInterner interner = CoreModelFactory.interning();
+
+		final Constraint first = interner.createImplicationConstraint(interner.createLiteralConstraint("A"),
+				interner.createNotConstraint(interner.createLiteralConstraint("B")));
+		final Constraint second = interner.createImplicationConstraint(interner.createLiteralConstraint("A"),
+				interner.createNotConstraint(interner.createLiteralConstraint("B")));
+
+		assertSame(first, second);
+	}
+
+	@Test
+	void copiesOperandsCreatedElsewhere() {
+		final ConstraintInterner interner = CoreModelFactory.interning();
+		final LiteralConstraint literal = new LiteralConstraint("B");
+		final NotConstraint operand = new NotConstraint(literal);
+
+		final ImplicationConstraint constraint = interner
+				.createImplicationConstraint(interner.createLiteralConstraint("A"), operand);
+
+		assertEquals(operand, constraint.getRight());
+		assertNotSame(operand, constraint.getRight());
+		assertSame(literal, operand.getContent());
+		assertSame(constraint.getRight(), interner.createNotConstraint(interner.createLiteralConstraint("B")));
+		assertNotSame(literal, interner.createNotConstraint(literal).getContent());
+	}
+}
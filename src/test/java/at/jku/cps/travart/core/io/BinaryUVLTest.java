@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * Tests the binary UVL snapshots of the core model of TraVarT.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import at.jku.cps.travart.core.exception.NotSupportedVariabilityTypeException;
+import de.vill.main.UVLModelFactory;
+import de.vill.model.FeatureModel;
+
+class BinaryUVLTest {
+
+	@ParameterizedTest
+	@ValueSource(strings = { "reader/groups.uvl", "reader/attributes.uvl", "reader/constraints.uvl",
+			"reader/quoted.uvl", "reader/levels.uvl", "cardinality.uvl" })
+	void roundtrip(final String name) throws IOException, NotSupportedVariabilityTypeException, URISyntaxException {
+		final FeatureModel model = parse(name);
+
+		assertEquals(model.toString(), BinaryUVLReader.read(new ByteArrayInputStream(write(model))).toString());
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = { "reader/groups.uvl", "reader/attributes.uvl", "reader/constraints.uvl" })
+	void roundtripWithDictionary(final String name)
+			throws IOException, NotSupportedVariabilityTypeException, URISyntaxException {
+		final FeatureModel model = parse(name);
+		final StringDictionary dictionary = new StringDictionary();
+		final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		BinaryUVLWriter.write(model, stream, dictionary);
+
+		assertEquals(model.toString(),
+				BinaryUVLReader.read(new ByteArrayInputStream(stream.toByteArray()), dictionary).toString());
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = { "reader/groups.uvl", "reader/attributes.uvl", "reader/constraints.uvl" })
+	void rejectsTruncated(final String name)
+			throws IOException, NotSupportedVariabilityTypeException, URISyntaxException {
+		final byte[] snapshot = write(parse(name));
+
+		for (int length = 0; length < snapshot.length; length++) {
+			final byte[] truncated = Arrays.copyOf(snapshot, length);
+			assertThrows(NotSupportedVariabilityTypeException.class,
+					() -> BinaryUVLReader.read(new ByteArrayInputStream(truncated)), "length " + length);
+		}
+	}
+
+	// a damaged byte may still yield a valid snapshot, but must not fail otherwise
+	@ParameterizedTest
+	@ValueSource(strings = { "reader/groups.uvl", "reader/attributes.uvl", "reader/constraints.uvl" })
+	void rejectsDamaged(final String name) throws IOException, NotSupportedVariabilityTypeException, URISyntaxException {
+		final byte[] snapshot = write(parse(name));
+
+		for (int i = 0; i < snapshot.length; i++) {
+			for (final int damage : new int[] { 0x00, 0x7F, 0xFF }) {
+				final byte[] damaged = snapshot.clone();
+				damaged[i] = (byte) damage;
+				try {
+					BinaryUVLReader.read(new ByteArrayInputStream(damaged));
+				} catch (final NotSupportedVariabilityTypeException e) {
+					// rejected
+				}
+			}
+		}
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = { "reader/groups.uvl" })
+	void rejectsOtherInput(final String name) throws IOException, URISyntaxException {
+		final byte[] text = Files.readAllBytes(UVLDeserializerTest.resource(name));
+
+		assertThrows(NotSupportedVariabilityTypeException.class,
+				() -> BinaryUVLReader.read(new ByteArrayInputStream(text)));
+	}
+
+	private static FeatureModel parse(final String name) throws IOException, URISyntaxException {
+		return new UVLModelFactory().parse(Files.readString(UVLDeserializerTest.resource(name)));
+	}
+
+	private static byte[] write(final FeatureModel model) throws IOException, NotSupportedVariabilityTypeException {
+		final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		BinaryUVLWriter.write(model, stream);
+		return stream.toByteArray();
+	}
+}
@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * Tests the reader decoding a memory-mapped file.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MappedFileReaderTest {
+	private static final byte[] SURROGATE_PAIR = { 'a', (byte) 0xF0, (byte) 0x9F, (byte) 0x98, (byte) 0x80, 'b' };
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void readsSurrogatePairCharByChar() throws IOException {
+		assertSingleCharReads(MappedFileReader.DEFAULT_WINDOW_SIZE);
+	}
+
+	@Test
+	void readsSurrogatePairSpanningWindowsCharByChar() throws IOException {
+		assertSingleCharReads(4);
+	}
+
+	private void assertSingleCharReads(final int windowSize) throws IOException {
+		final Path file = Files.write(directory.resolve("pair.txt"), SURROGATE_PAIR);
+		try (MappedFileReader reader = new MappedFileReader(file, windowSize)) {
+			assertEquals('a', reader.read());
+			assertEquals('\uD83D', reader.read());
+			assertEquals('\uDE00', reader.read());
+			assertEquals('b', reader.read());
+			assertEquals(-1, reader.read());
+		}
+	}
+}
@@ -0,0 +1,57 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * Tests the reader for the core model of TraVarT.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import at.jku.cps.travart.core.exception.NotSupportedVariabilityTypeException;
+
+class UVLDeserializerTest {
+
+	// models the UVLReader rejects after it started the model
+	@ParameterizedTest
+	@ValueSource(strings = { "block-comment.uvl", "cardinality.uvl" })
+	void readerFallsBackLikeString(final String name)
+			throws IOException, NotSupportedVariabilityTypeException, URISyntaxException {
+		final Path file = resource(name);
+		final String serial = Files.readString(file);
+		final UVLDeserializer deserializer = new UVLDeserializer();
+		final String expected = deserializer.deserialize(serial, UVLSerializer.UVL_FORMAT).toString();
+
+		assertEquals(expected, deserializer.deserializeFromFile(file).toString());
+		assertEquals(expected,
+				deserializer.deserialize(new StringReader(serial), UVLSerializer.UVL_FORMAT).toString());
+		assertEquals(expected, deserializer.deserialize(
+				new ByteArrayInputStream(serial.getBytes(StandardCharsets.UTF_8)), UVLSerializer.UVL_FORMAT)
+				.toString());
+	}
+
+	static Path resource(final String name) throws URISyntaxException {
+		return Paths.get(UVLDeserializerTest.class.getResource("/uvl/" + name).toURI());
+	}
+}
@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * Tests the streaming reader for UVL models against the UVL parser.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import at.jku.cps.travart.core.exception.NotSupportedVariabilityTypeException;
+import de.vill.main.UVLModelFactory;
+
+class UVLReaderTest {
+
+	@ParameterizedTest
+	@ValueSource(strings = { "reader/groups.uvl", "reader/attributes.uvl", "reader/constraints.uvl",
+			"reader/comments.uvl", "reader/quoted.uvl", "reader/levels.uvl" })
+	void readsLikeParser(final String name)
+			throws IOException, NotSupportedVariabilityTypeException, URISyntaxException {
+		final String serial = Files.readString(UVLDeserializerTest.resource(name));
+		final String expected = new UVLModelFactory().parse(serial).toString();
+
+		assertEquals(expected, new UVLReader(new StringReader(serial)).read().toString());
+	}
+
+	// imports are rejected before any event of the model is emitted
+	@ParameterizedTest
+	@ValueSource(strings = { "reader/imports.uvl" })
+	void rejectsBeforeStart(final String name) throws IOException, URISyntaxException {
+		final String serial = Files.readString(UVLDeserializerTest.resource(name));
+		final UVLReader reader = new UVLReader(new StringReader(serial));
+
+		assertThrows(NotSupportedVariabilityTypeException.class, reader::read);
+		assertFalse(reader.isStarted());
+	}
+
+	// models the UVL parser accepts, but the reader recognizes only after it
+	// started the model
+	@ParameterizedTest
+	@ValueSource(strings = { "block-comment.uvl", "cardinality.uvl" })
+	void rejectsAfterStart(final String name) throws IOException, URISyntaxException {
+		final String serial = Files.readString(UVLDeserializerTest.resource(name));
+		new UVLModelFactory().parse(serial);
+		final UVLReader reader = new UVLReader(new StringReader(serial));
+
+		assertThrows(NotSupportedVariabilityTypeException.class, reader::read);
+		assertTrue(reader.isStarted());
+	}
+}
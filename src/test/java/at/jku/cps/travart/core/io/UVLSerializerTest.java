@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * Tests the writer for the core model of TraVarT.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.io;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import at.jku.cps.travart.core.exception.NotSupportedVariabilityTypeException;
+import de.vill.main.UVLModelFactory;
+import de.vill.model.FeatureModel;
+
+class UVLSerializerTest {
+
+	// 0 renders sequentially, 1 renders every subtree and constraint concurrently
+	@ParameterizedTest
+	@ValueSource(ints = { 0, 1, 2, 1000 })
+	void writesLikeToString(final int threshold)
+			throws IOException, NotSupportedVariabilityTypeException, URISyntaxException {
+		for (final String name : new String[] { "reader/groups.uvl", "reader/attributes.uvl",
+				"reader/constraints.uvl", "reader/quoted.uvl", "reader/levels.uvl", "cardinality.uvl" }) {
+			final FeatureModel model = new UVLModelFactory()
+					.parse(Files.readString(UVLDeserializerTest.resource(name)));
+
+			assertSerializedLikeToString(model, new UVLSerializer(UVLSerializer.UVL_FORMAT, threshold), name);
+		}
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = { 0, 1 })
+	void modelWithImportsWritesLikeToString(final int threshold, @TempDir final Path directory)
+			throws IOException, NotSupportedVariabilityTypeException {
+		Files.writeString(directory.resolve("sub.uvl"), "namespace sub\nfeatures\n\tSub\n\t\toptional\n\t\t\tS\n");
+		final Path main = directory.resolve("main.uvl");
+		Files.writeString(main, "namespace Main\nimports\n\tsub as s\nfeatures\n\tRoot\n\t\toptional\n\t\t\tA\n"
+				+ "\t\t\ts.Sub\n\nconstraints\n\tA => s.S\n");
+		final FeatureModel model = new UVLDeserializer().deserializeFromFile(main);
+		assertFalse(model.getImports().isEmpty());
+
+		assertSerializedLikeToString(model, new UVLSerializer(UVLSerializer.UVL_FORMAT, threshold), "main.uvl");
+	}
+
+	private static void assertSerializedLikeToString(final FeatureModel model, final UVLSerializer serializer,
+			final String name) throws IOException, NotSupportedVariabilityTypeException {
+		final String expected = model.toString();
+		final StringWriter writer = new StringWriter();
+		serializer.serialize(model, writer);
+		final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		serializer.serialize(model, stream);
+
+		assertEquals(expected, serializer.serialize(model), name);
+		assertEquals(expected, writer.toString(), name);
+		assertArrayEquals(expected.getBytes(StandardCharsets.UTF_8), stream.toByteArray(), name);
+	}
+}
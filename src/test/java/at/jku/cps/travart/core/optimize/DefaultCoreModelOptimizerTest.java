@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * This Source Code Form is subject to the terms of the Mozilla
+ * Public License, v. 2.0. If a copy of the MPL was not distributed
+ * with this file, You can obtain one at
+ * https://mozilla.org/MPL/2.0/.
+ *
+ * Contributors:
+ *     @author Kevin Feichtinger
+ *
+ * Tests the default optimizer of the core model.
+ *
+ * Copyright 2024 Johannes Kepler University Linz
+ * LIT Cyber-Physical Systems Lab
+ * All rights reserved
+ *******************************************************************************/
+package at.jku.cps.travart.core.optimize;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import at.jku.cps.travart.core.exception.NotSupportedVariabilityTypeException;
+import at.jku.cps.travart.core.helpers.TraVarTUtils;
+import at.jku.cps.travart.core.io.UVLDeserializer;
+import at.jku.cps.travart.core.io.UVLSerializer;
+import de.vill.model.FeatureModel;
+import de.vill.model.constraint.Constraint;
+import de.vill.model.constraint.ImplicationConstraint;
+import de.vill.model.constraint.LiteralConstraint;
+
+class DefaultCoreModelOptimizerTest {
+
+	private static FeatureModel parse(final String serial) throws NotSupportedVariabilityTypeException {
+		return new UVLDeserializer().deserialize(serial, UVLSerializer.UVL_FORMAT);
+	}
+
+	@Test
+	void removesRequiresOfMandatoryLastLiteral() throws NotSupportedVariabilityTypeException {
+		// the CNF !A | B | C ends with the mandatory feature C
+		final FeatureModel fm = parse("features\n\tR\n\t\toptional\n\t\t\tA\n\t\t\tB\n\t\tmandatory\n\t\t\tC\n"
+				+ "constraints\n\tA => B | C\n");
+
+		DefaultCoreModelOptimizer.getInstance().optimize(fm);
+
+		assertTrue(fm.getOwnConstraints().isEmpty());
+	}
+
+	@Test
+	void keepsRequiresOfOptionalLastLiteral() throws NotSupportedVariabilityTypeException {
+		final FeatureModel fm = parse("features\n\tR\n\t\toptional\n\t\t\tA\n\t\t\tC\n\t\tmandatory\n\t\t\tB\n"
+				+ "constraints\n\tA => B | C\n");
+
+		DefaultCoreModelOptimizer.getInstance().optimize(fm);
+
+		assertEquals(1, fm.getOwnConstraints().size());
+	}
+
+	@Test
+	void seesDirectChangesAfterOptimization() throws NotSupportedVariabilityTypeException {
+		final FeatureModel fm = parse("features\n\tR\n\t\toptional\n\t\t\tA\n\t\t\tB\n\t\t\tC\n\t\t\tD\n"
+				+ "constraints\n\tA => B\n");
+		DefaultCoreModelOptimizer.getInstance().optimize(fm);
+
+		fm.getOwnConstraints().set(0, implication("C", "D"));
+
+		assertTrue(TraVarTUtils.hasOwnConstraint(fm, implication("C", "D")));
+		assertFalse(TraVarTUtils.hasOwnConstraint(fm, implication("A", "B")));
+	}
+
+	@Test
+	void keepsFirstCopyOfDuplicatedConstraints() throws NotSupportedVariabilityTypeException {
+		final FeatureModel fm = parse("features\n\tR\n\t\toptional\n\t\t\tA\n\t\t\tB\n\t\t\tC\n"
+				+ "constraints\n\tA | B\n\tB | C\n\tA | B\n");
+		final Constraint first = fm.getOwnConstraints().get(0);
+		final Constraint other = fm.getOwnConstraints().get(1);
+
+		DefaultCoreModelOptimizer.getInstance().optimize(fm);
+
+		assertEquals(2, fm.getOwnConstraints().size());
+		assertSame(first, fm.getOwnConstraints().get(0));
+		assertSame(other, fm.getOwnConstraints().get(1));
+	}
+
+	private static Constraint implication(final String left, final String right) {
+		return new ImplicationConstraint(new LiteralConstraint(left), new LiteralConstraint(right));
+	}
+}